@@ -15,9 +15,16 @@ public final class ApplicationConstants {
 	public static final String ACCOUNT_URI = "/account";
 	public static final String REGISTER_URI = "/register";
 	public static final String STATISTIC_URI = "/statistic";
+	public static final String ADMIN_URI = "/admin";
+	public static final String METRICS_URI = "/metrics";
+	public static final String HOT_LINKS_URI = "/hotlinks";
+	public static final String TOKEN_URI = "/token";
 
 	public static final String ACCOUNT_REPO_PATH = System.getProperty("user.home") + "/.urlshortener/data/accounts";
 	public static final String REGISTERED_URLS_REPO_PATH = System.getProperty("user.home") + "/.urlshortener/data/registeredUrls";
+	public static final String CLICKS_REPO_PATH = System.getProperty("user.home") + "/.urlshortener/data/clicks";
+	public static final String CLICK_SERIES_REPO_PATH = System.getProperty("user.home") + "/.urlshortener/data/clickSeries";
+	public static final String VISITORS_REPO_PATH = System.getProperty("user.home") + "/.urlshortener/data/visitors";
 	
 	public static final String ID = "id";
 	public static final String SHORT_URL_ID = "shortUrlId";
@@ -28,6 +35,60 @@ public final class ApplicationConstants {
 	
 	// General purpose
 	public static final String JSON_FILE_SUFFIX = "json";
+	public static final String RECORD_FILE_SUFFIX = "rec";
+	public static final String SEGMENT_FILE_SUFFIX = "log";
+	public static final String SEGMENTS_DIRECTORY = "segments";
+	public static final String SNAPSHOT_FILE = "snapshot";
+	public static final String SHORT_ID_INDEX_FILE = "shortIds.index";
+	public static final String BLOOM_FILTER_FILE = "shortIds.bloom";
+	public static final String SHORT_ID_SEQUENCE_FILE = "shortIds.sequence";
+	
+	
+	// Configuration properties
+	public static final String REPOSITORY_PROPERTY_PREFIX = "urlshortener.repository.";
+	public static final String STORAGE_PROP = "storage";
+	public static final String FORMAT_PROP = "format";
+	public static final String SEGMENT_SIZE_PROP = "segment.size";
+	public static final String SNAPSHOT_INTERVAL_PROP = "snapshot.interval-ms";
+	public static final String SNAPSHOT_MIN_TAIL_PROP = "snapshot.min-tail-bytes";
+	public static final String INDEX_PROP = "index";
+	public static final String INDEX_CAPACITY_PROP = "index.capacity";
+	public static final String WRITE_BEHIND_PROP = "write-behind.enabled";
+	public static final String WRITE_BEHIND_MAX_DELAY_PROP = "write-behind.max-delay-ms";
+	public static final String WRITE_BEHIND_MAX_BATCH_PROP = "write-behind.max-batch";
+	public static final String CACHE_POLICY_PROP = "cache.policy";
+	public static final String CACHE_MAX_ENTRIES_PROP = "cache.max-entries";
+	public static final String CACHE_MAX_BYTES_PROP = "cache.max-bytes";
+	public static final String CACHE_PIN_HOT_PROP = "cache.pin-hot";
+	public static final String BLOOM_ENABLED_PROP = "bloom.enabled";
+	public static final String BLOOM_EXPECTED_IDS_PROP = "bloom.expected-ids";
+	public static final String BLOOM_FPP_PROP = "bloom.fpp";
+	public static final String BLOOM_MAX_BYTES_PROP = "bloom.max-bytes";
+	public static final String ID_GENERATOR_PROP = "id.generator";
+	public static final String ID_BLOCK_SIZE_PROP = "id.block-size";
+	public static final String ID_PERMUTE_PROP = "id.permute";
+	public static final String ID_POOL_SIZE_PROP = "id.pool.size";
+	public static final String SECURITY_PROPERTY_PREFIX = "urlshortener.security.";
+	public static final String USER_CACHE_MAX_ENTRIES_PROP = "user-cache.max-entries";
+	public static final String CREDENTIAL_CACHE_TTL_PROP = "credential-cache.ttl-ms";
+	public static final String CREDENTIAL_CACHE_MAX_ENTRIES_PROP = "credential-cache.max-entries";
+	public static final String TOKEN_TTL_PROP = "token.ttl-seconds";
+	public static final String TOKEN_SECRET_PROP = "token.secret";
+	public static final String REDIRECT_FAST_PATH_PROP = "urlshortener.redirect.fast-path.enabled";
+	public static final String REDIRECT_SERVER_PORT_PROP = "urlshortener.redirect.server.port";
+	public static final String REDIRECT_SERVER_IO_THREADS_PROP = "urlshortener.redirect.server.io-threads";
+	public static final String REDIRECT_SERVER_IO_QUEUE_PROP = "urlshortener.redirect.server.io-queue";
+	public static final String VIRTUAL_THREADS_PROP = "urlshortener.server.virtual-threads";
+	public static final String REDIRECT_CACHE_PERMANENT_MAX_AGE_PROP = "urlshortener.redirect.cache.permanent-max-age";
+	public static final String REDIRECT_CACHE_TEMPORARY_MAX_AGE_PROP = "urlshortener.redirect.cache.temporary-max-age";
+	public static final String STATISTICS_FLUSH_INTERVAL_PROP = "urlshortener.statistics.flush-interval-ms";
+	public static final String STATISTICS_BUFFER_SIZE_PROP = "urlshortener.statistics.buffer-size";
+	public static final String STATISTICS_RETENTION_PROP_PREFIX = "urlshortener.statistics.retention.";
+	public static final String STATISTICS_VISITORS_PRECISION_PROP = "urlshortener.statistics.visitors.precision";
+	public static final String STATISTICS_HOT_LINKS_TOP_PROP = "urlshortener.statistics.hot-links.top";
+	public static final String STATISTICS_HOT_LINKS_CAPACITY_PROP = "urlshortener.statistics.hot-links.capacity";
+	public static final String STATISTICS_HOT_LINKS_WINDOW_PROP = "urlshortener.statistics.hot-links.window-ms";
+	public static final String STATISTICS_HOT_LINKS_SLOTS_PROP = "urlshortener.statistics.hot-links.slots";
 	
 	
 	// Security/configuration related
@@ -37,7 +98,7 @@ public final class ApplicationConstants {
 	public static final String PROTOCOL_HTTP = "http";
 	public static final String LOCAL_SERVER_PORT_PROP = "local.server.port";
 
-
+
 	// Formatting related
 	public static final String UNDERSCORE = "_";
 	public static final String DOT = ".";
@@ -47,13 +108,25 @@ public final class ApplicationConstants {
 	public static final String REDIRECTS = "redirects";
 	public static final String URL = "url";
 	public static final String REDIRECT_TYPE = "redirectType";
+	public static final String CACHEABLE = "cacheable";
+	public static final String VIEW = "view";
+	public static final String GRANULARITY = "granularity";
+	public static final String FROM = "from";
+	public static final String TO = "to";
 	
 	// Response parameters
 	public static final String SUCCESS = "success";
 	public static final String DESCRIPTION = "description";
 	public static final String PASSWORD = "password";
+	public static final String TOKEN = "token";
+	public static final String EXPIRES_IN = "expiresIn";
 	public static final String SHORT_URL = "shortUrl";
 	public static final String ERROR = "error";
 	public static final String ERRORS = "errors";
+	public static final String CLICKS = "clicks";
+	public static final String SERIES = "series";
+	public static final String VISITORS = "visitors";
+	public static final String ESTIMATE = "estimate";
+	public static final String STANDARD_ERROR = "standardError";
 	
 }
@@ -0,0 +1,69 @@
+package org.urlshortener;
+
+/**
+ * Converts fixed length alphanumeric short ids to and from their numeric value
+ * 	using the alphabet <code>0-9A-Za-z</code>.
+ *
+ * @since 1.1
+ **/
+public final class Base62 {
+
+	public static final int SHORT_ID_LENGTH = 8;
+
+	/** Number of distinct short ids i.e. 62^8. */
+	public static final long SHORT_ID_SPACE = 218340105584896L;
+
+	private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+	private Base62() {}
+
+	/**
+	 * @return the numeric value of the given short id or -1 if it is
+	 * 	not an alphanumeric sequence of {@value #SHORT_ID_LENGTH} characters.
+	 **/
+	public static long pack(String id) {
+
+		if (id == null || id.length() != SHORT_ID_LENGTH)
+			return -1;
+
+		long value = 0;
+		for (int i = 0; i < SHORT_ID_LENGTH; i++) {
+			int digit = digit(id.charAt(i));
+			if (digit < 0)
+				return -1;
+			value = value * ALPHABET.length + digit;
+		}
+		return value;
+
+	}
+
+	/**
+	 * @return the short id of {@value #SHORT_ID_LENGTH} characters representing the given value.
+	 **/
+	public static String unpack(long value) {
+
+		if (value < 0 || value >= SHORT_ID_SPACE)
+			throw new IllegalArgumentException("Value out of short id range: " + value);
+
+		char[] chars = new char[SHORT_ID_LENGTH];
+		for (int i = SHORT_ID_LENGTH - 1; i >= 0; i--) {
+			chars[i] = ALPHABET[(int) (value % ALPHABET.length)];
+			value /= ALPHABET.length;
+		}
+		return new String(chars);
+
+	}
+
+	private static int digit(char c) {
+
+		if (c >= '0' && c <= '9')
+			return c - '0';
+		if (c >= 'A' && c <= 'Z')
+			return c - 'A' + 10;
+		if (c >= 'a' && c <= 'z')
+			return c - 'a' + 36;
+		return -1;
+
+	}
+
+}
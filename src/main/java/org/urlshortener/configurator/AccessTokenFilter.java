@@ -0,0 +1,55 @@
+package org.urlshortener.configurator;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * <p>Authenticates requests presenting an <code>Authorization: Bearer &lt;token&gt;</code> header with a token
+ * 	issued by the {@link AccessTokenService}. Requests with an invalid or expired token are rejected with
+ * 	HTTP status 401, requests without a bearer token are passed on to the HTTP Basic authentication.</p>
+ *
+ * @since 1.1
+ **/
+public class AccessTokenFilter extends OncePerRequestFilter {
+
+	private static final String BEARER_PREFIX = "Bearer ";
+
+	private final AccessTokenService tokenService;
+
+	public AccessTokenFilter(AccessTokenService tokenService) {
+		this.tokenService = tokenService;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+
+		String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+		if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		Authentication auth = tokenService.verify(header.substring(BEARER_PREFIX.length()).trim());
+		if (auth == null) {
+			SecurityContextHolder.clearContext();
+			response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+			response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+			return;
+		}
+
+		SecurityContextHolder.getContext().setAuthentication(auth);
+		chain.doFilter(request, response);
+
+	}
+
+}
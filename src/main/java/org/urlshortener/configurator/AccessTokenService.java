@@ -0,0 +1,96 @@
+package org.urlshortener.configurator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+
+/**
+ * <p>Issues and verifies stateless access tokens, which carry the account id, its authorities and an
+ * 	expiry time signed with HMAC-SHA256. A token is verified without any repository access, hence it stays
+ * 	valid until it expires even if the account is deleted meanwhile.</p>
+ * <p>Token layout: <code>base64url(accountId LF expiresAtSeconds LF authority,authority) "." base64url(hmac)</code></p>
+ *
+ * @since 1.1
+ * @see AccessTokenFilter
+ **/
+public class AccessTokenService {
+
+	private static final char FIELD_SEPARATOR = '\n';
+	private static final String AUTHORITY_SEPARATOR = ",";
+	private static final char SIGNATURE_SEPARATOR = '.';
+
+	private final Hmac hmac;
+	private final long timeToLiveSeconds;
+
+	/**
+	 * @param secret the signing key, tokens are only accepted by services sharing it.
+	 * @param timeToLiveSeconds how long an issued token is valid.
+	 **/
+	public AccessTokenService(byte[] secret, long timeToLiveSeconds) {
+
+		this.hmac = new Hmac(secret);
+		this.timeToLiveSeconds = timeToLiveSeconds;
+
+	}
+
+	/**
+	 * @return a token authenticating given account with given authorities.
+	 **/
+	public String issue(String accountId, Collection<? extends GrantedAuthority> authorities) {
+
+		long expiresAt = System.currentTimeMillis() / 1000 + timeToLiveSeconds;
+		String claims = accountId + FIELD_SEPARATOR + expiresAt + FIELD_SEPARATOR + authorities.stream()
+				.map(GrantedAuthority::getAuthority)
+				.collect(Collectors.joining(AUTHORITY_SEPARATOR));
+
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		String payload = encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+		return payload + SIGNATURE_SEPARATOR + encoder.encodeToString(hmac.sign(payload.getBytes(StandardCharsets.US_ASCII)));
+
+	}
+
+	/**
+	 * @return the authentication carried by given token, or <code>null</code> if the token is malformed,
+	 * 	its signature does not match or it has expired.
+	 **/
+	public Authentication verify(String token) {
+
+		int separator = token.lastIndexOf(SIGNATURE_SEPARATOR);
+		if (separator <= 0)
+			return null;
+
+		String payload = token.substring(0, separator);
+		String[] claims;
+		try {
+			byte[] signature = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+			if (!Hmac.matches(hmac.sign(payload.getBytes(StandardCharsets.US_ASCII)), signature))
+				return null;
+			claims = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8).split(String.valueOf(FIELD_SEPARATOR), -1);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+
+		if (claims.length != 3 || Long.parseLong(claims[1]) <= System.currentTimeMillis() / 1000)
+			return null;
+
+		List<GrantedAuthority> authorities = new ArrayList<>();
+		for (String authority: claims[2].split(AUTHORITY_SEPARATOR))
+			if (!authority.isEmpty())
+				authorities.add(new SimpleGrantedAuthority(authority));
+		return new PreAuthenticatedAuthenticationToken(claims[0], null, authorities);
+
+	}
+
+	public long getTimeToLiveSeconds() {
+		return timeToLiveSeconds;
+	}
+
+}
@@ -0,0 +1,106 @@
+package org.urlshortener.configurator;
+
+import static org.urlshortener.ApplicationConstants.ROLE_REGISTER;
+import static org.urlshortener.ApplicationConstants.ROLE_STAT_RETRIEVAL;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.urlshortener.Logger;
+import org.urlshortener.dataaccess.AccountRepository;
+import org.urlshortener.dataaccess.cache.ElementCache;
+import org.urlshortener.dataaccess.cache.TinyLfuCache;
+import org.urlshortener.model.Account;
+
+/**
+ * <p>{@link UserDetailsService} loading the credentials of an account from the {@link AccountRepository}
+ * 	on its first authentication, instead of registering every stored account at startup.</p>
+ * <p>The password hashes of recently authenticated accounts are kept in a bounded cache. Accounts stored
+ * 	before the password was hashed get their hash computed and persisted on their first authentication.</p>
+ *
+ * @since 1.1
+ **/
+public class AccountUserDetailsService implements UserDetailsService {
+
+	private static final Collection<GrantedAuthority> AUTHORITIES = Collections.unmodifiableList(Arrays.asList(
+			new SimpleGrantedAuthority(ROLE_REGISTER),
+			new SimpleGrantedAuthority(ROLE_STAT_RETRIEVAL)));
+
+	private final AccountRepository accountRepo;
+	private final PasswordEncoder passwordEncoder;
+	private final ElementCache<String> passwordHashes;
+
+	/**
+	 * @param accountRepo the account repository, possibly a lazy proxy as the repository itself
+	 * 	depends on the {@link SecurityManagerAndConfigurator}.
+	 * @param maxEntries the number of accounts whose password hash is cached.
+	 **/
+	public AccountUserDetailsService(AccountRepository accountRepo, PasswordEncoder passwordEncoder, int maxEntries) {
+
+		this.accountRepo = accountRepo;
+		this.passwordEncoder = passwordEncoder;
+		this.passwordHashes = new TinyLfuCache<>(maxEntries);
+
+	}
+
+	/**
+	 * Provides every account the authority to invoke "/register" & "/statistic" URIs.
+	 * <p>A new {@link User} is returned on every call since the authentication erases its credentials.</p>
+	 **/
+	@Override
+	public UserDetails loadUserByUsername(String accountId) throws UsernameNotFoundException {
+
+		String passwordHash = passwordHashes.get(accountId);
+		if (passwordHash == null) {
+
+			Optional<Account> acc = accountRepo.read(accountId);
+			if (!acc.isPresent())
+				throw new UsernameNotFoundException(accountId);
+
+			passwordHash = getPasswordHash(acc.get());
+			passwordHashes.put(accountId, passwordHash);
+
+		}
+		return new User(accountId, passwordHash, AUTHORITIES);
+
+	}
+
+	/**
+	 * Removes the cached credentials of given account unless they hold given password hash,
+	 * 	they are loaded again on its next authentication.
+	 * @param passwordHash the password hash currently stored for the account, <code>null</code> if deleted.
+	 **/
+	public void invalidate(String accountId, String passwordHash) {
+
+		if (passwordHash == null || !passwordHash.equals(passwordHashes.peek(accountId)))
+			passwordHashes.remove(accountId);
+
+	}
+
+	private String getPasswordHash(Account account) {
+
+		if (account.getPasswordHash() == null) {
+
+			if (account.getPassword() == null)
+				throw new UsernameNotFoundException(account.getId());
+
+			account.setPasswordHash(passwordEncoder.encode(account.getPassword()));
+			account.setPassword(null);
+			accountRepo.update(account);
+			Logger.info("Stored the password hash of account " + account.getId());
+
+		}
+		return account.getPasswordHash();
+
+	}
+
+}
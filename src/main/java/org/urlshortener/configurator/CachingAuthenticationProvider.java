@@ -0,0 +1,125 @@
+package org.urlshortener.configurator;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Collection;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.urlshortener.dataaccess.cache.CacheStatistics;
+import org.urlshortener.dataaccess.cache.ElementCache;
+import org.urlshortener.dataaccess.cache.TinyLfuCache;
+
+/**
+ * <p>{@link AuthenticationProvider} remembering the credentials it has successfully verified, so that the
+ * 	BCrypt verification of the wrapped provider only runs once per account and time-to-live.</p>
+ * <p>The presented credentials are never kept. Only an HMAC of them is cached, under a key generated
+ * 	randomly for the lifetime of the process, and compared in constant time. A cached verification is
+ * 	dropped once expired and whenever the stored password hash of the account changes or the account is deleted,
+ * 	see {@link #invalidate(String, String)}.</p>
+ *
+ * @since 1.1
+ **/
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+	private final AuthenticationProvider delegate;
+	private final long timeToLiveMillis;
+	private final ElementCache<VerifiedCredential> verified;
+	private final Hmac hmac;
+
+	/**
+	 * @param delegate the provider verifying the credentials which are not cached.
+	 * @param timeToLiveMillis how long a verification is trusted, 0 disables the cache.
+	 * @param maxEntries the number of accounts whose verification is cached.
+	 **/
+	public CachingAuthenticationProvider(AuthenticationProvider delegate, long timeToLiveMillis, int maxEntries) {
+
+		this.delegate = delegate;
+		this.timeToLiveMillis = timeToLiveMillis;
+		this.verified = new TinyLfuCache<>(maxEntries);
+
+		byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+		this.hmac = new Hmac(secret);
+
+	}
+
+	@Override
+	public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+
+		if (timeToLiveMillis <= 0 || authentication.getCredentials() == null)
+			return delegate.authenticate(authentication);
+
+		String accountId = authentication.getName();
+		byte[] credential = hmac.sign(accountId.getBytes(StandardCharsets.UTF_8),
+				authentication.getCredentials().toString().getBytes(StandardCharsets.UTF_8));
+
+		VerifiedCredential entry = verified.get(accountId);
+		if (entry != null) {
+			if (System.currentTimeMillis() < entry.expiresAt && Hmac.matches(entry.credential, credential)) {
+				UsernamePasswordAuthenticationToken result =
+						new UsernamePasswordAuthenticationToken(entry.principal, null, entry.authorities);
+				result.setDetails(authentication.getDetails());
+				return result;
+			}
+			if (System.currentTimeMillis() >= entry.expiresAt)
+				verified.remove(accountId);
+		}
+
+		Authentication result = delegate.authenticate(authentication);
+		if (result != null && result.isAuthenticated() && result.getPrincipal() instanceof UserDetails) {
+			UserDetails principal = (UserDetails) result.getPrincipal();
+			verified.put(accountId, new VerifiedCredential(credential, principal.getPassword(), principal,
+					result.getAuthorities(), System.currentTimeMillis() + timeToLiveMillis));
+		}
+		return result;
+
+	}
+
+	@Override
+	public boolean supports(Class<?> authentication) {
+		return delegate.supports(authentication);
+	}
+
+	/**
+	 * Drops the cached verification of given account unless it was made against given password hash.
+	 * @param passwordHash the password hash currently stored for the account, <code>null</code> if deleted.
+	 **/
+	public void invalidate(String accountId, String passwordHash) {
+
+		VerifiedCredential entry = verified.peek(accountId);
+		if (entry != null && (passwordHash == null || !passwordHash.equals(entry.passwordHash)))
+			verified.remove(accountId);
+
+	}
+
+	public CacheStatistics getStatistics() {
+		return verified.getStatistics();
+	}
+
+	private static final class VerifiedCredential {
+
+		private final byte[] credential;
+		private final String passwordHash;
+		private final Object principal;
+		private final Collection<? extends GrantedAuthority> authorities;
+		private final long expiresAt;
+
+		private VerifiedCredential(byte[] credential, String passwordHash, Object principal,
+				Collection<? extends GrantedAuthority> authorities, long expiresAt) {
+
+			this.credential = credential;
+			this.passwordHash = passwordHash;
+			this.principal = principal;
+			this.authorities = authorities;
+			this.expiresAt = expiresAt;
+
+		}
+
+	}
+
+}
@@ -0,0 +1,60 @@
+package org.urlshortener.configurator;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.urlshortener.ApplicationError;
+import org.urlshortener.Logger;
+
+/**
+ * HMAC-SHA256 under a fixed key, safe for concurrent use by keeping one {@link Mac} per thread.
+ *
+ * @since 1.1
+ **/
+final class Hmac {
+
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private final ThreadLocal<Mac> macs;
+
+	Hmac(byte[] secret) {
+
+		SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+		this.macs = ThreadLocal.withInitial(() -> {
+			try {
+				Mac mac = Mac.getInstance(ALGORITHM);
+				mac.init(key);
+				return mac;
+			} catch (GeneralSecurityException e) {
+				Logger.error("Failed to initialize " + ALGORITHM);
+				throw new ApplicationError("Failed to initialize " + ALGORITHM, e);
+			}
+		});
+
+	}
+
+	/**
+	 * @return the HMAC of the concatenation of given parts, each followed by a zero byte.
+	 **/
+	byte[] sign(byte[]... parts) {
+
+		Mac mac = macs.get();
+		for (byte[] part: parts) {
+			mac.update(part);
+			mac.update((byte) 0);
+		}
+		return mac.doFinal();
+
+	}
+
+	/**
+	 * Compares two HMACs in constant time.
+	 **/
+	static boolean matches(byte[] expected, byte[] actual) {
+		return MessageDigest.isEqual(expected, actual);
+	}
+
+}
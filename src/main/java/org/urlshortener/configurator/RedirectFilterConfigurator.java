@@ -0,0 +1,37 @@
+package org.urlshortener.configurator;
+
+import static org.urlshortener.ApplicationConstants.REDIRECT_FAST_PATH_PROP;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.urlshortener.controller.RedirectController;
+import org.urlshortener.controller.RedirectFilter;
+import org.urlshortener.dataaccess.UrlRepository;
+import org.urlshortener.model.RedirectCachePolicy;
+import org.urlshortener.statistics.ClickTracker;
+
+/**
+ * Registers the {@link RedirectFilter} with the servlet container ahead of every other filter, so that
+ * 	redirects skip the security filter chain and the Spring MVC dispatch to {@link RedirectController}.
+ * 	Disabled with <code>urlshortener.redirect.fast-path.enabled=false</code>.
+ *
+ * @since 1.1
+ **/
+@Configuration
+@ConditionalOnProperty(name = REDIRECT_FAST_PATH_PROP, havingValue = "true", matchIfMissing = true)
+public class RedirectFilterConfigurator {
+
+	@Bean
+	FilterRegistrationBean<RedirectFilter> getRedirectFilterRegistration(UrlRepository urlRepo, RedirectCachePolicy cachePolicy, ClickTracker clickTracker) {
+
+		FilterRegistrationBean<RedirectFilter> registration = new FilterRegistrationBean<>(new RedirectFilter(urlRepo, cachePolicy, clickTracker));
+		registration.addUrlPatterns("/*");
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+
+	}
+
+}
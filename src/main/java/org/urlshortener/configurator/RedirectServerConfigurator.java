@@ -0,0 +1,45 @@
+package org.urlshortener.configurator;
+
+import static org.urlshortener.ApplicationConstants.REDIRECT_SERVER_IO_QUEUE_PROP;
+import static org.urlshortener.ApplicationConstants.REDIRECT_SERVER_IO_THREADS_PROP;
+import static org.urlshortener.ApplicationConstants.REDIRECT_SERVER_PORT_PROP;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.urlshortener.controller.RedirectServer;
+import org.urlshortener.dataaccess.UrlRepository;
+import org.urlshortener.model.RedirectCachePolicy;
+import org.urlshortener.statistics.ClickTracker;
+
+/**
+ * Starts the non-blocking {@link RedirectServer} on the port configured with
+ * 	<code>urlshortener.redirect.server.port</code>, next to the servlet container. Without that property
+ * 	redirects are only served by the servlet container.
+ *
+ * @since 1.1
+ **/
+@Configuration
+@ConditionalOnProperty(name = REDIRECT_SERVER_PORT_PROP)
+public class RedirectServerConfigurator {
+
+	private static final int DEFAULT_IO_THREADS = 16;
+	private static final int DEFAULT_IO_QUEUE = 1024;
+
+	@Bean(destroyMethod = "close")
+	RedirectServer getRedirectServer(UrlRepository urlRepo, RedirectCachePolicy cachePolicy, ClickTracker clickTracker, Environment environment) throws IOException {
+
+		RedirectServer server = new RedirectServer(urlRepo, cachePolicy, clickTracker,
+				new InetSocketAddress(environment.getProperty(REDIRECT_SERVER_PORT_PROP, Integer.class)),
+				environment.getProperty(REDIRECT_SERVER_IO_THREADS_PROP, Integer.class, DEFAULT_IO_THREADS),
+				environment.getProperty(REDIRECT_SERVER_IO_QUEUE_PROP, Integer.class, DEFAULT_IO_QUEUE));
+		server.start();
+		return server;
+
+	}
+
+}
@@ -1,33 +1,45 @@
 package org.urlshortener.configurator;
 
 import static org.urlshortener.ApplicationConstants.ACCOUNT_URI;
+import static org.urlshortener.ApplicationConstants.ADMIN_URI;
+import static org.urlshortener.ApplicationConstants.CREDENTIAL_CACHE_MAX_ENTRIES_PROP;
+import static org.urlshortener.ApplicationConstants.CREDENTIAL_CACHE_TTL_PROP;
 import static org.urlshortener.ApplicationConstants.REGISTER_URI;
 import static org.urlshortener.ApplicationConstants.ROLE_REGISTER;
 import static org.urlshortener.ApplicationConstants.ROLE_STAT_RETRIEVAL;
+import static org.urlshortener.ApplicationConstants.SECURITY_PROPERTY_PREFIX;
 import static org.urlshortener.ApplicationConstants.STATISTIC_URI;
+import static org.urlshortener.ApplicationConstants.TOKEN_SECRET_PROP;
+import static org.urlshortener.ApplicationConstants.TOKEN_TTL_PROP;
+import static org.urlshortener.ApplicationConstants.TOKEN_URI;
+import static org.urlshortener.ApplicationConstants.USER_CACHE_MAX_ENTRIES_PROP;
 
-import java.util.Arrays;
-import java.util.Properties;
+import java.security.SecureRandom;
+import java.util.Base64;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.provisioning.InMemoryUserDetailsManager;
-import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.urlshortener.Logger;
+import org.urlshortener.dataaccess.AccountRepository;
 import org.urlshortener.model.Account;
 
 
 /**
- * <p>Prepares application security configuration and loads in-memory {@link UserDetailsManager} service.</p>
- * <p>Exposes API(s) for creating and removing user session as and when required.</p>
+ * <p>Prepares application security configuration and loads the {@link AccountUserDetailsService}.
+ * 	Requests are authenticated with HTTP Basic or with a bearer token issued by the {@link AccessTokenService}.</p>
+ * <p>Exposes API(s) for protecting the password of a new account and for removing the cached
+ * 	credentials of an account as and when required.</p>
  * 
  * @since 1.0
  **/
@@ -35,8 +47,22 @@ import org.urlshortener.model.Account;
 @EnableWebSecurity
 public class SecurityManagerAndConfigurator extends WebSecurityConfigurerAdapter {
 
+	private static final int DEFAULT_USER_CACHE_MAX_ENTRIES = 10_000;
+
+	private static final long DEFAULT_CREDENTIAL_CACHE_TTL = 300_000;
+	private static final int DEFAULT_CREDENTIAL_CACHE_MAX_ENTRIES = 10_000;
+
+	private static final long DEFAULT_TOKEN_TTL = 900;
+	private static final int TOKEN_SECRET_BYTES = 32;
+
+	@Autowired
+	private AccountUserDetailsService userDetailsService;
+
+	@Autowired
+	private AccessTokenService tokenService;
+
 	@Autowired
-	private UserDetailsManager userDetailsManager;
+	private CachingAuthenticationProvider authenticationProvider;
 
 	private PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
@@ -51,59 +77,106 @@ public class SecurityManagerAndConfigurator extends WebSecurityConfigurerAdapter
 		.antMatchers("/", "/help" ,ACCOUNT_URI).permitAll()
 		.antMatchers(REGISTER_URI).hasAuthority(ROLE_REGISTER)
 		.antMatchers(STATISTIC_URI, STATISTIC_URI + "/*").hasAuthority(ROLE_STAT_RETRIEVAL)
-		.and().csrf().disable();
+		.antMatchers(TOKEN_URI).authenticated()
+		//Operational end-points are only served to the local machine.
+		.antMatchers(ADMIN_URI + "/**").access("hasIpAddress('127.0.0.1') or hasIpAddress('::1')")
+		.and().csrf().disable()
+		//Bearer tokens are verified before falling back to HTTP Basic.
+		.addFilterBefore(new AccessTokenFilter(tokenService), BasicAuthenticationFilter.class);
 
 	}
 
 	/**
-	 * <p>Configures authentication parameters with an {@link InMemoryUserDetailsManager}
-	 * service. Also, configures a {@link PasswordEncoder} to the service with a {@link BCryptPasswordEncoder} instance.</p>
+	 * <p>Configures authentication parameters with the {@link CachingAuthenticationProvider}, which verifies
+	 * 	unknown credentials against the {@link AccountUserDetailsService} service with a {@link BCryptPasswordEncoder}.</p>
 	 * <p>Method is invoked internally by Spring boot loader while initializing.</p>
 	 */
 	@Override
 	protected void configure(AuthenticationManagerBuilder auth) throws Exception {
 
-		auth.userDetailsService(userDetailsManager)
-		.passwordEncoder(passwordEncoder);
+		auth.authenticationProvider(authenticationProvider);
 
 	}
 
 	/**
-	 * <p>Returns an {@link InMemoryUserDetailsManager} instance.
+	 * <p>Returns an {@link AccountUserDetailsService} instance.
 	 * </code>@Bean</code> annotation allows Spring to load the service before loading the {@link SecurityManagerAndConfigurator}
-	 * 	component itself.</p>
+	 * 	component itself. The {@link AccountRepository} is injected lazily since it depends on this component.</p>
 	 **/
 	@Bean
-	UserDetailsManager getInMemoryUserDetailsManager() {
-		return new InMemoryUserDetailsManager(new Properties());
+	AccountUserDetailsService getAccountUserDetailsService(@Lazy AccountRepository accountRepo, Environment environment) {
+
+		return new AccountUserDetailsService(accountRepo, passwordEncoder,
+				environment.getProperty(SECURITY_PROPERTY_PREFIX + USER_CACHE_MAX_ENTRIES_PROP, Integer.class, DEFAULT_USER_CACHE_MAX_ENTRIES));
+
 	}
 
 	/**
-	 * Registers user authentication information with the application's security manager.
-	 * Also, by default provides user the authority to invoke "/register" & "/statistic" URIs.
-	 * @param account {@link Account} instance
+	 * <p>Returns a {@link CachingAuthenticationProvider} instance wrapping a {@link DaoAuthenticationProvider}
+	 * 	which loads the accounts from the {@link AccountUserDetailsService}.</p>
+	 **/
+	@Bean
+	CachingAuthenticationProvider getCachingAuthenticationProvider(AccountUserDetailsService userDetailsService, Environment environment) {
+
+		DaoAuthenticationProvider verifier = new DaoAuthenticationProvider();
+		verifier.setUserDetailsService(userDetailsService);
+		verifier.setPasswordEncoder(passwordEncoder);
+		return new CachingAuthenticationProvider(verifier,
+				environment.getProperty(SECURITY_PROPERTY_PREFIX + CREDENTIAL_CACHE_TTL_PROP, Long.class, DEFAULT_CREDENTIAL_CACHE_TTL),
+				environment.getProperty(SECURITY_PROPERTY_PREFIX + CREDENTIAL_CACHE_MAX_ENTRIES_PROP, Integer.class, DEFAULT_CREDENTIAL_CACHE_MAX_ENTRIES));
+
+	}
+
+	/**
+	 * <p>Returns an {@link AccessTokenService} instance signing with the configured base64 encoded secret. Without
+	 * 	a configured secret a random one is used, so that tokens are only accepted until the application restarts.</p>
 	 **/
-	public void createUserSession(Account account) {
-		
-		//Register the user credentials only if not present already.
-		if ( !userDetailsManager.userExists(account.getId()) ) {
-			userDetailsManager.createUser(
-					new User(
-							account.getId(),  
-							passwordEncoder.encode(account.getPassword()), 
-							Arrays.asList(
-									new SimpleGrantedAuthority(ROLE_REGISTER),
-									new SimpleGrantedAuthority(ROLE_STAT_RETRIEVAL))));
+	@Bean
+	AccessTokenService getAccessTokenService(Environment environment) {
+
+		String configuredSecret = environment.getProperty(SECURITY_PROPERTY_PREFIX + TOKEN_SECRET_PROP);
+		byte[] secret;
+		if (configuredSecret != null) {
+			secret = Base64.getDecoder().decode(configuredSecret);
+		} else {
+			secret = new byte[TOKEN_SECRET_BYTES];
+			new SecureRandom().nextBytes(secret);
+			Logger.info("No access token secret configured, issued tokens are only valid until restart");
 		}
+		return new AccessTokenService(secret,
+				environment.getProperty(SECURITY_PROPERTY_PREFIX + TOKEN_TTL_PROP, Long.class, DEFAULT_TOKEN_TTL));
+
+	}
+
+	/**
+	 * Hashes the password of a new account, only the hash gets persisted.
+	 * @param account {@link Account} instance
+	 **/
+	public void protectPassword(Account account) {
+		account.setPasswordHash(passwordEncoder.encode(account.getPassword()));
+	}
+
+	/**
+	 * Removes the cached authentication information of the account from the application's security manager
+	 * 	if its password hash has changed.
+	 * @param account {@link Account} instance
+	 **/
+	public void updateUserSession(Account account) {
+
+		userDetailsService.invalidate(account.getId(), account.getPasswordHash());
+		authenticationProvider.invalidate(account.getId(), account.getPasswordHash());
 
 	}
 
 	/**
-	 * Removes user authentication information from the application's security manager.
+	 * Removes the cached authentication information of the account from the application's security manager.
 	 * @param account {@link Account} instance
 	 **/
 	public void removeUserSession(Account account) {
-		userDetailsManager.deleteUser(account.getId());
+
+		userDetailsService.invalidate(account.getId(), null);
+		authenticationProvider.invalidate(account.getId(), null);
+
 	}
 
 
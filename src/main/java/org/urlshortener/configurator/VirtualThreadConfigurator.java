@@ -0,0 +1,64 @@
+package org.urlshortener.configurator;
+
+import static org.urlshortener.ApplicationConstants.VIRTUAL_THREADS_PROP;
+
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.urlshortener.Logger;
+
+/**
+ * Hands the requests of the embedded Tomcat to a new virtual thread each instead of its fixed pool of
+ * 	worker threads, so that requests blocked on the storage or on BCrypt no longer starve the others,
+ * 	e.g. redirects, of worker threads. Enabled with <code>urlshortener.server.virtual-threads=true</code>,
+ * 	which requires Java 21, otherwise the worker pool is kept.
+ *
+ * @since 1.1
+ **/
+@Configuration
+@ConditionalOnProperty(name = VIRTUAL_THREADS_PROP, havingValue = "true")
+public class VirtualThreadConfigurator {
+
+	private ExecutorService executor;
+
+	@Bean
+	WebServerFactoryCustomizer<TomcatServletWebServerFactory> getVirtualThreadCustomizer() {
+
+		return factory -> {
+
+			executor = VirtualThreads.newThreadPerTaskExecutor("http-virtual-");
+			if (executor == null) {
+				Logger.error("Virtual threads are not supported by Java " + System.getProperty("java.version")
+						+ ", keeping the worker thread pool");
+				return;
+			}
+
+			factory.addConnectorCustomizers(connector -> {
+				if (connector.getProtocolHandler() instanceof AbstractProtocol)
+					((AbstractProtocol<?>) connector.getProtocolHandler()).setExecutor(executor);
+			});
+			Logger.info("Serving requests on virtual threads");
+
+		};
+
+	}
+
+	/**
+	 * Tomcat does not shut down an executor it has not created itself.
+	 **/
+	@PreDestroy
+	public void close() {
+
+		if (executor != null)
+			executor.shutdown();
+
+	}
+
+}
@@ -0,0 +1,59 @@
+package org.urlshortener.configurator;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates executors running every task on a new virtual thread. The application is built for Java 8,
+ * 	so the virtual thread API of Java 21 is looked up reflectively and only available when running on it.
+ *
+ * @since 1.1
+ **/
+public final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * @return true if the running JVM supports virtual threads.
+	 **/
+	public static boolean isSupported() {
+
+		try {
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+
+	}
+
+	/**
+	 * @param prefix the name of the threads, followed by a sequence number.
+	 * @return an executor starting a virtual thread per task, or <code>null</code> if virtual threads are not supported.
+	 **/
+	public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+
+		if (!isSupported())
+			return null;
+
+		try {
+
+			//Thread.ofVirtual().name(prefix, 0).factory(), resolved on the public interfaces of the builder.
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+			ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+
+			Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) newExecutor.invoke(null, factory);
+
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Unable to create a virtual thread executor", e);
+		}
+
+	}
+
+}
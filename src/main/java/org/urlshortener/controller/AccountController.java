@@ -6,6 +6,7 @@ import static org.urlshortener.ApplicationConstants.PASSWORD;
 import static org.urlshortener.ApplicationConstants.SUCCESS;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.servlet.http.HttpServletResponse;
@@ -24,6 +25,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.urlshortener.Logger;
 import org.urlshortener.model.Account;
 import org.urlshortener.model.RegisteredUrl;
+import org.urlshortener.statistics.ClickTracker;
 import org.urlshortener.validator.AccountPayloadValidator;
 
 import com.google.gson.JsonObject;
@@ -41,6 +43,9 @@ public class AccountController extends BaseController {
 	@Autowired
 	private AccountPayloadValidator validator;
 
+	@Autowired
+	private ClickTracker clickTracker;
+
 	/**
 	 * Creates a new user account and returns the generated password in {@link HttpServletResponse} body.
 	 * @param account Auto-injected {@link Account} instance with "AccountId" field deserialized from the HTTP request body.
@@ -56,6 +61,8 @@ public class AccountController extends BaseController {
 
 		account.setPassword(getNextRandomString());
 		accountRepo.create(account);
+		//The generated password is returned only once, hence the account must be durable before responding.
+		accountRepo.awaitDurable(account.getId());
 		Logger.info("Account added: " + account.getId());
 		
 		return new ResponseEntity<>(renderSuccesMesssage(account.getPassword()), getBasicResponseHeader(), HttpStatus.CREATED);
@@ -79,11 +86,13 @@ public class AccountController extends BaseController {
 		 */
 		Account acc = accOpt.get();
 		
+		Map<String, RegisteredUrl> urls = urlRepo.readAll(acc.getRedirects());
 		for(String redirectId: acc.getRedirects()) {
 			
-			Optional<RegisteredUrl> urlOpt = urlRepo.read(redirectId);
-			if (urlOpt.isPresent())
-				urlRepo.delete(urlOpt.get());
+			RegisteredUrl url = urls.get(redirectId);
+			if (url != null)
+				urlRepo.delete(url);
+			clickTracker.delete(redirectId);
 			
 		}
 		
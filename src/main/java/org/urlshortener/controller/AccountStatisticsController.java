@@ -1,25 +1,46 @@
 package org.urlshortener.controller;
 
 import static org.urlshortener.ApplicationConstants.ACCOUNT_ID;
+import static org.urlshortener.ApplicationConstants.CLICKS;
+import static org.urlshortener.ApplicationConstants.ESTIMATE;
+import static org.urlshortener.ApplicationConstants.FROM;
+import static org.urlshortener.ApplicationConstants.GRANULARITY;
+import static org.urlshortener.ApplicationConstants.SERIES;
+import static org.urlshortener.ApplicationConstants.STANDARD_ERROR;
 import static org.urlshortener.ApplicationConstants.STATISTIC_URI;
+import static org.urlshortener.ApplicationConstants.TO;
+import static org.urlshortener.ApplicationConstants.URL;
+import static org.urlshortener.ApplicationConstants.VIEW;
+import static org.urlshortener.ApplicationConstants.VISITORS;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.Errors;
+import org.springframework.validation.MapBindingResult;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.urlshortener.Logger;
 import org.urlshortener.model.Account;
 import org.urlshortener.model.RegisteredUrl;
+import org.urlshortener.statistics.ClickTracker;
+import org.urlshortener.statistics.Granularity;
+import org.urlshortener.statistics.HyperLogLog;
 
 /**
  * Serves retrieval of statistics for the given account.
@@ -29,13 +50,24 @@ import org.urlshortener.model.RegisteredUrl;
 @RequestMapping(STATISTIC_URI + "/" + "{" + ACCOUNT_ID + "}")
 public class AccountStatisticsController extends BaseController{
 
+	@Autowired
+	private ClickTracker clickTracker;
 
 	/**
 	 * Responds with a JSON object, a key:value map where the key is the registered URL 
 	 * 	and the value is the number of redirects registered to that URL.  
+	 * 	With <code>view=clicks</code> the key is the short id instead and the value holds
+	 * 	the registered URL, the number of redirects served for it and the estimated number of unique visitors
+	 * 	along with the relative standard error of the estimate.
+	 * 	With <code>view=series</code> the value holds the redirects served in each minute, hour or day
+	 * 	bucket between the <code>from</code> and <code>to</code> instants instead.
 	 **/
 	@RequestMapping(method=RequestMethod.GET, produces=MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<Object> getStats(@PathVariable(ACCOUNT_ID) String accountId) {
+	public ResponseEntity<Object> getStats(@PathVariable(ACCOUNT_ID) String accountId,
+			@RequestParam(name=VIEW, required=false) String view,
+			@RequestParam(name=GRANULARITY, required=false) String granularity,
+			@RequestParam(name=FROM, required=false) String from,
+			@RequestParam(name=TO, required=false) String to) {
 
 		Logger.debug("Stats requested for account with id: <" + accountId + ">");
 
@@ -43,11 +75,11 @@ public class AccountStatisticsController extends BaseController{
 		if (account.isPresent()) {
 
 			Account acc = account.get();
-			List<RegisteredUrl> registeredUrls = new ArrayList<>();
-			for(String shortUrlId: acc.getRedirects()) {
-				Optional<RegisteredUrl> url = urlRepo.read(shortUrlId);
-				url.ifPresent( urlObj -> registeredUrls.add(urlObj));
-			}
+			List<RegisteredUrl> registeredUrls = new ArrayList<>(urlRepo.readAll(acc.getRedirects()).values());
+			if (CLICKS.equals(view))
+				return new ResponseEntity<>(renderClicks(registeredUrls), getBasicResponseHeader(), HttpStatus.OK);
+			if (SERIES.equals(view))
+				return renderSeries(registeredUrls, granularity, from, to);
 			return new ResponseEntity<>( 
 					renderRegisteredUrlsToRespectiveCountMap(registeredUrls), 
 					getBasicResponseHeader(), HttpStatus.OK );
@@ -72,4 +104,72 @@ public class AccountStatisticsController extends BaseController{
 
 	}
 
+	/**
+	 * Maps the short id of each registered URL to the URL, its clicks and unique visitors, in the order of registration.
+	 **/
+	private Map<String, Map<String, Object>> renderClicks(Collection<RegisteredUrl> urls) {
+
+		Map<String, Map<String, Object>> clicks = new LinkedHashMap<>();
+		for (RegisteredUrl url: urls) {
+			Map<String, Object> stats = new LinkedHashMap<>();
+			stats.put(URL, url.getUrl());
+			stats.put(CLICKS, clickTracker.getClicks(url.getId()));
+			HyperLogLog sketch = clickTracker.getVisitors(url.getId());
+			Map<String, Object> visitors = new LinkedHashMap<>();
+			visitors.put(ESTIMATE, sketch.estimate());
+			visitors.put(STANDARD_ERROR, sketch.getStandardError());
+			stats.put(VISITORS, visitors);
+			clicks.put(url.getId(), stats);
+		}
+		return clicks;
+
+	}
+
+	/**
+	 * Maps the short id of each registered URL to the URL and its clicks per bucket, keyed by the ISO-8601
+	 * 	instant the bucket starts at. Defaults to hour buckets over the retention of hour buckets until now.
+	 **/
+	private ResponseEntity<Object> renderSeries(Collection<RegisteredUrl> urls, String granularityParam, String fromParam, String toParam) {
+
+		Errors errors = new MapBindingResult(new HashMap<>(), SERIES);
+		Granularity granularity = Granularity.HOUR;
+		if (granularityParam != null) {
+			try {
+				granularity = Granularity.valueOf(granularityParam.toUpperCase());
+			} catch (IllegalArgumentException e) {
+				errors.rejectValue(GRANULARITY, "granularity.invalid", "can only be minute|hour|day");
+			}
+		}
+		long to = parseInstant(toParam, TO, System.currentTimeMillis(), errors);
+		long from = parseInstant(fromParam, FROM, to - clickTracker.getRetention(granularity) * granularity.getMillis(), errors);
+		if (errors.hasErrors())
+			return new ResponseEntity<>(renderFailureMessage(errors), getBasicResponseHeader(), HttpStatus.BAD_REQUEST);
+
+		Map<String, Map<String, Object>> series = new LinkedHashMap<>();
+		for (RegisteredUrl url: urls) {
+			Map<String, Long> buckets = new LinkedHashMap<>();
+			clickTracker.getSeries(url.getId(), granularity, from, to)
+					.forEach((start, clicks) -> buckets.put(Instant.ofEpochMilli(start).toString(), clicks));
+			Map<String, Object> stats = new LinkedHashMap<>();
+			stats.put(URL, url.getUrl());
+			stats.put(SERIES, buckets);
+			series.put(url.getId(), stats);
+		}
+		return new ResponseEntity<>(series, getBasicResponseHeader(), HttpStatus.OK);
+
+	}
+
+	private static long parseInstant(String value, String field, long defaultValue, Errors errors) {
+
+		if (value == null)
+			return defaultValue;
+		try {
+			return Instant.parse(value).toEpochMilli();
+		} catch (DateTimeParseException e) {
+			errors.rejectValue(field, field + ".invalid", "must be an ISO-8601 instant, e.g. 2018-04-01T00:00:00Z");
+			return defaultValue;
+		}
+
+	}
+
 }
@@ -0,0 +1,118 @@
+package org.urlshortener.controller;
+
+import static org.urlshortener.ApplicationConstants.ADMIN_URI;
+import static org.urlshortener.ApplicationConstants.HOT_LINKS_URI;
+import static org.urlshortener.ApplicationConstants.METRICS_URI;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.urlshortener.configurator.CachingAuthenticationProvider;
+import org.urlshortener.configurator.SecurityManagerAndConfigurator;
+import org.urlshortener.dataaccess.BaseRepository;
+import org.urlshortener.dataaccess.id.PooledShortIdGenerator;
+import org.urlshortener.dataaccess.storage.MappedBloomFilter;
+import org.urlshortener.statistics.ClickTracker;
+import org.urlshortener.statistics.HotLinkTracker;
+
+/**
+ * Serves operational information about the running application. Access is restricted
+ * 	to the local machine by {@link SecurityManagerAndConfigurator}.
+ * @since 1.1
+ **/
+@RestController
+@RequestMapping(ADMIN_URI)
+public class AdminController extends BaseController {
+
+	@Autowired
+	private CachingAuthenticationProvider authenticationProvider;
+
+	@Autowired
+	private ClickTracker clickTracker;
+
+	/**
+	 * Responds with a JSON object holding the cache statistics of every repository, keyed by the repository name,
+	 * 	of the verified credentials and of the click statistics.
+	 **/
+	@RequestMapping(method=RequestMethod.GET, value=METRICS_URI, produces=MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Object> getMetrics() {
+
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put(accountRepo.getName(), renderRepositoryMetrics(accountRepo));
+		Map<String, Object> urlMetrics = renderRepositoryMetrics(urlRepo);
+		MappedBloomFilter filter = urlRepo.getRegisteredIdFilter();
+		if (filter != null) {
+			Map<String, Object> filterMetrics = new LinkedHashMap<>();
+			filterMetrics.put("ids", filter.getCount());
+			filterMetrics.put("bytes", filter.getSizeInBytes());
+			filterMetrics.put("falsePositiveProbability", filter.getExpectedFalsePositiveProbability());
+			urlMetrics.put("idFilter", filterMetrics);
+		}
+		PooledShortIdGenerator pool = urlRepo.getIdPool();
+		if (pool != null) {
+			Map<String, Object> poolMetrics = new LinkedHashMap<>();
+			poolMetrics.put("depth", pool.getDepth());
+			poolMetrics.put("capacity", pool.getCapacity());
+			poolMetrics.put("refilled", pool.getRefillCount());
+			poolMetrics.put("refillRate", pool.getRefillRate());
+			poolMetrics.put("fallbacks", pool.getFallbackCount());
+			urlMetrics.put("idPool", poolMetrics);
+		}
+		metrics.put(urlRepo.getName(), urlMetrics);
+		metrics.put("credentials", authenticationProvider.getStatistics());
+		Map<String, Object> clickMetrics = new LinkedHashMap<>();
+		clickMetrics.put("bufferCapacity", clickTracker.getBufferCapacity());
+		clickMetrics.put("dropped", clickTracker.getDroppedCount());
+		metrics.put("clicks", clickMetrics);
+		return new ResponseEntity<>(metrics, getBasicResponseHeader(), HttpStatus.OK);
+
+	}
+
+	/**
+	 * Responds with a JSON object holding the most clicked short ids within the sliding window, the most clicked first.
+	 * 	The clicks of a link exceed its true clicks by its error at most.
+	 **/
+	@RequestMapping(method=RequestMethod.GET, value=HOT_LINKS_URI, produces=MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Object> getHotLinks() {
+
+		HotLinkTracker hotLinks = clickTracker.getHotLinks();
+		List<Map<String, Object>> links = new ArrayList<>();
+		for (HotLinkTracker.HotLink link: hotLinks.getTopLinks()) {
+			Map<String, Object> renderedLink = new LinkedHashMap<>();
+			renderedLink.put("shortId", link.getId());
+			renderedLink.put("clicks", link.getClicks());
+			renderedLink.put("error", link.getError());
+			links.add(renderedLink);
+		}
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("windowMs", hotLinks.getWindowMillis());
+		response.put("links", links);
+		return new ResponseEntity<>(response, getBasicResponseHeader(), HttpStatus.OK);
+
+	}
+
+	private Map<String, Object> renderRepositoryMetrics(BaseRepository<?> repository) {
+
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("cache", repository.getCacheStatistics());
+		metrics.put("coalescedLoads", repository.getCoalescedLoadCount());
+		if (repository.isWriteBehind()) {
+			Map<String, Object> writeBehindMetrics = new LinkedHashMap<>();
+			writeBehindMetrics.put("pending", repository.getPendingWriteCount());
+			writeBehindMetrics.put("failures", repository.getWriteFailureCount());
+			metrics.put("writeBehind", writeBehindMetrics);
+		}
+		return metrics;
+
+	}
+
+}
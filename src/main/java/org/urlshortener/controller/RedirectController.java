@@ -5,8 +5,10 @@ import static org.urlshortener.ApplicationConstants.SHORT_URL_ID;
 import java.io.IOException;
 import java.util.Optional;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,31 +16,41 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 import org.urlshortener.Logger;
+import org.urlshortener.model.RedirectCachePolicy;
+import org.urlshortener.model.RedirectResponse;
 import org.urlshortener.model.RegisteredUrl;
+import org.urlshortener.statistics.ClickTracker;
 
 /**
- * Supports redirection of short URLs generated by {@link UrlRegistrationController}
+ * Supports redirection of short URLs generated by {@link UrlRegistrationController}.
+ * 	Registered short URLs are usually redirected by the {@link RedirectFilter} already,
+ * 	this controller serves the remaining requests, e.g. with the filter disabled.
  * @since 1.0
  **/
 @RestController
 @RequestMapping("/")
 public class RedirectController extends BaseController {
 
+	@Autowired
+	private RedirectCachePolicy cachePolicy;
+
+	@Autowired
+	private ClickTracker clickTracker;
+
 	/**
 	 * Redirects the client/browser to the registered full-length URL 
 	 * 	with the configured HTTP status for redirection that could either be 301 or 302
 	 **/
 	@RequestMapping(method=RequestMethod.GET, value="/{" + SHORT_URL_ID + "}")
-	public void redirect(@PathVariable(SHORT_URL_ID) String id, HttpServletResponse httpResponse) throws IOException {
+	public void redirect(@PathVariable(SHORT_URL_ID) String id, HttpServletRequest httpRequest, HttpServletResponse httpResponse) throws IOException {
 		
 		Logger.debug("Redirect requested for shortUrl with id: "+ id);
 		Optional<RegisteredUrl> registeredUrl = urlRepo.read(id);
 
 		if( registeredUrl.isPresent() ) {
 
-			RegisteredUrl url = registeredUrl.get();
-			httpResponse.setStatus(url.getRedirectType());
-			httpResponse.setHeader(HttpHeaders.LOCATION, url.getUrl());
+			writeRedirect(registeredUrl.get().getRedirectResponse(cachePolicy), httpRequest, httpResponse);
+			clickTracker.recordClick(id, httpRequest.getRemoteAddr(), httpRequest.getHeader(HttpHeaders.USER_AGENT));
 
 		} else {
 			httpResponse.sendError(HttpStatus.NOT_FOUND.value(), "Redirect rejected as given url is not registered");
@@ -46,5 +58,22 @@ public class RedirectController extends BaseController {
 
 	}
 
+	/**
+	 * Writes the status and headers of the prepared redirect, or answers <code>304 Not Modified</code>
+	 * 	if the client revalidates a redirect it has cached already.
+	 **/
+	static void writeRedirect(RedirectResponse redirect, HttpServletRequest request, HttpServletResponse response) {
+
+		response.setHeader(HttpHeaders.CACHE_CONTROL, redirect.getCacheControl());
+		if (redirect.isCacheable()) {
+			response.setHeader(HttpHeaders.ETAG, redirect.getETag());
+			response.setDateHeader(HttpHeaders.EXPIRES, System.currentTimeMillis() + redirect.getMaxAge() * 1000);
+		}
+		response.setHeader(HttpHeaders.LOCATION, redirect.getLocation());
+		response.setStatus(redirect.isNotModified(request.getHeader(HttpHeaders.IF_NONE_MATCH))
+				? HttpStatus.NOT_MODIFIED.value()
+				: redirect.getStatus());
+
+	}
 
 }
@@ -0,0 +1,76 @@
+package org.urlshortener.controller;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.urlshortener.Base62;
+import org.urlshortener.dataaccess.UrlRepository;
+import org.urlshortener.model.RedirectCachePolicy;
+import org.urlshortener.model.RegisteredUrl;
+import org.urlshortener.statistics.ClickTracker;
+
+/**
+ * <p>Serves redirects of registered short URLs ahead of the security filter chain and the
+ * 	<code>DispatcherServlet</code>. Only <code>GET</code> and <code>HEAD</code> requests on a path made of a
+ * 	single short id are looked up, everything else as well as unknown short ids fall through to Spring MVC,
+ * 	where {@link RedirectController} keeps serving them.</p>
+ *
+ * @since 1.1
+ **/
+public class RedirectFilter extends OncePerRequestFilter {
+
+	private final UrlRepository urlRepo;
+	private final RedirectCachePolicy cachePolicy;
+	private final ClickTracker clickTracker;
+
+	public RedirectFilter(UrlRepository urlRepo, RedirectCachePolicy cachePolicy, ClickTracker clickTracker) {
+
+		this.urlRepo = urlRepo;
+		this.cachePolicy = cachePolicy;
+		this.clickTracker = clickTracker;
+
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+
+		String id = getShortUrlId(request);
+		Optional<RegisteredUrl> registeredUrl = id != null ? urlRepo.read(id) : Optional.empty();
+		if (!registeredUrl.isPresent()) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		RedirectController.writeRedirect(registeredUrl.get().getRedirectResponse(cachePolicy), request, response);
+		clickTracker.recordClick(id, request.getRemoteAddr(), request.getHeader(HttpHeaders.USER_AGENT));
+
+	}
+
+	/**
+	 * @return the short id the request path consists of, or <code>null</code> if it is not a redirect request.
+	 **/
+	private static String getShortUrlId(HttpServletRequest request) {
+
+		String method = request.getMethod();
+		if (!"GET".equals(method) && !"HEAD".equals(method))
+			return null;
+
+		String uri = request.getRequestURI();
+		int start = request.getContextPath().length();
+		if (uri.length() != start + 1 + Base62.SHORT_ID_LENGTH || uri.charAt(start) != '/')
+			return null;
+
+		String id = uri.substring(start + 1);
+		return Base62.pack(id) >= 0 ? id : null;
+
+	}
+
+}
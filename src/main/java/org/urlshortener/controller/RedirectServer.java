@@ -0,0 +1,397 @@
+package org.urlshortener.controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.urlshortener.Base62;
+import org.urlshortener.Logger;
+import org.urlshortener.dataaccess.UrlRepository;
+import org.urlshortener.model.RedirectCachePolicy;
+import org.urlshortener.model.RedirectResponse;
+import org.urlshortener.model.RegisteredUrl;
+import org.urlshortener.statistics.ClickTracker;
+
+/**
+ * <p>Standalone HTTP/1.1 server answering redirect requests <code>GET /{shortUrlId}</code> on its own port,
+ * 	while accounts and registrations stay on the servlet container.</p>
+ * <p>A single event loop thread accepts connections, parses requests and writes responses without ever
+ * 	blocking. Unknown short ids are rejected by the short id filter and cached URLs are redirected right on
+ * 	the event loop. Only cache misses are read from the storage, on a bounded pool of I/O threads; once the
+ * 	pool and its queue are full further misses are answered with HTTP status 503.</p>
+ * <p>Requests pipelined on a connection are answered in order. Request bodies are not supported, as
+ * 	redirect requests have none.</p>
+ *
+ * @since 1.1
+ * @see RedirectController
+ **/
+public class RedirectServer implements Closeable {
+
+	private static final int MAX_REQUEST_HEAD_BYTES = 8192;
+	private static final byte[] HEAD_END = { '\r', '\n', '\r', '\n' };
+
+	private final UrlRepository urlRepo;
+	private final RedirectCachePolicy cachePolicy;
+	private final ClickTracker clickTracker;
+	private final InetSocketAddress address;
+	private final ThreadPoolExecutor ioPool;
+
+	private final Queue<Runnable> completions = new ConcurrentLinkedQueue<>();
+	private Selector selector;
+	private ServerSocketChannel serverChannel;
+	private Thread eventLoop;
+	private volatile boolean running;
+
+	/**
+	 * @param ioThreads the number of threads reading cache misses from the storage.
+	 * @param ioQueue the number of cache misses waiting for an I/O thread at most.
+	 **/
+	public RedirectServer(UrlRepository urlRepo, RedirectCachePolicy cachePolicy, ClickTracker clickTracker,
+			InetSocketAddress address, int ioThreads, int ioQueue) {
+
+		this.urlRepo = urlRepo;
+		this.cachePolicy = cachePolicy;
+		this.clickTracker = clickTracker;
+		this.address = address;
+		this.ioPool = new ThreadPoolExecutor(ioThreads, ioThreads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, ioQueue)), runnable -> {
+					Thread thread = new Thread(runnable, "redirect-io");
+					thread.setDaemon(true);
+					return thread;
+				});
+
+	}
+
+	public synchronized void start() throws IOException {
+
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.configureBlocking(false);
+		serverChannel.bind(address);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+		running = true;
+		eventLoop = new Thread(this::runEventLoop, "redirect-event-loop");
+		eventLoop.setDaemon(true);
+		eventLoop.start();
+		Logger.info("Redirect server listening on port " + getPort());
+
+	}
+
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+
+		if (!running)
+			return;
+		running = false;
+		selector.wakeup();
+		try {
+			eventLoop.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		ioPool.shutdownNow();
+
+		for (SelectionKey key: selector.keys())
+			key.channel().close();
+		selector.close();
+
+	}
+
+	private void runEventLoop() {
+
+		while (running) {
+			try {
+
+				selector.select();
+				for (Runnable completion; (completion = completions.poll()) != null; )
+					completion.run();
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					try {
+						if (!key.isValid())
+							continue;
+						if (key.isAcceptable())
+							accept();
+						else {
+							if (key.isWritable())
+								((Connection) key.attachment()).flush();
+							if (key.isValid() && key.isReadable())
+								((Connection) key.attachment()).read();
+						}
+					} catch (IOException e) {
+						key.channel().close();
+					}
+				}
+
+			} catch (IOException | RuntimeException e) {
+				Logger.error("Redirect server event loop failure: " + e);
+			}
+		}
+
+	}
+
+	private void accept() throws IOException {
+
+		SocketChannel channel;
+		while ((channel = serverChannel.accept()) != null) {
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+			key.attach(new Connection(key));
+		}
+
+	}
+
+	/**
+	 * State of one client connection, only ever touched by the event loop thread.
+	 **/
+	private final class Connection {
+
+		private final SelectionKey key;
+		private final SocketChannel channel;
+		private final String clientAddress;
+		private final ByteBuffer input = ByteBuffer.allocate(MAX_REQUEST_HEAD_BYTES);
+		private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+		private boolean awaitingStorage;
+		private boolean closeAfterFlush;
+
+		private Connection(SelectionKey key) {
+
+			this.key = key;
+			this.channel = (SocketChannel) key.channel();
+			this.clientAddress = channel.socket().getInetAddress().getHostAddress();
+
+		}
+
+		private void read() throws IOException {
+
+			if (channel.read(input) < 0) {
+				channel.close();
+				return;
+			}
+			handleRequests();
+
+		}
+
+		/**
+		 * Answers the complete requests buffered so far, in order, until one needs the storage.
+		 **/
+		private void handleRequests() throws IOException {
+
+			while (!awaitingStorage && !closeAfterFlush) {
+
+				int headLength = indexOf(input, HEAD_END);
+				if (headLength < 0) {
+					if (!input.hasRemaining())
+						respond(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE, false);
+					break;
+				}
+
+				String head = new String(input.array(), 0, headLength, StandardCharsets.ISO_8859_1);
+				input.flip();
+				input.position(headLength + HEAD_END.length);
+				input.compact();
+				handle(head);
+
+			}
+			updateInterest();
+
+		}
+
+		private void handle(String head) throws IOException {
+
+			String[] lines = head.split("\r\n");
+			String[] requestLine = lines[0].split(" ");
+			if (requestLine.length != 3) {
+				respond(HttpStatus.BAD_REQUEST, false);
+				return;
+			}
+
+			String method = requestLine[0];
+			boolean keepAlive = isKeepAlive(requestLine[2], lines);
+			String ifNoneMatch = getHeader(lines, HttpHeaders.IF_NONE_MATCH);
+			String userAgent = getHeader(lines, HttpHeaders.USER_AGENT);
+			if (!"GET".equals(method) && !"HEAD".equals(method)) {
+				respond(HttpStatus.METHOD_NOT_ALLOWED, keepAlive);
+				return;
+			}
+
+			String path = requestLine[1];
+			int query = path.indexOf('?');
+			String id = path.startsWith("/") ? path.substring(1, query < 0 ? path.length() : query) : null;
+			if (Base62.pack(id) < 0 || !urlRepo.mightContain(id)) {
+				respond(HttpStatus.NOT_FOUND, keepAlive);
+				return;
+			}
+
+			RegisteredUrl cached = urlRepo.readCached(id);
+			if (cached != null) {
+				redirect(id, userAgent, cached.getRedirectResponse(cachePolicy), ifNoneMatch, keepAlive);
+				return;
+			}
+
+			awaitingStorage = true;
+			try {
+				ioPool.execute(() -> {
+					Optional<RegisteredUrl> url;
+					try {
+						url = urlRepo.read(id);
+					} catch (RuntimeException e) {
+						Logger.error("Redirect lookup of " + id + " failed: " + e);
+						url = null;
+					}
+					Optional<RegisteredUrl> result = url;
+					completions.add(() -> completeLookup(id, userAgent, result, ifNoneMatch, keepAlive));
+					selector.wakeup();
+				});
+			} catch (RejectedExecutionException e) {
+				awaitingStorage = false;
+				respond(HttpStatus.SERVICE_UNAVAILABLE, keepAlive);
+			}
+
+		}
+
+		/**
+		 * Runs on the event loop once a cache miss has been read from the storage.
+		 * @param url the result of the lookup or <code>null</code> if it failed.
+		 **/
+		private void completeLookup(String id, String userAgent, Optional<RegisteredUrl> url, String ifNoneMatch, boolean keepAlive) {
+
+			if (!channel.isOpen())
+				return;
+			try {
+				awaitingStorage = false;
+				if (url == null)
+					respond(HttpStatus.INTERNAL_SERVER_ERROR, false);
+				else if (url.isPresent())
+					redirect(id, userAgent, url.get().getRedirectResponse(cachePolicy), ifNoneMatch, keepAlive);
+				else
+					respond(HttpStatus.NOT_FOUND, keepAlive);
+				handleRequests();
+			} catch (IOException e) {
+				try {
+					channel.close();
+				} catch (IOException ignored) {
+					//Already failed.
+				}
+			}
+
+		}
+
+		/**
+		 * Writes the response head prepared with the registered URL, no per request encoding involved.
+		 **/
+		private void redirect(String id, String userAgent, RedirectResponse redirect, String ifNoneMatch, boolean keepAlive) throws IOException {
+
+			clickTracker.recordClick(id, clientAddress, userAgent);
+			output.add(ByteBuffer.wrap(redirect.getHead(redirect.isNotModified(ifNoneMatch), keepAlive, System.currentTimeMillis())));
+			closeAfterFlush = !keepAlive;
+			flush();
+
+		}
+
+		private void respond(HttpStatus status, boolean keepAlive) throws IOException {
+
+			String response = "HTTP/1.1 " + status.value() + " " + status.getReasonPhrase() + "\r\n"
+					+ HttpHeaders.CONTENT_LENGTH + ": 0\r\n"
+					+ HttpHeaders.CONNECTION + (keepAlive ? ": keep-alive" : ": close") + "\r\n\r\n";
+
+			output.add(ByteBuffer.wrap(response.getBytes(StandardCharsets.US_ASCII)));
+			closeAfterFlush = !keepAlive;
+			flush();
+
+		}
+
+		private void flush() throws IOException {
+
+			while (!output.isEmpty()) {
+				ByteBuffer buffer = output.peek();
+				channel.write(buffer);
+				if (buffer.hasRemaining())
+					break;
+				output.poll();
+			}
+
+			if (output.isEmpty() && closeAfterFlush)
+				channel.close();
+			else
+				updateInterest();
+
+		}
+
+		private void updateInterest() {
+
+			if (key.isValid())
+				key.interestOps((awaitingStorage || closeAfterFlush ? 0 : SelectionKey.OP_READ)
+						| (output.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+
+		}
+
+	}
+
+	private static boolean isKeepAlive(String version, String[] lines) {
+
+		String connection = getHeader(lines, HttpHeaders.CONNECTION);
+		if (connection == null)
+			return "HTTP/1.1".equals(version);
+		return !"close".equalsIgnoreCase(connection) && ("HTTP/1.1".equals(version) || "keep-alive".equalsIgnoreCase(connection));
+
+	}
+
+	/**
+	 * @return the value of the first header of given name within the request head lines, or <code>null</code>.
+	 **/
+	private static String getHeader(String[] lines, String name) {
+
+		for (int i = 1; i < lines.length; i++) {
+			String line = lines[i];
+			if (line.length() > name.length() && line.charAt(name.length()) == ':' && line.regionMatches(true, 0, name, 0, name.length()))
+				return line.substring(name.length() + 1).trim();
+		}
+		return null;
+
+	}
+
+	/**
+	 * @return the position of the first occurrence of given bytes within the buffered input, or -1.
+	 **/
+	private static int indexOf(ByteBuffer buffer, byte[] pattern) {
+
+		byte[] bytes = buffer.array();
+		for (int i = 0; i <= buffer.position() - pattern.length; i++) {
+			int j = 0;
+			while (j < pattern.length && bytes[i + j] == pattern[j])
+				j++;
+			if (j == pattern.length)
+				return i;
+		}
+		return -1;
+
+	}
+
+}
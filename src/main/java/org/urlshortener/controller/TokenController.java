@@ -0,0 +1,58 @@
+package org.urlshortener.controller;
+
+import static org.urlshortener.ApplicationConstants.ERROR;
+import static org.urlshortener.ApplicationConstants.EXPIRES_IN;
+import static org.urlshortener.ApplicationConstants.TOKEN;
+import static org.urlshortener.ApplicationConstants.TOKEN_URI;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.urlshortener.Logger;
+import org.urlshortener.configurator.AccessTokenService;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Exchanges the account credentials presented with HTTP Basic for a short-lived access token,
+ * 	to be sent as <code>Authorization: Bearer &lt;token&gt;</code> header on subsequent requests.
+ * @since 1.1
+ **/
+@RestController
+@RequestMapping(TOKEN_URI)
+public class TokenController extends BaseController {
+
+	@Autowired
+	private AccessTokenService tokenService;
+
+	/**
+	 * Issues a token carrying the account id and authorities of the authenticated account. A token
+	 * 	cannot be exchanged for another one, so that the account credentials are checked at least once per token lifetime.
+	 **/
+	@RequestMapping(method=RequestMethod.POST, produces=MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Object> issueToken() {
+
+		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+		if (!(auth instanceof UsernamePasswordAuthenticationToken)) {
+			JsonObject response = new JsonObject();
+			response.add(ERROR, new JsonPrimitive("Tokens are only issued against the account credentials"));
+			return new ResponseEntity<>(response.toString(), getBasicResponseHeader(), HttpStatus.FORBIDDEN);
+		}
+
+		Logger.info("Access token issued to <" + auth.getName() + ">");
+		JsonObject response = new JsonObject();
+		response.add(TOKEN, new JsonPrimitive(tokenService.issue(auth.getName(), auth.getAuthorities())));
+		response.add(EXPIRES_IN, new JsonPrimitive(tokenService.getTimeToLiveSeconds()));
+		return new ResponseEntity<>(response.toString(), getBasicResponseHeader(), HttpStatus.OK);
+
+	}
+
+}
@@ -19,13 +19,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
-import org.urlshortener.ApplicationError;
 import org.urlshortener.Logger;
 import org.urlshortener.model.Account;
 import org.urlshortener.model.RegisteredUrl;
 import org.urlshortener.validator.UrlPayloadValidator;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 
@@ -42,9 +40,6 @@ public class UrlRegistrationController extends BaseController {
 	@Autowired
 	private UrlPayloadValidator validator;
 
-	@JsonIgnore
-	private static final short MAX_RETRY_COUNT_TO_GENERATE_UNIQUE_KEY = 5;
-
 	/**
 	 * Registers the given full-length URL under given user account. User account information
 	 * 	is extracted from Spring's security context.
@@ -72,7 +67,7 @@ public class UrlRegistrationController extends BaseController {
 		Optional<Account> acc = accountRepo.read(accountId);
 		if (acc.isPresent()) {
 
-			url.setId(getNextUniqueId());
+			url.setId(urlRepo.nextId());
 			urlRepo.create(url);
 			acc.get().registerUrl(url.getId());
 			accountRepo.update(acc.get());
@@ -86,31 +81,6 @@ public class UrlRegistrationController extends BaseController {
 
 	}
 
-	private String getNextUniqueId() {
-
-		/* 
-		 * Since, it is not guaranteed that RandomStringGenerator would always
-		 * 	return a unique string and this random string will be treated as a
-		 * 	primary key for storing URL with the URLRepository.
-		 * Hence, we need to ensure some mechanism to retry in case of a rare
-		 * 	event of duplicate id generation.
-		 */
-		short count=0;
-		while(true) {
-
-			String key = getNextRandomString();
-			Optional<RegisteredUrl> existingRedirect = urlRepo.read(key);
-
-			if (!existingRedirect.isPresent()) 
-				return key;
-
-			if(count++ > MAX_RETRY_COUNT_TO_GENERATE_UNIQUE_KEY)
-				throw new ApplicationError("Could not generate unique key even after "+ MAX_RETRY_COUNT_TO_GENERATE_UNIQUE_KEY + " retries");	
-
-		}
-
-	}
-
 	private String renderSuccessfulRegistrationMsg(RegisteredUrl url) throws UnknownHostException, MalformedURLException {
 
 		JsonObject response = new JsonObject();
@@ -3,19 +3,21 @@ package org.urlshortener.dataaccess;
 import static org.urlshortener.ApplicationConstants.ACCOUNT_REPO_PATH;
 
 import java.io.IOException;
-import java.util.Iterator;
-import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.urlshortener.configurator.AccountUserDetailsService;
 import org.urlshortener.configurator.SecurityManagerAndConfigurator;
 import org.urlshortener.controller.AccountController;
+import org.urlshortener.dataaccess.codec.BinaryRecordCodec;
+import org.urlshortener.dataaccess.codec.AccountCodec;
 import org.urlshortener.model.Account;
 
 /**
  * <p>Handles repository persistence of the accounts created by {@link AccountController} component.</p>
- * <p>Ensures that after every read/create/update operation the {@link SecurityManagerAndConfigurator} is notified
- * 	to update the account credentials and authorities. Also, ensures the authentication information
- * 	is removed from the {@link SecurityManagerAndConfigurator} when the account is deleted from the repository.</p>
+ * <p>Ensures that the password of a new account is hashed by the {@link SecurityManagerAndConfigurator}
+ * 	before it gets persisted. Also, ensures the cached authentication information is removed from the
+ * 	{@link SecurityManagerAndConfigurator} when the password hash of the account changes or the account
+ * 	is deleted. Credentials are loaded on demand, see {@link AccountUserDetailsService}.</p>
  * 
  * @since 1.0
  * @see BaseRepository
@@ -26,38 +28,26 @@ public class AccountRepository extends BaseRepository<Account> {
 	private SecurityManagerAndConfigurator securityManager;
 	
 	@Autowired
-	public AccountRepository(SecurityManagerAndConfigurator securityManager) {
+	public AccountRepository(SecurityManagerAndConfigurator securityManager, RepositorySettings settings) {
 		
-		super(ACCOUNT_REPO_PATH);
+		super(ACCOUNT_REPO_PATH, settings);
 		this.securityManager = securityManager;
-		Iterator<Account> iterator = getIterator();
-		iterator.forEachRemaining( acc -> securityManager.createUserSession(acc) );
 
 	}
 	
-	@Override 
-	public Optional<Account> read(String id) {
-		
-		Optional<Account> acc = super.read(id);
-		if(acc.isPresent())
-			securityManager.createUserSession(acc.get());
-		return acc;
-		
-	}
-	
 	@Override 
 	public void create(Account acc) {
 		
+		if (acc.getPassword() != null)
+			securityManager.protectPassword(acc);
 		super.create(acc);
-		securityManager.createUserSession(acc);
 	}
 	
 	@Override
 	public boolean update(Account acc) {
 		
 		if (super.update(acc)) {
-			securityManager.removeUserSession(acc);
-			securityManager.createUserSession(acc);
+			securityManager.updateUserSession(acc);
 			return true;
 		}
 		return false;
@@ -74,6 +64,11 @@ public class AccountRepository extends BaseRepository<Account> {
 		return false;
 	}
 	
+	@Override
+	protected BinaryRecordCodec<Account> createBinaryCodec() {
+		return new AccountCodec();
+	}
+
 	@Override
 	protected Class<Account> getType() {
 		return Account.class;
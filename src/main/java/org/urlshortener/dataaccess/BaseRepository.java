@@ -1,30 +1,51 @@
 package org.urlshortener.dataaccess;
 
-import static org.urlshortener.ApplicationConstants.DOT;
-import static org.urlshortener.ApplicationConstants.JSON_FILE_SUFFIX;
-
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import javax.annotation.PreDestroy;
 
-import org.apache.commons.collections4.map.LRUMap;
-import org.apache.commons.io.FileUtils;
 import org.springframework.hateoas.Identifiable;
 import org.urlshortener.ApplicationError;
 import org.urlshortener.Logger;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.urlshortener.dataaccess.RepositorySettings.RecordFormat;
+import org.urlshortener.dataaccess.WriteBehindCommitter.PendingWrite;
+import org.urlshortener.dataaccess.cache.CacheStatistics;
+import org.urlshortener.dataaccess.cache.ElementCache;
+import org.urlshortener.dataaccess.codec.BinaryRecordCodec;
+import org.urlshortener.dataaccess.codec.JsonRecordCodec;
+import org.urlshortener.dataaccess.codec.RecordCodec;
+import org.urlshortener.dataaccess.codec.RecordFormatException;
+import org.urlshortener.dataaccess.storage.RecordStorage;
 
 /**
  * Back-end repository for caching and persisting elements created by various controller components.
- * 	Implements basic CRUD operations of persistence storage. This class also includes a LRU caching 
- * 	mechanism for minimizing disk operations while performing READ operation. <p> {@link RepositoryAccessAspect}
+ * 	Implements basic CRUD operations of persistence storage. This class also includes a caching 
+ * 	mechanism, configured through {@link RepositorySettings}, for minimizing disk operations while performing READ operation. <p> {@link RepositoryAccessAspect}
  *  is the helper class which helps to auto-commit the create/update operations.</p>
+ * <p>The persistent layout is delegated to a {@link RecordStorage} selected through {@link RepositorySettings}.
+ * 	Elements are encoded by the {@link RecordCodec} of the configured {@link RecordFormat}, while records of
+ * 	either format are decoded.
+ * 	In write-behind mode commits are handed over to a {@link WriteBehindCommitter} which persists them in batches.</p>
  * 
  * @param <T> the type of elements that need to be persisted. Must implement {@link Identifiable}.
  * @since 1.0
@@ -38,19 +59,60 @@ public abstract class BaseRepository<T extends Identifiable<String>> {
 	 *	repository shouldn't demerit the scalability/performance requirements. Also, if required Hadoop's
 	 *	HDFS system can be explored as the persistent storage with minimal changes to achieve desired results.
 	 */
-	private Map<String, T> cache = new LRUMap<>();
+	private static final int LOCK_STRIPES = 64;
+
+	/*
+	 * Cache hits are served without any lock. Everything else is guarded by a lock stripe of the
+	 * 	element id: misses hold the read lock while loading, so loads of different ids run in
+	 * 	parallel, and writes hold the write lock, so a load never resurrects a deleted element.
+	 */
+	private final ElementCache<T> cache;
+	private final ReadWriteLock[] locks = new ReadWriteLock[LOCK_STRIPES];
+	/*
+	 * Loads in flight per element id. Concurrent misses of the same id wait for the
+	 * 	load of the first one instead of reading and parsing the same record again.
+	 */
+	private final Map<String, CompletableFuture<T>> loads = new ConcurrentHashMap<>();
+	private final LongAdder coalescedLoads = new LongAdder();
 	private final File repo;
+	private final RecordStorage storage;
+	private final WriteBehindCommitter committer;
 
-	private ObjectMapper objectMapper = new ObjectMapper();
+	private final RecordCodec<T> jsonCodec;
+	private final BinaryRecordCodec<T> binaryCodec;
+	private final RecordCodec<T> codec;
 
-	public BaseRepository(String repoPath) {
+	public BaseRepository(String repoPath, RepositorySettings settings) {
 
+		long start = System.currentTimeMillis();
 		this.repo = new File(repoPath);
 		if( !repo.exists() ) {
 			//Create initial repo directory if not exists
 			repo.mkdirs();
 		} 
 
+		try {
+			this.storage = settings.openStorage(repo);
+		} catch (IOException e) {
+			Logger.error("Unable to open the repository: " + repo);
+			throw new ApplicationError("Unable to open the repository: " + repo, e);
+		}
+
+		for (int i = 0; i < LOCK_STRIPES; i++)
+			locks[i] = new ReentrantReadWriteLock();
+
+		String name = repo.getName();
+		this.cache = settings.openCache(name, this::weigh);
+		this.jsonCodec = new JsonRecordCodec<>(getType());
+		this.binaryCodec = createBinaryCodec();
+		if (settings.getRecordFormat(name) == RecordFormat.BINARY && binaryCodec == null)
+			Logger.info("No binary record format for the repository " + repo + ", writing JSON records");
+		this.codec = settings.getRecordFormat(name) == RecordFormat.BINARY && binaryCodec != null ? binaryCodec : jsonCodec;
+		this.committer = settings.isWriteBehind(name)
+				? new WriteBehindCommitter(name, storage, settings.getWriteBehindMaxDelay(name), settings.getWriteBehindMaxBatch(name))
+				: null;
+		Logger.info("Opened repository " + repo + " in " + (System.currentTimeMillis() - start) + " ms");
+
 	}
 
 	/**
@@ -61,63 +123,155 @@ public abstract class BaseRepository<T extends Identifiable<String>> {
 	 **/
 	protected abstract Class<T> getType();
 
-	public synchronized void create(T element) {
-		cache.put(element.getId(), element);
+	/**
+	 * @return the codec of the binary record format of the elements, or <code>null</code>
+	 * 	if the repository only supports JSON records.
+	 **/
+	protected BinaryRecordCodec<T> createBinaryCodec() {
+		return null;
+	}
+
+	public void create(T element) {
+
+		Lock lock = getLock(element.getId()).writeLock();
+		lock.lock();
+		try {
+			cache.put(element.getId(), element);
+		} finally {
+			lock.unlock();
+		}
+
 	}
 
-	public synchronized Optional<T> read(String id) {
+	public Optional<T> read(String id) {
 
 		//Check in cache first
 		T element = cache.get(id);
-		if (element == null) {
+		if (element != null)
+			return Optional.of(element);
+
+		//If not found in cache, load from persistent storage unless the same load is already in flight.
+		CompletableFuture<T> load = new CompletableFuture<>();
+		CompletableFuture<T> inFlight = loads.putIfAbsent(id, load);
+		if (inFlight != null) {
+			coalescedLoads.increment();
+			return Optional.ofNullable(await(inFlight));
+		}
 
-			//If not found in cache, load from persistent storage.
-			File file = getElementFile(id);
-			if (file.exists()) {
-				element = deserialize(file);
-				cache.put(id, element);
+		Lock lock = getLock(id).readLock();
+		lock.lock();
+		try {
+
+			element = cache.peek(id);
+			if (element == null) {
+				byte[] record = readRecord(id);
+				if (record != null) {
+					element = deserialize(record);
+					cache.put(id, element);
+				}
 			}
-
+			load.complete(element);
+
+		} catch (RuntimeException e) {
+			load.completeExceptionally(e);
+			throw e;
+		} finally {
+			//Released under the lock, so later callers never see a result older than a subsequent write.
+			loads.remove(id, load);
+			lock.unlock();
 		}
 		return Optional.ofNullable(element);
 
 	}	
 
-	public synchronized boolean update(T updatedElement) {
+	/**
+	 * Reads the elements of many ids at once, e.g. every URL registered by an account. Cached elements are
+	 * 	served without any lock. The others are loaded with one batch read of the storage, in the order of their
+	 * 	location, while holding the read lock of each of their stripes once.
+	 * @return the elements found, keyed by id in the order of given ids. Ids of no element are left out.
+	 **/
+	public Map<String, T> readAll(Collection<String> ids) {
+
+		Map<String, T> found = new HashMap<>();
+		Set<String> misses = new LinkedHashSet<>();
+		for (String id: ids) {
+			T element = cache.get(id);
+			if (element != null)
+				found.put(id, element);
+			else
+				misses.add(id);
+		}
+		if (!misses.isEmpty())
+			found.putAll(load(misses));
+
+		Map<String, T> elements = new LinkedHashMap<>();
+		for (String id: ids) {
+			T element = found.get(id);
+			if (element != null)
+				elements.put(id, element);
+		}
+		return elements;
+
+	}
+
+	/**
+	 * Same as {@link #read(String)} but only answered from the cache, hence never blocks on the storage.
+	 * @return the cached element, or <code>null</code> if it is not cached, whether it exists or not.
+	 **/
+	public T readCached(String id) {
+		return cache.get(id);
+	}
+
+	public boolean update(T updatedElement) {
 
 		if (updatedElement != null) {
 			String id = updatedElement.getId();
-			Optional<T> element = read(id);
-			if (element.isPresent()){
-				cache.put(id, updatedElement);
-				return true;
-			} 
+			Lock lock = getLock(id).writeLock();
+			lock.lock();
+			try {
+				if (cache.peek(id) != null || isStored(id)) {
+					cache.put(id, updatedElement);
+					return true;
+				}
+			} finally {
+				lock.unlock();
+			}
 		}
 		return false;
 
 	}
 
-	public synchronized boolean delete(T element) throws IOException {
+	public boolean delete(T element) throws IOException {
 
 		/* 
 		 * Commit operation implementation here simply dumps the serialized body of the
-		 * 	element to the file system.
+		 * 	element to the persistent storage.
 		 * Now since create/update operations are auto-committed, this ensures that the
 		 * 	element is persisted into the storage as soon as it is added to the cache.
 		 * 	Commit implementation i.e. dumping the serialized body won't help in case of 
 		 * 	delete, in fact we need exactly opposite of that. Hence, delete operation must
-		 * 	delete the respective file manually to ensure consistency.
+		 * 	delete the respective record manually to ensure consistency.
 		 */
 		String id = element.getId();
-		File file = getElementFile(element.getId());
-		if ( cache.containsKey(id) || file.exists() ) {
-		
-			cache.remove(id);
-			file.delete();
-			return true;
-			
+		Lock lock = getLock(id).writeLock();
+		lock.lock();
+		try {
+
+			boolean cached = cache.remove(id) != null;
+			if (committer != null) {
+
+				//Deletes must be ordered with the commits still waiting in the pipeline.
+				boolean stored = isStored(id);
+				committer.enqueue(id, null);
+				return cached || stored;
+
+			}
+			boolean stored = storage.delete(id);
+			return cached || stored;
+
+		} finally {
+			lock.unlock();
 		}
-		return false;
 
 	}	
 
@@ -127,10 +281,12 @@ public abstract class BaseRepository<T extends Identifiable<String>> {
 	 **/
 	public ElementIterator<T> getIterator() {
 
-		return new ElementIterator<>( 
-				repo,
-				new String[]{JSON_FILE_SUFFIX}, 
-				false);
+		try {
+			return new ElementIterator<>(storage.iterator());
+		} catch (IOException e) {
+			Logger.error("Unable to iterate the repository: " + repo);
+			throw new ApplicationError("Unable to iterate the repository: " + repo, e);
+		}
 	}
 
 	/**
@@ -138,60 +294,264 @@ public abstract class BaseRepository<T extends Identifiable<String>> {
 	 * @param element the element to be persisted. Must implement {@link Identifiable}
 	 **/
 	public void commit(T element) throws IOException {
+		//Streams the serialized body to the storage, without building it in memory first where the storage allows.
+		storage.write(element.getId(), out -> codec.encode(element, out));
+	}
+
+	/**
+	 * Hands the element over to the write-behind pipeline. The element is serialized on the
+	 * 	caller's thread, later modifications of the instance are not part of this commit.
+	 * @return a future completed once the element is durable.
+	 **/
+	public CompletableFuture<Void> commitAsync(T element) {
+
+		if (committer == null)
+			throw new IllegalStateException("Repository " + repo + " is not in write-behind mode");
+		return committer.enqueue(element.getId(), codec.encode(element));
+
+	}
+
+	/**
+	 * @return true if commits are persisted by the write-behind pipeline.
+	 **/
+	public boolean isWriteBehind() {
+		return committer != null;
+	}
+
+	/**
+	 * @return the number of elements whose latest commit is waiting in the write-behind pipeline,
+	 * 	including the ones retried after a failure.
+	 **/
+	public int getPendingWriteCount() {
+		return committer == null ? 0 : committer.getPendingCount();
+	}
+
+	/**
+	 * @return the number of failed attempts of the write-behind pipeline to persist a batch.
+	 **/
+	public long getWriteFailureCount() {
+		return committer == null ? 0 : committer.getFailureCount();
+	}
+
+	/**
+	 * Waits until the latest commit of the element with given id is durable.
+	 * 	Returns immediately if there is no such commit in the write-behind pipeline.
+	 **/
+	public void awaitDurable(String id) {
+
+		if (committer != null) {
+			PendingWrite pending = committer.getPending(id);
+			if (pending != null)
+				pending.getDurable().join();
+		}
 
-		File file = getElementFile(element.getId());
-		try ( OutputStream out = new FileOutputStream(file)) {
-			out.write(element.toString().getBytes());
+	}
+
+	/**
+	 * Waits until all commits made so far are durable.
+	 **/
+	public void flush() throws IOException {
+
+		if (committer != null)
+			committer.flush();
+		else
+			storage.sync();
+
+	}
+
+	/**
+	 * Persists the pending commits and releases the resources held by the persistent storage.
+	 **/
+	@PreDestroy
+	public void close() throws IOException {
+
+		if (committer != null)
+			committer.close();
+		storage.close();
+
+	}
+
+	/**
+	 * @return the name of the repository, i.e. the name of its directory.
+	 **/
+	public String getName() {
+		return repo.getName();
+	}
+
+	public CacheStatistics getCacheStatistics() {
+		return cache.getStatistics();
+	}
+
+	/**
+	 * Keeps the cached elements whose id matches given predicate from being evicted, see {@link ElementCache#setPinned(Predicate)}.
+	 **/
+	public void pinInCache(Predicate<String> pinned) {
+		cache.setPinned(pinned);
+	}
+
+	/**
+	 * @return the number of storage loads saved so far by waiting for
+	 * 	a load of the same element already in flight.
+	 **/
+	public long getCoalescedLoadCount() {
+		return coalescedLoads.sum();
+	}
+
+	private ReadWriteLock getLock(String id) {
+		return locks[getStripe(id)];
+	}
+
+	private int getStripe(String id) {
+		return (id.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES;
+	}
+
+	/**
+	 * Loads the elements of given ids missed by the cache and caches them.
+	 **/
+	private Map<String, T> load(Set<String> ids) {
+
+		//Stripes are locked in ascending order, so that concurrent batches never wait on each other in a cycle.
+		Set<Integer> stripes = new TreeSet<>();
+		for (String id: ids)
+			stripes.add(getStripe(id));
+		List<Lock> held = new ArrayList<>(stripes.size());
+		try {
+
+			for (int stripe: stripes) {
+				Lock lock = locks[stripe].readLock();
+				lock.lock();
+				held.add(lock);
+			}
+
+			Map<String, T> elements = new HashMap<>();
+			Map<String, byte[]> records = new HashMap<>();
+			List<String> unread = new ArrayList<>();
+			for (String id: ids) {
+				T element = cache.peek(id);
+				if (element != null) {
+					elements.put(id, element);
+					continue;
+				}
+				//Commits still waiting in the write-behind pipeline are newer than the storage.
+				PendingWrite pending = committer == null ? null : committer.getPending(id);
+				if (pending == null)
+					unread.add(id);
+				else if (pending.getRecord() != null)
+					records.put(id, pending.getRecord());
+			}
+
+			try {
+				records.putAll(storage.readAll(unread));
+			} catch (IOException e) {
+				Logger.error("Unable to read the repository records of: " + repo);
+				throw new ApplicationError("Unable to read the repository records of: " + repo, e);
+			}
+			for (Map.Entry<String, byte[]> record: records.entrySet()) {
+				T element = deserialize(record.getValue());
+				cache.put(record.getKey(), element);
+				elements.put(record.getKey(), element);
+			}
+			return elements;
+
+		} finally {
+			for (Lock lock: held)
+				lock.unlock();
 		}
 
 	}
 
-	private File getElementFile(String id) {
+	/**
+	 * Weighs a cached element by the length of its binary record, which is counted without encoding the element
+	 * 	whatever the configured record format.
+	 **/
+	private int weigh(T element) {
+		return binaryCodec != null ? binaryCodec.getRecordLength(element) : codec.encode(element).length;
+	}
+
+	/**
+	 * @return true if an element is stored under given id, including a pending commit, without reading it.
+	 **/
+	protected boolean isStored(String id) {
+
+		if (committer != null) {
+			PendingWrite pending = committer.getPending(id);
+			if (pending != null)
+				return pending.getRecord() != null;
+		}
 
-		return new File( repo.getAbsolutePath()
-				+ File.separator
-				+ id
-				+ DOT 
-				+ JSON_FILE_SUFFIX );
+		try {
+			return storage.contains(id);
+		} catch (IOException e) {
+			Logger.error("Unable to read the repository record: " + id);
+			throw new ApplicationError("Unable to read the repository record: " + id, e);
+		}
 
 	}
 
-	private T deserialize(File file) {
+	private T await(CompletableFuture<T> load) {
+
+		try {
+			return load.join();
+		} catch (CompletionException e) {
+			//Rethrow the failure of the load as it was raised on the loading thread.
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw e;
+		}
+
+	}
 
-		T element = null;
-		try (FileInputStream fis = new FileInputStream(file)) {
+	private byte[] readRecord(String id) {
 
-			element = objectMapper.readValue(fis, getType());
+		//Commits still waiting in the write-behind pipeline are newer than the storage.
+		if (committer != null) {
+			PendingWrite pending = committer.getPending(id);
+			if (pending != null)
+				return pending.getRecord();
+		}
 
+		try {
+			return storage.read(id);
 		} catch (IOException e) {
+			Logger.error("Unable to read the repository record: " + id);
+			throw new ApplicationError("Unable to read the repository record: " + id, e);
+		}
+
+	}
+
+	private T deserialize(byte[] record) {
 
-			Logger.error("Unable to parse the repository file: " + file);
-			throw new ApplicationError("Unable to parse the repository file: " + file, e);
+		try {
+
+			return binaryCodec != null && BinaryRecordCodec.isBinary(record)
+					? binaryCodec.decode(record)
+					: jsonCodec.decode(record);
+
+		} catch (RecordFormatException e) {
+
+			Logger.error("Unable to parse the repository record in: " + repo);
+			throw new ApplicationError("Unable to parse the repository record in: " + repo, e);
 
 		}
-		return element;
 
 	}
 
 	private class ElementIterator<E extends T> implements java.util.Iterator<T> {
 
-		private java.util.Iterator<File> fileIterator;
+		private final Iterator<byte[]> recordIterator;
 
-		@SuppressWarnings("unchecked")
-		private ElementIterator(File directory, String[] extensions, boolean recursive) {
-			fileIterator = FileUtils.iterateFiles(directory, extensions, recursive);
+		private ElementIterator(Iterator<byte[]> recordIterator) {
+			this.recordIterator = recordIterator;
 		}
 
 		@Override
 		public boolean hasNext() {
-			return fileIterator.hasNext();
+			return recordIterator.hasNext();
 		}
 
 		@Override
 		public T next() {
-
-			File file = fileIterator.next();
-			return deserialize(file);
+			return deserialize(recordIterator.next());
 		}
 
 	}
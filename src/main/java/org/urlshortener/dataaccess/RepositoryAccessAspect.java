@@ -11,7 +11,8 @@ import org.springframework.context.annotation.Configuration;
 import org.urlshortener.model.BaseModel;
 
 /**
- * Helps auto-commit the write operations on repository access.
+ * Helps auto-commit the write operations on repository access. Repositories in write-behind
+ * 	mode only enqueue the commit, which is then persisted in a batch by the repository's writer.
  * 
  * @since 1.0
  * @see BaseRepository
@@ -26,7 +27,11 @@ public class RepositoryAccessAspect<T extends BaseModel> {
 	public void afterWriteOperation(JoinPoint joinPoint) throws IOException {
 
 		T element = (T)joinPoint.getArgs()[0];
-		((BaseRepository<T>)joinPoint.getThis()).commit(element);
+		BaseRepository<T> repository = (BaseRepository<T>)joinPoint.getThis();
+		if (repository.isWriteBehind())
+			repository.commitAsync(element);
+		else
+			repository.commit(element);
 
 	}
 
@@ -0,0 +1,314 @@
+package org.urlshortener.dataaccess;
+
+import static org.urlshortener.ApplicationConstants.BLOOM_ENABLED_PROP;
+import static org.urlshortener.ApplicationConstants.BLOOM_EXPECTED_IDS_PROP;
+import static org.urlshortener.ApplicationConstants.BLOOM_FILTER_FILE;
+import static org.urlshortener.ApplicationConstants.BLOOM_FPP_PROP;
+import static org.urlshortener.ApplicationConstants.BLOOM_MAX_BYTES_PROP;
+import static org.urlshortener.ApplicationConstants.CACHE_MAX_BYTES_PROP;
+import static org.urlshortener.ApplicationConstants.CACHE_MAX_ENTRIES_PROP;
+import static org.urlshortener.ApplicationConstants.CACHE_PIN_HOT_PROP;
+import static org.urlshortener.ApplicationConstants.CACHE_POLICY_PROP;
+import static org.urlshortener.ApplicationConstants.CLICKS_REPO_PATH;
+import static org.urlshortener.ApplicationConstants.CLICK_SERIES_REPO_PATH;
+import static org.urlshortener.ApplicationConstants.FORMAT_PROP;
+import static org.urlshortener.ApplicationConstants.ID_BLOCK_SIZE_PROP;
+import static org.urlshortener.ApplicationConstants.ID_GENERATOR_PROP;
+import static org.urlshortener.ApplicationConstants.ID_PERMUTE_PROP;
+import static org.urlshortener.ApplicationConstants.ID_POOL_SIZE_PROP;
+import static org.urlshortener.ApplicationConstants.INDEX_CAPACITY_PROP;
+import static org.urlshortener.ApplicationConstants.JSON_FILE_SUFFIX;
+import static org.urlshortener.ApplicationConstants.RECORD_FILE_SUFFIX;
+import static org.urlshortener.ApplicationConstants.REGISTERED_URLS_REPO_PATH;
+import static org.urlshortener.ApplicationConstants.INDEX_PROP;
+import static org.urlshortener.ApplicationConstants.REPOSITORY_PROPERTY_PREFIX;
+import static org.urlshortener.ApplicationConstants.SEGMENT_SIZE_PROP;
+import static org.urlshortener.ApplicationConstants.SHORT_ID_INDEX_FILE;
+import static org.urlshortener.ApplicationConstants.SHORT_ID_SEQUENCE_FILE;
+import static org.urlshortener.ApplicationConstants.SNAPSHOT_INTERVAL_PROP;
+import static org.urlshortener.ApplicationConstants.SNAPSHOT_MIN_TAIL_PROP;
+import static org.urlshortener.ApplicationConstants.STORAGE_PROP;
+import static org.urlshortener.ApplicationConstants.VISITORS_REPO_PATH;
+import static org.urlshortener.ApplicationConstants.WRITE_BEHIND_MAX_BATCH_PROP;
+import static org.urlshortener.ApplicationConstants.WRITE_BEHIND_MAX_DELAY_PROP;
+import static org.urlshortener.ApplicationConstants.WRITE_BEHIND_PROP;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.urlshortener.Logger;
+import org.urlshortener.dataaccess.cache.ClockCache;
+import org.urlshortener.dataaccess.cache.ElementCache;
+import org.urlshortener.dataaccess.cache.TinyLfuCache;
+import org.urlshortener.dataaccess.id.PooledShortIdGenerator;
+import org.urlshortener.dataaccess.id.RandomShortIdGenerator;
+import org.urlshortener.dataaccess.id.SequentialShortIdGenerator;
+import org.urlshortener.dataaccess.id.ShortIdGenerator;
+import org.urlshortener.dataaccess.storage.FileSystemStorage;
+import org.urlshortener.dataaccess.storage.HeapRecordIndex;
+import org.urlshortener.dataaccess.storage.MappedBloomFilter;
+import org.urlshortener.dataaccess.storage.MappedShortIdIndex;
+import org.urlshortener.dataaccess.storage.RecordIndex;
+import org.urlshortener.dataaccess.storage.RecordStorage;
+import org.urlshortener.dataaccess.storage.SegmentLogStorage;
+
+/**
+ * <p>Resolves the configuration of every {@link BaseRepository} from the Spring {@link Environment}.</p>
+ * <p>A repository is identified by the name of its directory, e.g. "accounts" or "registeredUrls".
+ * 	Each setting is looked up as <code>urlshortener.repository.&lt;name&gt;.&lt;setting&gt;</code> first
+ * 	and falls back to <code>urlshortener.repository.&lt;setting&gt;</code> shared by all repositories.</p>
+ *
+ * @since 1.1
+ **/
+@Component
+public class RepositorySettings {
+
+	/**
+	 * Persistent storage layouts supported by the repositories.
+	 **/
+	public enum StorageType {
+		/** One JSON file per element. */
+		FILE,
+		/** Append-only rolling segment files. */
+		LOG
+	}
+
+	/**
+	 * Encodings of the records written by the repositories. Records of either format are always readable.
+	 **/
+	public enum RecordFormat {
+		/** JSON documents as rendered by the models. */
+		JSON,
+		/** Compact binary records written by hand-written codecs. */
+		BINARY
+	}
+
+	/**
+	 * Record indexes supported by the "log" storage layout.
+	 **/
+	public enum IndexType {
+		/** Rebuilt from the segments on every start, supports any id. */
+		HEAP,
+		/** Memory-mapped and persistent, supports short ids only hence the repositories keyed by short ids. */
+		MAPPED
+	}
+
+	/**
+	 * Eviction policies of the element cache of a repository.
+	 **/
+	public enum CachePolicy {
+		/** Approximated LRU, every loaded element is cached. */
+		CLOCK,
+		/** Frequency based admission, elements requested once do not displace popular ones. */
+		TINYLFU
+	}
+
+	/**
+	 * Generators of the short ids of registered URLs.
+	 **/
+	public enum IdGeneratorType {
+		/** Blocks of a persisted sequence, optionally permuted, no lookup per id. */
+		SEQUENTIAL,
+		/** Random ids, each checked against the registered ones. */
+		RANDOM
+	}
+
+	private static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+	private static final int DEFAULT_INDEX_CAPACITY = 1 << 20;
+	private static final long DEFAULT_SNAPSHOT_INTERVAL = 60_000;
+	private static final long DEFAULT_WRITE_BEHIND_MAX_DELAY = 5;
+	private static final int DEFAULT_WRITE_BEHIND_MAX_BATCH = 512;
+	private static final int DEFAULT_CACHE_MAX_ENTRIES = 10_000;
+	/* Rough size of an element record, used to size the frequency sketch of a cache bounded in bytes. */
+	private static final int ESTIMATED_ELEMENT_BYTES = 256;
+	private static final long DEFAULT_BLOOM_EXPECTED_IDS = 1_000_000;
+	private static final double DEFAULT_BLOOM_FPP = 0.01;
+	private static final int DEFAULT_ID_BLOCK_SIZE = 1000;
+	private static final int DEFAULT_ID_POOL_SIZE = 1024;
+	private static final long DEFAULT_BLOOM_MAX_BYTES = 16L * 1024 * 1024;
+	/* The repositories whose records are all keyed by short ids. */
+	private static final Set<String> SHORT_ID_REPOSITORIES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+			new File(REGISTERED_URLS_REPO_PATH).getName(), new File(CLICKS_REPO_PATH).getName(),
+			new File(CLICK_SERIES_REPO_PATH).getName(), new File(VISITORS_REPO_PATH).getName())));
+
+	private final Environment environment;
+
+	@Autowired
+	public RepositorySettings(Environment environment) {
+		this.environment = environment;
+	}
+
+	/**
+	 * Opens the configured {@link RecordStorage} for the repository stored under given directory.
+	 **/
+	public RecordStorage openStorage(File repo) throws IOException {
+
+		String name = repo.getName();
+		switch (getStorageType(name)) {
+		case LOG:
+			long segmentSize = getProperty(name, SEGMENT_SIZE_PROP, Long.class, DEFAULT_SEGMENT_SIZE);
+			SegmentLogStorage log = new SegmentLogStorage(repo, segmentSize, openIndex(repo));
+			log.scheduleSnapshots(getProperty(name, SNAPSHOT_INTERVAL_PROP, Long.class, DEFAULT_SNAPSHOT_INTERVAL),
+					getProperty(name, SNAPSHOT_MIN_TAIL_PROP, Long.class, segmentSize));
+			return log;
+		default:
+			//Files of the other format are still read, so that switching the format needs no conversion.
+			return getRecordFormat(name) == RecordFormat.BINARY
+					? new FileSystemStorage(repo, RECORD_FILE_SUFFIX, JSON_FILE_SUFFIX)
+					: new FileSystemStorage(repo, JSON_FILE_SUFFIX, RECORD_FILE_SUFFIX);
+		}
+
+	}
+
+	private RecordIndex openIndex(File repo) throws IOException {
+
+		String name = repo.getName();
+		switch (getIndexType(name)) {
+		case MAPPED:
+			if (SHORT_ID_REPOSITORIES.contains(name))
+				return new MappedShortIdIndex(new File(repo, SHORT_ID_INDEX_FILE),
+						getProperty(name, INDEX_CAPACITY_PROP, Integer.class, DEFAULT_INDEX_CAPACITY));
+			Logger.error("Repository " + name + " is not keyed by short ids, using the heap index instead of the mapped one");
+			return new HeapRecordIndex();
+		default:
+			return new HeapRecordIndex();
+		}
+
+	}
+
+	/**
+	 * Creates the configured element cache of the repository with given name. The cache is
+	 * 	bounded in bytes of element records if <code>cache.max-bytes</code> is set and in
+	 * 	number of elements otherwise.
+	 * @param weigher gives the size in bytes of the record of an element, it must not encode the element.
+	 **/
+	public <V> ElementCache<V> openCache(String name, ToIntFunction<? super V> weigher) {
+
+		int maxEntries = getProperty(name, CACHE_MAX_ENTRIES_PROP, Integer.class, DEFAULT_CACHE_MAX_ENTRIES);
+		long maxBytes = getProperty(name, CACHE_MAX_BYTES_PROP, Long.class, 0L);
+		switch (getCachePolicy(name)) {
+		case CLOCK:
+			return new ClockCache<>(maxEntries);
+		default:
+			if (maxBytes > 0)
+				return new TinyLfuCache<>(maxBytes, (int) Math.min(Integer.MAX_VALUE, maxBytes / ESTIMATED_ELEMENT_BYTES),
+						weigher);
+			return new TinyLfuCache<>(maxEntries);
+		}
+
+	}
+
+	/**
+	 * Opens the Bloom filter over the ids of the repository stored under given directory. The filter of a
+	 * 	repository for which it is disabled is deleted, as it would miss the ids stored meanwhile once enabled again.
+	 * @return the filter or <code>null</code> if disabled for the repository.
+	 **/
+	public MappedBloomFilter openBloomFilter(File repo) throws IOException {
+
+		String name = repo.getName();
+		if (!getProperty(name, BLOOM_ENABLED_PROP, Boolean.class, true)) {
+			if (Files.deleteIfExists(new File(repo, BLOOM_FILTER_FILE).toPath()))
+				Logger.info("Deleted the disabled Bloom filter of repository " + name + ", it is rebuilt once enabled again");
+			return null;
+		}
+		return new MappedBloomFilter(new File(repo, BLOOM_FILTER_FILE),
+				getProperty(name, BLOOM_EXPECTED_IDS_PROP, Long.class, DEFAULT_BLOOM_EXPECTED_IDS),
+				getProperty(name, BLOOM_FPP_PROP, Double.class, DEFAULT_BLOOM_FPP),
+				getProperty(name, BLOOM_MAX_BYTES_PROP, Long.class, DEFAULT_BLOOM_MAX_BYTES));
+
+	}
+
+	/**
+	 * Opens the configured generator of the short ids of the repository stored under given directory.
+	 * 	The ids are generated ahead of time by a {@link PooledShortIdGenerator} unless <code>id.pool.size</code> is 0.
+	 * @param mayBeRegistered tells whether an id is, or may be, registered already.
+	 * @param registered tells exactly whether an id is registered already.
+	 * @param anyRegistered tells whether any id is registered already.
+	 **/
+	public ShortIdGenerator openIdGenerator(File repo, Predicate<String> mayBeRegistered, Predicate<String> registered,
+			BooleanSupplier anyRegistered) throws IOException {
+
+		String name = repo.getName();
+		ShortIdGenerator generator;
+		switch (getIdGeneratorType(name)) {
+		case RANDOM:
+			generator = new RandomShortIdGenerator(mayBeRegistered);
+			break;
+		default:
+			generator = new SequentialShortIdGenerator(new File(repo, SHORT_ID_SEQUENCE_FILE),
+					getProperty(name, ID_BLOCK_SIZE_PROP, Integer.class, DEFAULT_ID_BLOCK_SIZE),
+					getProperty(name, ID_PERMUTE_PROP, Boolean.class, true),
+					registered, anyRegistered);
+		}
+
+		int poolSize = getProperty(name, ID_POOL_SIZE_PROP, Integer.class, DEFAULT_ID_POOL_SIZE);
+		return poolSize > 0 ? new PooledShortIdGenerator(name, generator, poolSize) : generator;
+
+	}
+
+	public IdGeneratorType getIdGeneratorType(String name) {
+		return IdGeneratorType.valueOf(getProperty(name, ID_GENERATOR_PROP, String.class, IdGeneratorType.SEQUENTIAL.name()).toUpperCase());
+	}
+
+	public CachePolicy getCachePolicy(String name) {
+		return CachePolicy.valueOf(getProperty(name, CACHE_POLICY_PROP, String.class, CachePolicy.TINYLFU.name()).toUpperCase());
+	}
+
+	public StorageType getStorageType(String name) {
+		return StorageType.valueOf(getProperty(name, STORAGE_PROP, String.class, StorageType.FILE.name()).toUpperCase());
+	}
+
+	public RecordFormat getRecordFormat(String name) {
+		return RecordFormat.valueOf(getProperty(name, FORMAT_PROP, String.class, RecordFormat.JSON.name()).toUpperCase());
+	}
+
+	public IndexType getIndexType(String name) {
+		return IndexType.valueOf(getProperty(name, INDEX_PROP, String.class, IndexType.HEAP.name()).toUpperCase());
+	}
+
+	/**
+	 * @return true if the most requested elements of the repository, as tracked by the click statistics,
+	 * 	are pinned in its cache.
+	 **/
+	public boolean isCachePinningHotElements(String name) {
+		return getProperty(name, CACHE_PIN_HOT_PROP, Boolean.class, false);
+	}
+
+	/**
+	 * @return true if commits of the repository are persisted in batches by a writer thread
+	 * 	instead of on the caller's thread.
+	 **/
+	public boolean isWriteBehind(String name) {
+		return getProperty(name, WRITE_BEHIND_PROP, Boolean.class, false);
+	}
+
+	/**
+	 * @return the longest time, in milliseconds, a write-behind commit waits for others to join its batch.
+	 **/
+	public long getWriteBehindMaxDelay(String name) {
+		return getProperty(name, WRITE_BEHIND_MAX_DELAY_PROP, Long.class, DEFAULT_WRITE_BEHIND_MAX_DELAY);
+	}
+
+	public int getWriteBehindMaxBatch(String name) {
+		return getProperty(name, WRITE_BEHIND_MAX_BATCH_PROP, Integer.class, DEFAULT_WRITE_BEHIND_MAX_BATCH);
+	}
+
+	protected <V> V getProperty(String name, String setting, Class<V> type, V defaultValue) {
+
+		V value = environment.getProperty(REPOSITORY_PROPERTY_PREFIX + name + "." + setting, type);
+		return value != null ? value : environment.getProperty(REPOSITORY_PROPERTY_PREFIX + setting, type, defaultValue);
+
+	}
+
+}
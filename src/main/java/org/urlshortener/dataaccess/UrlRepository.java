@@ -2,14 +2,34 @@ package org.urlshortener.dataaccess;
 
 import static org.urlshortener.ApplicationConstants.REGISTERED_URLS_REPO_PATH;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.urlshortener.ApplicationError;
+import org.urlshortener.Logger;
 import org.urlshortener.controller.UrlRegistrationController;
+import org.urlshortener.dataaccess.storage.MappedBloomFilter;
+import org.urlshortener.dataaccess.codec.BinaryRecordCodec;
+import org.urlshortener.dataaccess.codec.RegisteredUrlCodec;
+import org.urlshortener.dataaccess.id.PooledShortIdGenerator;
+import org.urlshortener.dataaccess.id.ShortIdGenerator;
 import org.urlshortener.model.RegisteredUrl;
 
 /**
- * Handles repository persistence of the URLs registered by {@link UrlRegistrationController} component.
+ * <p>Handles repository persistence of the URLs registered by {@link UrlRegistrationController} component.</p>
+ * <p>Keeps a {@link MappedBloomFilter} over all registered short ids, so that reads of ids which were
+ * 	never registered are answered without touching the cache or the persistent storage.</p>
+ * <p>Generates the short ids of new URLs with the configured {@link ShortIdGenerator}.</p>
  * 
  * @since 1.0
  * @see BaseRepository
@@ -17,8 +37,128 @@ import org.urlshortener.model.RegisteredUrl;
 @Component
 public class UrlRepository extends BaseRepository<RegisteredUrl> {
 	
-	public UrlRepository() throws IOException {
-		super(REGISTERED_URLS_REPO_PATH);
+	private final MappedBloomFilter registeredIds;
+	private final ShortIdGenerator idGenerator;
+
+	@Autowired
+	public UrlRepository(RepositorySettings settings) {
+
+		super(REGISTERED_URLS_REPO_PATH, settings);
+		try {
+			this.registeredIds = settings.openBloomFilter(new File(REGISTERED_URLS_REPO_PATH));
+		} catch (IOException e) {
+			Logger.error("Unable to open the short id filter of: " + REGISTERED_URLS_REPO_PATH);
+			throw new ApplicationError("Unable to open the short id filter of: " + REGISTERED_URLS_REPO_PATH, e);
+		}
+
+		if (registeredIds != null && registeredIds.needsRebuild()) {
+			long start = System.currentTimeMillis();
+			Iterator<RegisteredUrl> iterator = getIterator();
+			iterator.forEachRemaining( url -> registeredIds.add(url.getId()) );
+			Logger.info("Rebuilt short id filter " + registeredIds + " in " + (System.currentTimeMillis() - start) + " ms");
+		}
+
+		try {
+			this.idGenerator = settings.openIdGenerator(new File(REGISTERED_URLS_REPO_PATH), this::mayBeRegistered,
+					this::isStored, this::anyRegistered);
+		} catch (IOException e) {
+			Logger.error("Unable to open the short id generator of: " + REGISTERED_URLS_REPO_PATH);
+			throw new ApplicationError("Unable to open the short id generator of: " + REGISTERED_URLS_REPO_PATH, e);
+		}
+
+	}
+
+	@Override
+	public Optional<RegisteredUrl> read(String id) {
+
+		if (!mightContain(id))
+			return Optional.empty();
+		return super.read(id);
+
+	}
+
+	@Override
+	public Map<String, RegisteredUrl> readAll(Collection<String> ids) {
+
+		List<String> candidates = new ArrayList<>(ids.size());
+		for (String id: ids)
+			if (mightContain(id))
+				candidates.add(id);
+		return super.readAll(candidates);
+
+	}
+
+	@Override
+	public void create(RegisteredUrl url) {
+
+		//Added before the element becomes visible, so that a lookup never misses it.
+		if (registeredIds != null)
+			registeredIds.add(url.getId());
+		super.create(url);
+
+	}
+
+	/**
+	 * @return false if no URL has ever been registered under given short id, true if one probably has.
+	 **/
+	public boolean mightContain(String id) {
+		return registeredIds == null || registeredIds.mightContain(id);
+	}
+
+	/**
+	 * @return a short id under which no URL is registered yet.
+	 **/
+	public String nextId() {
+		return idGenerator.nextId();
+	}
+
+	/**
+	 * @return the pool of short ids generated ahead of time or <code>null</code> if disabled.
+	 **/
+	public PooledShortIdGenerator getIdPool() {
+		return idGenerator instanceof PooledShortIdGenerator ? (PooledShortIdGenerator) idGenerator : null;
+	}
+
+	/**
+	 * @return the short id filter or <code>null</code> if disabled.
+	 **/
+	public MappedBloomFilter getRegisteredIdFilter() {
+		return registeredIds;
+	}
+
+	/**
+	 * Answered by the short id filter alone, false positives only make the id generator skip an id.
+	 * 	Without the filter the storage is asked whether it holds the id.
+	 **/
+	private boolean mayBeRegistered(String id) {
+		return registeredIds != null ? registeredIds.mightContain(id) : isStored(id);
+	}
+
+	/**
+	 * Only asked when the short id sequence is created, to tell whether ids were registered before it.
+	 **/
+	private boolean anyRegistered() {
+
+		Iterator<RegisteredUrl> iterator = getIterator();
+		return iterator.hasNext();
+
+	}
+
+	@Override
+	@PreDestroy
+	public void close() throws IOException {
+
+		super.close();
+		if (idGenerator instanceof PooledShortIdGenerator)
+			((PooledShortIdGenerator) idGenerator).close();
+		if (registeredIds != null)
+			registeredIds.close();
+
+	}
+
+	@Override
+	protected BinaryRecordCodec<RegisteredUrl> createBinaryCodec() {
+		return new RegisteredUrlCodec();
 	}
 
 	@Override
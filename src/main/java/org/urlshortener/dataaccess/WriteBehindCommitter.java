@@ -0,0 +1,268 @@
+package org.urlshortener.dataaccess;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.urlshortener.ApplicationError;
+import org.urlshortener.Logger;
+import org.urlshortener.dataaccess.storage.RecordStorage;
+
+/**
+ * <p>Group-commit pipeline of a {@link BaseRepository} running in write-behind mode.</p>
+ * <p>Commits are serialized on the caller's thread and enqueued to a dedicated writer thread. The writer
+ * 	collects everything enqueued within the durability window, bounded by a maximum delay and a maximum batch
+ * 	size, and persists the batch with one {@link RecordStorage#writeAll(Map)} followed by one
+ * 	{@link RecordStorage#sync()}. Several commits of the same id within a batch are coalesced.</p>
+ * <p>Records waiting in the pipeline remain readable through {@link #getPending(String)}. A batch which fails
+ * 	to be persisted stays pending and is retried, together with the commits enqueued meanwhile, after a delay
+ * 	doubling from {@value #MIN_RETRY_DELAY_MILLIS} ms up to {@value #MAX_RETRY_DELAY_MILLIS} ms. Only a batch
+ * 	still failing once the pipeline is closed is given up, its futures are completed exceptionally.</p>
+ *
+ * @since 1.1
+ **/
+class WriteBehindCommitter {
+
+	/* Marks the end of the queue once the pipeline is closed. */
+	private static final PendingWrite CLOSE = new PendingWrite(null, null);
+	private static final long MIN_RETRY_DELAY_MILLIS = 100;
+	private static final long MAX_RETRY_DELAY_MILLIS = 10_000;
+
+	private final RecordStorage storage;
+	private final long maxDelayNanos;
+	private final int maxBatchSize;
+
+	private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+	private final Map<String, PendingWrite> pending = new ConcurrentHashMap<>();
+	private final Thread writer;
+	private volatile boolean running = true;
+	private final LongAdder failures = new LongAdder();
+
+	WriteBehindCommitter(String name, RecordStorage storage, long maxDelayMillis, int maxBatchSize) {
+
+		this.storage = storage;
+		this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+		this.maxBatchSize = maxBatchSize;
+
+		writer = new Thread(this::run, "write-behind-" + name);
+		writer.setDaemon(true);
+		writer.start();
+
+	}
+
+	/**
+	 * Enqueues the serialized body of an element, or <code>null</code> to delete it.
+	 * @return a future completed once the record is durable.
+	 **/
+	CompletableFuture<Void> enqueue(String id, byte[] record) {
+
+		if (!running)
+			throw new ApplicationError("Write-behind pipeline is closed, rejected commit of: " + id);
+
+		PendingWrite write = new PendingWrite(id, record);
+		pending.put(id, write);
+		queue.add(write);
+		return write.durable;
+
+	}
+
+	/**
+	 * @return the latest record enqueued but not yet persisted for the given id, or <code>null</code>.
+	 **/
+	PendingWrite getPending(String id) {
+		return pending.get(id);
+	}
+
+	/**
+	 * @return the number of ids whose latest commit is not durable yet, including the ones being retried.
+	 **/
+	int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * @return the number of failed attempts to persist a batch so far.
+	 **/
+	long getFailureCount() {
+		return failures.sum();
+	}
+
+	/**
+	 * Waits until everything enqueued before this call is durable.
+	 **/
+	void flush() {
+
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (PendingWrite write: pending.values())
+			futures.add(write.durable);
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+	}
+
+	/**
+	 * Stops accepting commits and waits for all of the enqueued ones to be persisted.
+	 **/
+	void close() {
+
+		running = false;
+		queue.add(CLOSE);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		//Commits which raced with close() are persisted on the closing thread.
+		List<PendingWrite> remaining = new ArrayList<>();
+		queue.drainTo(remaining);
+		remaining.remove(CLOSE);
+		if (!remaining.isEmpty())
+			persist(remaining, false);
+
+	}
+
+	private void run() {
+
+		List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+		long retryDelayMillis = 0;
+		boolean open = true;
+		while (open) {
+
+			try {
+				open = retryDelayMillis > 0 ? collectFor(batch, TimeUnit.MILLISECONDS.toNanos(retryDelayMillis)) : collect(batch);
+			} catch (InterruptedException e) {
+				open = false;
+			}
+			if (batch.isEmpty())
+				continue;
+
+			if (persist(batch, open)) {
+				batch.clear();
+				retryDelayMillis = 0;
+			} else {
+				retryDelayMillis = Math.min(Math.max(MIN_RETRY_DELAY_MILLIS, 2 * retryDelayMillis), MAX_RETRY_DELAY_MILLIS);
+			}
+
+		}
+
+	}
+
+	/**
+	 * Blocks for the first commit, then keeps collecting until the batch is
+	 * 	full or the durability window of the first commit has elapsed.
+	 * @return false once the pipeline has been closed.
+	 **/
+	private boolean collect(List<PendingWrite> batch) throws InterruptedException {
+
+		PendingWrite first = queue.take();
+		if (first == CLOSE)
+			return false;
+		batch.add(first);
+
+		long deadline = System.nanoTime() + maxDelayNanos;
+		while (batch.size() < maxBatchSize) {
+
+			PendingWrite next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			if (next == null)
+				break;
+			if (next == CLOSE)
+				return false;
+			batch.add(next);
+
+		}
+		return true;
+
+	}
+
+	/**
+	 * Adds the commits enqueued within given delay to a batch waiting to be retried.
+	 * @return false once the pipeline has been closed.
+	 **/
+	private boolean collectFor(List<PendingWrite> batch, long delayNanos) throws InterruptedException {
+
+		long deadline = System.nanoTime() + delayNanos;
+		while (true) {
+
+			PendingWrite next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			if (next == null)
+				break;
+			if (next == CLOSE)
+				return false;
+			batch.add(next);
+
+		}
+		return true;
+
+	}
+
+	/**
+	 * Persists a batch, later commits of the same id replacing earlier ones.
+	 * @param retry true to keep the batch pending if it fails, false to give it up.
+	 * @return false if the batch failed and is kept for a retry.
+	 **/
+	private boolean persist(List<PendingWrite> batch, boolean retry) {
+
+		Map<String, byte[]> records = new LinkedHashMap<>();
+		for (PendingWrite write: batch)
+			records.put(write.id, write.record);
+
+		Throwable failure = null;
+		try {
+			storage.writeAll(records);
+			storage.sync();
+		} catch (IOException | RuntimeException e) {
+			failures.increment();
+			failure = e;
+		}
+
+		if (failure != null && retry) {
+			Logger.error("Write-behind failed to persist a batch of " + records.size() + " record(s), retrying: " + failure);
+			return false;
+		}
+		if (failure != null)
+			Logger.error("Write-behind gave up a batch of " + records.size() + " record(s) on close: " + failure);
+
+		for (PendingWrite write: batch) {
+			pending.remove(write.id, write);
+			if (failure == null)
+				write.durable.complete(null);
+			else
+				write.durable.completeExceptionally(failure);
+		}
+		return true;
+
+	}
+
+	static final class PendingWrite {
+
+		private final String id;
+		private final byte[] record;
+		private final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+		private PendingWrite(String id, byte[] record) {
+			this.id = id;
+			this.record = record;
+		}
+
+		/**
+		 * @return the serialized body, or <code>null</code> if the element is being deleted.
+		 **/
+		byte[] getRecord() {
+			return record;
+		}
+
+		CompletableFuture<Void> getDurable() {
+			return durable;
+		}
+
+	}
+
+}
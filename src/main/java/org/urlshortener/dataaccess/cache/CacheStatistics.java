@@ -0,0 +1,75 @@
+package org.urlshortener.dataaccess.cache;
+
+/**
+ * Point in time snapshot of the counters of an {@link ElementCache}.
+ *
+ * @since 1.1
+ **/
+public class CacheStatistics {
+
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+	private final long rejections;
+	private final int size;
+	private final long weight;
+
+	public CacheStatistics(long hits, long misses, long evictions, long rejections, int size, long weight) {
+
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.rejections = rejections;
+		this.size = size;
+		this.weight = weight;
+
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the ratio of hits to all lookups, 0 if there was no lookup yet.
+	 **/
+	public double getHitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/**
+	 * @return the number of cached elements removed to make room for others.
+	 **/
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return the number of elements refused by the admission policy.
+	 **/
+	public long getRejections() {
+		return rejections;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the total weight of the cached elements, in the unit of the cache capacity.
+	 **/
+	public long getWeight() {
+		return weight;
+	}
+
+	@Override
+	public String toString() {
+		return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+				+ ", rejections=" + rejections + ", size=" + size + ", weight=" + weight;
+	}
+
+}
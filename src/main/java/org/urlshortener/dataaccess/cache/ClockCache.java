@@ -0,0 +1,145 @@
+package org.urlshortener.dataaccess.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * <p>{@link ElementCache} approximating LRU with the CLOCK (second chance) algorithm.</p>
+ * <p>A hit only sets the referenced flag of the entry, so reads never take a lock. Once the cache grows
+ * 	beyond its capacity the writer sweeps a clock hand over the entries, clearing referenced flags and evicting
+ * 	the first unreferenced entries it finds, unless they are pinned. Only one thread sweeps at a time, others
+ * 	skip eviction.</p>
+ *
+ * @param <V> the type of cached elements
+ * @since 1.1
+ **/
+public class ClockCache<V> implements ElementCache<V> {
+
+	private final int capacity;
+	private final Map<String, Entry<V>> entries;
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private Iterator<Map.Entry<String, Entry<V>>> hand;
+	private volatile Predicate<String> pinned = key -> false;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public ClockCache(int capacity) {
+
+		this.capacity = Math.max(1, capacity);
+		this.entries = new ConcurrentHashMap<>(Math.min(this.capacity, 1 << 16));
+
+	}
+
+	@Override
+	public V get(String key) {
+
+		Entry<V> entry = entries.get(key);
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+
+		hits.increment();
+		//Avoid writing the shared flag when it is already set.
+		if (!entry.referenced)
+			entry.referenced = true;
+		return entry.value;
+
+	}
+
+	@Override
+	public V peek(String key) {
+
+		Entry<V> entry = entries.get(key);
+		return entry == null ? null : entry.value;
+
+	}
+
+	@Override
+	public void put(String key, V value) {
+
+		entries.put(key, new Entry<>(value));
+		if (entries.size() > capacity)
+			evict();
+
+	}
+
+	@Override
+	public V remove(String key) {
+
+		Entry<V> entry = entries.remove(key);
+		return entry == null ? null : entry.value;
+
+	}
+
+	@Override
+	public int size() {
+		return entries.size();
+	}
+
+	@Override
+	public void clear() {
+		entries.clear();
+	}
+
+	@Override
+	public void setPinned(Predicate<String> pinned) {
+		this.pinned = pinned;
+	}
+
+	@Override
+	public CacheStatistics getStatistics() {
+		return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), 0, entries.size(), entries.size());
+	}
+
+	private void evict() {
+
+		if (!evictionLock.tryLock())
+			return;
+
+		try {
+			/*
+			 * Every entry gets at most one second chance per sweep, hence two rounds
+			 * 	over the entries are always enough to get back within capacity.
+			 */
+			int budget = 2 * entries.size();
+			while (entries.size() > capacity && budget-- > 0) {
+
+				if (hand == null || !hand.hasNext())
+					hand = entries.entrySet().iterator();
+				if (!hand.hasNext())
+					return;
+
+				Map.Entry<String, Entry<V>> candidate = hand.next();
+				Entry<V> entry = candidate.getValue();
+				if (entry.referenced)
+					entry.referenced = false;
+				else if (!pinned.test(candidate.getKey()) && entries.remove(candidate.getKey(), entry))
+					evictions.increment();
+
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+
+	}
+
+	private static final class Entry<V> {
+
+		private final V value;
+		private volatile boolean referenced;
+
+		private Entry(V value) {
+			this.value = value;
+		}
+
+	}
+
+}
@@ -0,0 +1,46 @@
+package org.urlshortener.dataaccess.cache;
+
+import java.util.function.Predicate;
+
+import org.urlshortener.dataaccess.BaseRepository;
+
+/**
+ * Bounded in-memory cache of the elements of a {@link BaseRepository}. Implementations must be
+ * 	safe for concurrent use and must not block readers.
+ *
+ * @param <V> the type of cached elements
+ * @since 1.1
+ **/
+public interface ElementCache<V> {
+
+	/**
+	 * @return the element cached against given key, or <code>null</code>.
+	 **/
+	V get(String key);
+
+	/**
+	 * Same as {@link #get(String)} but neither counted in the statistics nor as an access of the element.
+	 **/
+	V peek(String key);
+
+	void put(String key, V value);
+
+	/**
+	 * @return the element which was cached against given key, or <code>null</code>.
+	 **/
+	V remove(String key);
+
+	int size();
+
+	void clear();
+
+	/**
+	 * Keeps the elements whose key matches given predicate from being evicted for as long as it matches,
+	 * 	e.g. the most requested ones. The predicate is tested on eviction only, it must be cheap and thread-safe.
+	 * 	The cache may exceed its capacity by the number of pinned elements.
+	 **/
+	void setPinned(Predicate<String> pinned);
+
+	CacheStatistics getStatistics();
+
+}
@@ -0,0 +1,114 @@
+package org.urlshortener.dataaccess.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Count-Min sketch of 4-bit counters estimating how often keys were accessed recently.</p>
+ * <p>Each key maps to one counter in each of four rows, the estimate is the smallest of them. Every
+ * 	64-bit slot holds 16 counters which are updated with compare-and-set, so recording an access never
+ * 	blocks. Once the number of recorded accesses reaches ten times the width all counters are halved,
+ * 	letting the sketch forget keys which are no longer popular.</p>
+ *
+ * @since 1.1
+ **/
+class FrequencySketch {
+
+	private static final int DEPTH = 4;
+	private static final int MAX_COUNT = 15;
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final int[] SEEDS = { 0x97cb3127, 0xb0f2e8a5, 0x4a9e31c3, 0xdd1a52e7 };
+
+	private final AtomicLongArray table;
+	private final int mask;
+	private final int sampleSize;
+	private final LongAdder additions = new LongAdder();
+
+	/**
+	 * @param expectedKeys the number of distinct keys the sketch should tell apart.
+	 **/
+	FrequencySketch(int expectedKeys) {
+
+		int width = Integer.highestOneBit(Math.max(16, Math.min(expectedKeys, 1 << 24)) - 1) << 1;
+		this.table = new AtomicLongArray(width);
+		this.mask = width - 1;
+		this.sampleSize = 10 * width;
+
+	}
+
+	/**
+	 * @return the estimated number of recent accesses of the key with given hash, at most 15.
+	 **/
+	int frequency(int hash) {
+
+		int frequency = MAX_COUNT;
+		for (int row = 0; row < DEPTH; row++) {
+			int h = rehash(hash, row);
+			frequency = Math.min(frequency, (int) ((table.get(h & mask) >>> shift(h)) & MAX_COUNT));
+		}
+		return frequency;
+
+	}
+
+	/**
+	 * Records an access of the key with given hash.
+	 **/
+	void increment(int hash) {
+
+		boolean added = false;
+		for (int row = 0; row < DEPTH; row++) {
+			int h = rehash(hash, row);
+			added |= incrementAt(h & mask, shift(h));
+		}
+
+		if (added) {
+			additions.increment();
+			if (additions.sum() >= sampleSize)
+				reset();
+		}
+
+	}
+
+	private boolean incrementAt(int index, int shift) {
+
+		while (true) {
+			long slot = table.get(index);
+			if (((slot >>> shift) & MAX_COUNT) == MAX_COUNT)
+				return false;
+			if (table.compareAndSet(index, slot, slot + (1L << shift)))
+				return true;
+		}
+
+	}
+
+	private synchronized void reset() {
+
+		//Another thread may have aged the counters already.
+		if (additions.sum() < sampleSize)
+			return;
+		for (int i = 0; i < table.length(); i++) {
+			long slot;
+			do {
+				slot = table.get(i);
+			} while (!table.compareAndSet(i, slot, (slot >>> 1) & RESET_MASK));
+		}
+		long sum = additions.sum();
+		additions.add(-(sum - sum / 2));
+
+	}
+
+	private static int rehash(int hash, int row) {
+
+		int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+		return h ^ (h >>> 16);
+
+	}
+
+	/**
+	 * @return the offset of the counter within its slot, selected by the high bits not used for the index.
+	 **/
+	private static int shift(int h) {
+		return ((h >>> 28) & 15) << 2;
+	}
+
+}
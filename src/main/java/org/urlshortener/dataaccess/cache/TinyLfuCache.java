@@ -0,0 +1,287 @@
+package org.urlshortener.dataaccess.cache;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * <p>{@link ElementCache} bounded by a total weight, with a W-TinyLFU admission policy.</p>
+ * <p>New elements always enter a small admission window of {@value #WINDOW_PERCENT}% of the maximum weight,
+ * 	so that an element just created, e.g. a newly registered short URL, gets the chance to be requested
+ * 	before competing for a place. Every lookup is recorded in a {@link FrequencySketch}. Once the window
+ * 	overflows its oldest element leaves it, and if the cache is full a victim is chosen among the other
+ * 	elements with the CLOCK algorithm like in {@link ClockCache}. The element from the window is only kept
+ * 	if it was requested more often recently than the victim. Elements seen once, e.g. by a scan over random
+ * 	ids, therefore never displace the hot ones. Pinned elements are always kept and never chosen as victims.</p>
+ * <p>The weight of an element is given by a weigher, e.g. 1 to bound the number of elements or the
+ * 	length of the serialized body to bound the memory held by the cache.</p>
+ *
+ * @param <V> the type of cached elements
+ * @since 1.1
+ **/
+public class TinyLfuCache<V> implements ElementCache<V> {
+
+	private static final int WINDOW_PERCENT = 1;
+
+	private final long maximumWeight;
+	private final long maximumWindowWeight;
+	private final ToIntFunction<? super V> weigher;
+	private final FrequencySketch sketch;
+
+	private final Map<String, Entry<V>> entries;
+	private final AtomicLong weight = new AtomicLong();
+	/* The elements in the admission window, oldest first. Replaced or removed elements are skipped. */
+	private final Queue<Map.Entry<String, Entry<V>>> window = new ConcurrentLinkedQueue<>();
+	private final AtomicLong windowWeight = new AtomicLong();
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private Iterator<Map.Entry<String, Entry<V>>> hand;
+	private volatile Predicate<String> pinned = key -> false;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder rejections = new LongAdder();
+
+	/**
+	 * @param maximumWeight the largest total weight of the cached elements.
+	 * @param expectedSize the number of elements expected to fit, used to size the frequency sketch.
+	 * @param weigher computes the weight of an element, must not be negative.
+	 **/
+	public TinyLfuCache(long maximumWeight, int expectedSize, ToIntFunction<? super V> weigher) {
+
+		this.maximumWeight = Math.max(1, maximumWeight);
+		this.maximumWindowWeight = Math.max(1, this.maximumWeight * WINDOW_PERCENT / 100);
+		this.weigher = weigher;
+		this.sketch = new FrequencySketch(expectedSize);
+		this.entries = new ConcurrentHashMap<>(Math.min(Math.max(16, expectedSize), 1 << 16));
+
+	}
+
+	/**
+	 * Creates a cache bounded by the number of elements.
+	 **/
+	public TinyLfuCache(int maximumSize) {
+		this(maximumSize, maximumSize, element -> 1);
+	}
+
+	@Override
+	public V get(String key) {
+
+		sketch.increment(key.hashCode());
+		Entry<V> entry = entries.get(key);
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+
+		hits.increment();
+		//Avoid writing the shared flag when it is already set.
+		if (!entry.referenced)
+			entry.referenced = true;
+		return entry.value;
+
+	}
+
+	@Override
+	public V peek(String key) {
+
+		Entry<V> entry = entries.get(key);
+		return entry == null ? null : entry.value;
+
+	}
+
+	@Override
+	public void put(String key, V value) {
+
+		int entryWeight = weigher.applyAsInt(value);
+		if (entryWeight > maximumWeight) {
+			//Would evict everything else, rather not cache it at all.
+			remove(key);
+			rejections.increment();
+			return;
+		}
+
+		//Marked before it becomes visible, so that it is never chosen as a victim before it left the window.
+		Entry<V> entry = new Entry<>(value, entryWeight);
+		entry.inWindow.set(true);
+		Entry<V> previous = entries.put(key, entry);
+		weight.addAndGet(previous == null ? entryWeight : entryWeight - previous.weight);
+
+		//Replacing an element already admitted is not subject to admission again.
+		if (previous != null && !leaveWindow(previous)) {
+			entry.inWindow.set(false);
+			entry.referenced = true;
+		} else {
+			windowWeight.addAndGet(entryWeight);
+			window.add(new AbstractMap.SimpleImmutableEntry<>(key, entry));
+		}
+		if (weight.get() > maximumWeight || windowWeight.get() > maximumWindowWeight)
+			evict();
+
+	}
+
+	@Override
+	public V remove(String key) {
+
+		Entry<V> entry = entries.remove(key);
+		if (entry == null)
+			return null;
+		weight.addAndGet(-entry.weight);
+		leaveWindow(entry);
+		return entry.value;
+
+	}
+
+	@Override
+	public int size() {
+		return entries.size();
+	}
+
+	@Override
+	public void clear() {
+
+		for (String key: entries.keySet())
+			remove(key);
+
+	}
+
+	@Override
+	public void setPinned(Predicate<String> pinned) {
+		this.pinned = pinned;
+	}
+
+	@Override
+	public CacheStatistics getStatistics() {
+		return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), rejections.sum(), entries.size(), weight.get());
+	}
+
+	/**
+	 * @return true if the element was in the admission window and is no longer accounted to it.
+	 **/
+	private boolean leaveWindow(Entry<V> entry) {
+
+		if (!entry.inWindow.compareAndSet(true, false))
+			return false;
+		windowWeight.addAndGet(-entry.weight);
+		return true;
+
+	}
+
+	/**
+	 * Moves the oldest elements out of the overflowing admission window, each one competing with a victim
+	 * 	while the cache is full, then evicts until the cache is back within its maximum weight.
+	 **/
+	private void evict() {
+
+		evictionLock.lock();
+		try {
+
+			while (windowWeight.get() > maximumWindowWeight) {
+
+				Map.Entry<String, Entry<V>> candidate = window.poll();
+				if (candidate == null)
+					break;
+				if (!leaveWindow(candidate.getValue()) || entries.get(candidate.getKey()) != candidate.getValue())
+					continue;
+				if (weight.get() > maximumWeight)
+					admit(candidate);
+
+			}
+
+			int budget = 2 * entries.size() + 1;
+			while (weight.get() > maximumWeight && budget-- > 0) {
+
+				Map.Entry<String, Entry<V>> victim = nextVictim(null);
+				if (victim == null)
+					return;
+				if (entries.remove(victim.getKey(), victim.getValue())) {
+					weight.addAndGet(-victim.getValue().weight);
+					evictions.increment();
+				}
+
+			}
+
+		} finally {
+			evictionLock.unlock();
+		}
+
+	}
+
+	/**
+	 * Lets an element leaving the admission window compete with a victim, the less popular one is dropped.
+	 **/
+	private void admit(Map.Entry<String, Entry<V>> candidate) {
+
+		String candidateKey = candidate.getKey();
+		Map.Entry<String, Entry<V>> victim = nextVictim(candidateKey);
+		if (victim == null)
+			return;
+
+		boolean admit = pinned.test(candidateKey)
+				|| sketch.frequency(candidateKey.hashCode()) > sketch.frequency(victim.getKey().hashCode());
+		if (!admit) {
+			if (entries.remove(candidateKey, candidate.getValue())) {
+				weight.addAndGet(-candidate.getValue().weight);
+				rejections.increment();
+			}
+		} else if (entries.remove(victim.getKey(), victim.getValue())) {
+			weight.addAndGet(-victim.getValue().weight);
+			evictions.increment();
+		}
+
+	}
+
+	/**
+	 * Advances the clock hand to the next entry without a second chance left, skipping the candidate
+	 * 	and the elements in the admission window.
+	 * @return the victim or <code>null</code> if there is no such entry.
+	 **/
+	private Map.Entry<String, Entry<V>> nextVictim(String candidateKey) {
+
+		int budget = 2 * entries.size() + 1;
+		while (budget-- > 0) {
+
+			if (hand == null || !hand.hasNext())
+				hand = entries.entrySet().iterator();
+			if (!hand.hasNext())
+				return null;
+
+			Map.Entry<String, Entry<V>> next = hand.next();
+			Entry<V> entry = next.getValue();
+			if (next.getKey().equals(candidateKey) || entry.inWindow.get())
+				continue;
+			if (entry.referenced)
+				entry.referenced = false;
+			else if (!pinned.test(next.getKey()))
+				return next;
+
+		}
+		return null;
+
+	}
+
+	private static final class Entry<V> {
+
+		private final V value;
+		private final int weight;
+		private volatile boolean referenced;
+		private final AtomicBoolean inWindow = new AtomicBoolean();
+
+		private Entry(V value, int weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+package org.urlshortener.dataaccess.codec;
+
+import java.util.Collection;
+
+import org.urlshortener.model.Account;
+
+/**
+ * Binary codec of {@link Account}.
+ * <p>Version 2: <code>[string id][string passwordHash][int count]</code> followed by <code>count</code>
+ * 	short URL ids as strings.</p>
+ * <p>Version 1 stored the password itself in place of its hash, such records are still decoded.</p>
+ *
+ * @since 1.1
+ **/
+public class AccountCodec extends BinaryRecordCodec<Account> {
+
+	private static final int TYPE = 2;
+	private static final int VERSION = 2;
+	private static final int PLAIN_PASSWORD_VERSION = 1;
+
+	public AccountCodec() {
+		super(TYPE, VERSION);
+	}
+
+	@Override
+	protected void write(Account account, Writer writer) {
+
+		writer.writeString(account.getId());
+		writer.writeString(account.getPasswordHash());
+		Collection<String> redirects = account.getRedirects();
+		writer.writeInt(redirects.size());
+		for (String shortUrlId: redirects)
+			writer.writeString(shortUrlId);
+
+	}
+
+	@Override
+	protected Account read(int version, Reader reader) {
+
+		Account account = new Account();
+		account.setId(reader.readString());
+		if (version == VERSION)
+			account.setPasswordHash(reader.readString());
+		else if (version == PLAIN_PASSWORD_VERSION)
+			account.setPassword(reader.readString());
+		else
+			throw new RecordFormatException("Unknown version " + version + " of an account record");
+		for (int count = reader.readInt(); count > 0; count--)
+			account.registerUrl(reader.readString());
+		return account;
+
+	}
+
+}
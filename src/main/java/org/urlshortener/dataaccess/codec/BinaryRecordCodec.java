@@ -0,0 +1,212 @@
+package org.urlshortener.dataaccess.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <p>Base of the hand-written binary {@link RecordCodec}s.</p>
+ * <p>Every record starts with <code>[byte magic][byte type][byte version]</code>. The magic byte can
+ * 	never start a JSON document, so {@link #isBinary(byte[])} tells both formats apart and records written
+ * 	before the binary format was enabled stay readable. Integers are written as unsigned variable length
+ * 	quantities, strings as their UTF-8 length plus one followed by the bytes, a length of 0 encoding
+ * 	<code>null</code>. A new version of a type must keep decoding all of its previous versions.</p>
+ *
+ * @param <T> the type of elements
+ * @since 1.1
+ **/
+public abstract class BinaryRecordCodec<T> implements RecordCodec<T> {
+
+	private static final byte MAGIC = (byte) 0xB7;
+	private static final int HEADER_SIZE = 3;
+
+	private final byte type;
+	private final byte version;
+
+	/**
+	 * @param type identifies the element type in every record, must be unique among codecs.
+	 * @param version the version records are encoded with.
+	 **/
+	protected BinaryRecordCodec(int type, int version) {
+		this.type = (byte) type;
+		this.version = (byte) version;
+	}
+
+	/**
+	 * @return true if the record has been encoded by a binary codec.
+	 **/
+	public static boolean isBinary(byte[] record) {
+		return record.length >= HEADER_SIZE && record[0] == MAGIC;
+	}
+
+	@Override
+	public byte[] encode(T element) {
+
+		Writer writer = new Writer();
+		writer.buffer[0] = MAGIC;
+		writer.buffer[1] = type;
+		writer.buffer[2] = version;
+		writer.length = HEADER_SIZE;
+		write(element, writer);
+		return Arrays.copyOf(writer.buffer, writer.length);
+
+	}
+
+	/**
+	 * @return the length of the record of the element, counted without encoding it.
+	 **/
+	public int getRecordLength(T element) {
+
+		Writer counter = new Writer(null);
+		counter.length = HEADER_SIZE;
+		write(element, counter);
+		return counter.length;
+
+	}
+
+	@Override
+	public T decode(byte[] record) {
+
+		if (!isBinary(record) || record[1] != type)
+			throw new RecordFormatException("Not a binary record of type " + type);
+
+		try {
+			return read(record[2], new Reader(ByteBuffer.wrap(record, HEADER_SIZE, record.length - HEADER_SIZE)));
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new RecordFormatException("Truncated or corrupted binary record of type " + type, e);
+		}
+
+	}
+
+	protected abstract void write(T element, Writer writer);
+
+	/**
+	 * @param version the version the record has been encoded with.
+	 * @throws RecordFormatException if the version is unknown.
+	 **/
+	protected abstract T read(int version, Reader reader);
+
+	/**
+	 * Growable output buffer of a record, or a mere counter of its length without any buffer.
+	 **/
+	protected static final class Writer {
+
+		private byte[] buffer;
+		private int length;
+
+		private Writer() {
+			this(new byte[128]);
+		}
+
+		private Writer(byte[] buffer) {
+			this.buffer = buffer;
+		}
+
+		public void writeInt(int value) {
+
+			if (buffer == null) {
+				do {
+					length++;
+					value >>>= 7;
+				} while (value != 0);
+				return;
+			}
+
+			ensureCapacity(5);
+			while ((value & ~0x7F) != 0) {
+				buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			buffer[length++] = (byte) value;
+
+		}
+
+		public void writeString(String value) {
+
+			if (value == null) {
+				writeInt(0);
+				return;
+			}
+			if (buffer == null) {
+				int utf8Length = utf8Length(value);
+				writeInt(utf8Length + 1);
+				length += utf8Length;
+				return;
+			}
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeInt(bytes.length + 1);
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, buffer, length, bytes.length);
+			length += bytes.length;
+
+		}
+
+		private static int utf8Length(String value) {
+
+			int utf8Length = 0;
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c < 0x80)
+					utf8Length++;
+				else if (c < 0x800)
+					utf8Length += 2;
+				else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+					utf8Length += 4;
+					i++;
+				} else
+					utf8Length += 3;
+			}
+			return utf8Length;
+
+		}
+
+		private void ensureCapacity(int additional) {
+
+			if (length + additional > buffer.length)
+				buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additional));
+
+		}
+
+	}
+
+	/**
+	 * Input view of the body of a record.
+	 **/
+	protected static final class Reader {
+
+		private final ByteBuffer buffer;
+
+		private Reader(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		public int readInt() {
+
+			int value = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				byte b = buffer.get();
+				value |= (b & 0x7F) << shift;
+				if (b >= 0)
+					return value;
+			}
+			throw new IllegalArgumentException("Malformed variable length integer");
+
+		}
+
+		public String readString() {
+
+			int length = readInt() - 1;
+			if (length < 0)
+				return null;
+			if (length > buffer.remaining())
+				throw new BufferUnderflowException();
+			String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+			return value;
+
+		}
+
+	}
+
+}
@@ -0,0 +1,51 @@
+package org.urlshortener.dataaccess.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.urlshortener.model.BaseModel;
+import org.urlshortener.model.ModelSerializer;
+
+/**
+ * {@link RecordCodec} storing elements as the JSON documents rendered by the shared {@link ModelSerializer},
+ * 	the same as their <code>toString()</code>, see {@link BaseModel}.
+ *
+ * @param <T> the type of elements
+ * @since 1.1
+ **/
+public class JsonRecordCodec<T> implements RecordCodec<T> {
+
+	private final Class<T> type;
+
+	public JsonRecordCodec(Class<T> type) {
+		this.type = type;
+	}
+
+	@Override
+	public byte[] encode(T element) {
+
+		try {
+			return ModelSerializer.toJsonBytes(element);
+		} catch (IOException e) {
+			throw new RecordFormatException("Unable to render JSON record of type " + type.getSimpleName(), e);
+		}
+
+	}
+
+	@Override
+	public void encode(T element, OutputStream out) throws IOException {
+		ModelSerializer.writeJson(element, out);
+	}
+
+	@Override
+	public T decode(byte[] record) {
+
+		try {
+			return ModelSerializer.fromJson(record, type);
+		} catch (IOException e) {
+			throw new RecordFormatException("Invalid JSON record of type " + type.getSimpleName(), e);
+		}
+
+	}
+
+}
@@ -0,0 +1,31 @@
+package org.urlshortener.dataaccess.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.urlshortener.dataaccess.BaseRepository;
+import org.urlshortener.dataaccess.storage.RecordStorage;
+
+/**
+ * Converts the elements of a {@link BaseRepository} to and from the records kept by its {@link RecordStorage}.
+ *
+ * @param <T> the type of elements
+ * @since 1.1
+ **/
+public interface RecordCodec<T> {
+
+	byte[] encode(T element);
+
+	/**
+	 * Writes the record of the element to the stream, without closing it.
+	 **/
+	default void encode(T element, OutputStream out) throws IOException {
+		out.write(encode(element));
+	}
+
+	/**
+	 * @throws RecordFormatException if the record cannot be decoded by this codec.
+	 **/
+	T decode(byte[] record);
+
+}
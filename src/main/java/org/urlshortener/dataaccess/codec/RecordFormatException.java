@@ -0,0 +1,20 @@
+package org.urlshortener.dataaccess.codec;
+
+/**
+ * Raised by a {@link RecordCodec} on a record it cannot decode.
+ *
+ * @since 1.1
+ **/
+public class RecordFormatException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public RecordFormatException(String message) {
+		super(message);
+	}
+
+	public RecordFormatException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
@@ -0,0 +1,48 @@
+package org.urlshortener.dataaccess.codec;
+
+import org.urlshortener.model.RegisteredUrl;
+
+/**
+ * Binary codec of {@link RegisteredUrl}.
+ * <p>Version 2: <code>[int redirectType][string id][string url][int cacheable]</code>.</p>
+ * <p>Version 1 had no <code>cacheable</code> flag, such records are decoded as cacheable.</p>
+ *
+ * @since 1.1
+ **/
+public class RegisteredUrlCodec extends BinaryRecordCodec<RegisteredUrl> {
+
+	private static final int TYPE = 1;
+	private static final int VERSION = 2;
+	private static final int UNCACHED_VERSION = 1;
+
+	public RegisteredUrlCodec() {
+		super(TYPE, VERSION);
+	}
+
+	@Override
+	protected void write(RegisteredUrl url, Writer writer) {
+
+		writer.writeInt(url.getRedirectType());
+		writer.writeString(url.getId());
+		writer.writeString(url.getUrl());
+		writer.writeInt(url.isCacheable() ? 1 : 0);
+
+	}
+
+	@Override
+	protected RegisteredUrl read(int version, Reader reader) {
+
+		if (version != VERSION && version != UNCACHED_VERSION)
+			throw new RecordFormatException("Unknown version " + version + " of a registered url record");
+
+		RegisteredUrl url = new RegisteredUrl();
+		url.setRedirectType(reader.readInt());
+		url.setId(reader.readString());
+		url.setUrl(reader.readString());
+		if (version == VERSION)
+			url.setCacheable(reader.readInt() != 0);
+		return url;
+
+	}
+
+}
@@ -0,0 +1,66 @@
+package org.urlshortener.dataaccess.id;
+
+import org.urlshortener.Base62;
+
+/**
+ * <p>Keyed permutation of the short id space <code>[0, 62^8)</code>, so that consecutive sequence
+ * 	numbers map to ids which look unrelated.</p>
+ * <p>A balanced Feistel network permutes 48 bit values, values beyond the short id space are
+ * 	permuted again until they fall into it (cycle walking), which keeps the mapping a bijection of the
+ * 	short id space. As the space covers more than three quarters of the 48 bit values, less than
+ * 	two rounds of the network are needed on average.</p>
+ *
+ * @since 1.1
+ **/
+final class FeistelPermutation {
+
+	private static final int HALF_BITS = 24;
+	private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+	private static final int ROUNDS = 4;
+
+	private final long[] roundKeys = new long[ROUNDS];
+
+	FeistelPermutation(long key) {
+
+		for (int i = 0; i < ROUNDS; i++)
+			roundKeys[i] = mix(key + i * 0x9e3779b97f4a7c15L);
+
+	}
+
+	long apply(long value) {
+
+		do {
+			value = permute(value);
+		} while (value >= Base62.SHORT_ID_SPACE);
+		return value;
+
+	}
+
+	private long permute(long value) {
+
+		long left = (value >>> HALF_BITS) & HALF_MASK;
+		long right = value & HALF_MASK;
+		for (long roundKey: roundKeys) {
+			long next = left ^ (mix(right ^ roundKey) & HALF_MASK);
+			left = right;
+			right = next;
+		}
+		return (left << HALF_BITS) | right;
+
+	}
+
+	/**
+	 * MurmurHash3 64-bit finalizer.
+	 **/
+	private static long mix(long h) {
+
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+
+	}
+
+}
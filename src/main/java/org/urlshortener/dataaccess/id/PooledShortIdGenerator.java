@@ -0,0 +1,142 @@
+package org.urlshortener.dataaccess.id;
+
+import java.io.Closeable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.urlshortener.Logger;
+
+/**
+ * <p>{@link ShortIdGenerator} handing out ids generated ahead of time by another generator, so that
+ * 	the uniqueness check of the other generator never runs on the request thread.</p>
+ * <p>A daemon thread fills the pool up to its capacity whenever it has been drained below half of it.
+ * 	Ids are taken from the pool without any lock. If the pool runs empty the id is generated on the
+ * 	caller's thread instead, which is counted as a fallback.</p>
+ * <p>Ids still pooled at shutdown are never used, generators must not rely on every generated id being used.</p>
+ *
+ * @since 1.1
+ **/
+public class PooledShortIdGenerator implements ShortIdGenerator, Closeable {
+
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long ERROR_BACKOFF_MILLIS = 1000;
+
+	private final ShortIdGenerator delegate;
+	private final int capacity;
+	private final int lowWatermark;
+
+	private final ConcurrentLinkedQueue<String> pool = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger depth = new AtomicInteger();
+	private final LongAdder refilled = new LongAdder();
+	private final LongAdder fallbacks = new LongAdder();
+	private volatile double refillRate;
+
+	private final Thread refiller;
+	private volatile boolean closed;
+
+	/**
+	 * @param name identifies the pool in the name of its thread.
+	 * @param capacity the number of ids generated ahead of time.
+	 **/
+	public PooledShortIdGenerator(String name, ShortIdGenerator delegate, int capacity) {
+
+		this.delegate = delegate;
+		this.capacity = Math.max(1, capacity);
+		this.lowWatermark = this.capacity / 2;
+
+		this.refiller = new Thread(this::refill, "short-id-pool-" + name);
+		refiller.setDaemon(true);
+		refiller.start();
+
+	}
+
+	@Override
+	public String nextId() {
+
+		String id = pool.poll();
+		if (id == null) {
+			fallbacks.increment();
+			LockSupport.unpark(refiller);
+			return delegate.nextId();
+		}
+
+		if (depth.decrementAndGet() == lowWatermark)
+			LockSupport.unpark(refiller);
+		return id;
+
+	}
+
+	/**
+	 * @return the number of ids currently pooled.
+	 **/
+	public int getDepth() {
+		return depth.get();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return the number of ids generated by the pool thread so far.
+	 **/
+	public long getRefillCount() {
+		return refilled.sum();
+	}
+
+	/**
+	 * @return the ids generated per second during the latest refill.
+	 **/
+	public double getRefillRate() {
+		return refillRate;
+	}
+
+	/**
+	 * @return the number of ids generated on the caller's thread as the pool was empty.
+	 **/
+	public long getFallbackCount() {
+		return fallbacks.sum();
+	}
+
+	@Override
+	public void close() {
+
+		closed = true;
+		LockSupport.unpark(refiller);
+
+	}
+
+	private void refill() {
+
+		while (!closed) {
+
+			if (depth.get() > lowWatermark) {
+				//Woken up by a drain to the low watermark, the timeout only guards against a missed wake-up.
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+				continue;
+			}
+
+			long start = System.nanoTime();
+			int generated = 0;
+			try {
+				while (!closed && depth.get() < capacity) {
+					pool.offer(delegate.nextId());
+					depth.incrementAndGet();
+					generated++;
+				}
+			} catch (RuntimeException e) {
+				Logger.error("Failed to refill the short id pool: " + e.getMessage());
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(ERROR_BACKOFF_MILLIS));
+			}
+			refilled.add(generated);
+			if (generated > 0)
+				refillRate = generated * 1e9 / Math.max(1, System.nanoTime() - start);
+
+		}
+
+	}
+
+}
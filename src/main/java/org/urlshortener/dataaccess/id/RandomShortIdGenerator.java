@@ -0,0 +1,52 @@
+package org.urlshortener.dataaccess.id;
+
+import java.util.function.Predicate;
+
+import org.apache.commons.text.CharacterPredicates;
+import org.apache.commons.text.RandomStringGenerator;
+import org.urlshortener.ApplicationError;
+import org.urlshortener.Base62;
+
+/**
+ * <p>{@link ShortIdGenerator} drawing random ids and checking each one against the registered ids.</p>
+ * <p>The check gets more likely to fail as the id space fills up, the generation gives up after
+ * 	{@value #MAX_RETRY_COUNT} retries.</p>
+ *
+ * @since 1.1
+ **/
+public class RandomShortIdGenerator implements ShortIdGenerator {
+
+	private static final short MAX_RETRY_COUNT = 5;
+
+	private final Predicate<String> registered;
+
+	private final RandomStringGenerator randomStringGenerator = new RandomStringGenerator.Builder()
+			.withinRange('0', 'z')
+			.filteredBy(CharacterPredicates.LETTERS, CharacterPredicates.DIGITS)
+			.build();
+
+	/**
+	 * @param registered tells whether an id is, or may be, registered already.
+	 **/
+	public RandomShortIdGenerator(Predicate<String> registered) {
+		this.registered = registered;
+	}
+
+	@Override
+	public String nextId() {
+
+		short count = 0;
+		while (true) {
+
+			String id = randomStringGenerator.generate(Base62.SHORT_ID_LENGTH);
+			if (!registered.test(id))
+				return id;
+
+			if (count++ > MAX_RETRY_COUNT)
+				throw new ApplicationError("Could not generate unique key even after " + MAX_RETRY_COUNT + " retries");
+
+		}
+
+	}
+
+}
@@ -0,0 +1,169 @@
+package org.urlshortener.dataaccess.id;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import org.urlshortener.ApplicationError;
+import org.urlshortener.Base62;
+import org.urlshortener.Logger;
+
+/**
+ * <p>{@link ShortIdGenerator} handing out the numbers of a persisted sequence as short ids, so that
+ * 	no id has to be read back from the repository before it is used.</p>
+ * <p>Numbers are leased from the sequence file in blocks, only leasing the next block writes and syncs the
+ * 	file. Numbers within a block are handed out without any lock. After a restart the sequence resumes
+ * 	at the end of the last leased block, the unused rest of that block is skipped.</p>
+ * <p>Optionally the numbers are scrambled by a {@link FeistelPermutation} under a random key kept in the
+ * 	sequence file, so that ids are not guessable from each other.</p>
+ * <p>Only if ids were registered before the sequence file was created, e.g. by the random generator, can a
+ * 	number collide with a registered id: every id is then looked up and skipped if registered. Whether such
+ * 	ids exist is recorded in the sequence file, a repository only ever filled from the sequence is never read.</p>
+ * <p>File layout: <code>[long magic][int version][long leaseEnd][long permutationKey][boolean priorIds]</code></p>
+ *
+ * @since 1.1
+ **/
+public class SequentialShortIdGenerator implements ShortIdGenerator {
+
+	private static final long MAGIC = 0x55524c5353455131L;
+	private static final int VERSION = 2;
+	/* Sequence files of version 1 do not tell whether ids were registered before, they are assumed to be. */
+	private static final int PRIOR_IDS_VERSION = 2;
+
+	/* Bounds the consecutive skips, only reached if nearly every id is registered. */
+	private static final int MAX_SKIPS = 1000;
+
+	private final File file;
+	private final int blockSize;
+	private final Predicate<String> registered;
+	private final FeistelPermutation permutation;
+	private final long permutationKey;
+	private final boolean priorIds;
+
+	private final AtomicLong sequence;
+	private volatile long leaseEnd;
+	/* Not a monitor, a virtual thread syncing the file must not pin its carrier thread. */
+	private final ReentrantLock leaseLock = new ReentrantLock();
+
+	/**
+	 * @param file the sequence file, created if missing.
+	 * @param blockSize the number of ids leased at once.
+	 * @param permute whether the sequence numbers are permuted before being encoded.
+	 * @param registered tells whether an id is registered already, only asked if ids were registered before the sequence.
+	 * @param anyRegistered tells whether any id is registered already, only asked when the sequence file is created.
+	 **/
+	public SequentialShortIdGenerator(File file, int blockSize, boolean permute, Predicate<String> registered,
+			BooleanSupplier anyRegistered) throws IOException {
+
+		this.file = file;
+		this.blockSize = Math.max(1, blockSize);
+		this.registered = registered;
+
+		if (file.exists()) {
+			try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+				int version = in.readLong() == MAGIC ? in.readInt() : -1;
+				if (version < 1 || version > VERSION)
+					throw new IOException("Unknown format of short id sequence " + file);
+				this.leaseEnd = in.readLong();
+				this.permutationKey = in.readLong();
+				this.priorIds = version < PRIOR_IDS_VERSION || in.readBoolean();
+			}
+		} else {
+			this.leaseEnd = 0;
+			this.permutationKey = new SecureRandom().nextLong();
+			this.priorIds = anyRegistered.getAsBoolean();
+			persist(leaseEnd);
+		}
+
+		this.sequence = new AtomicLong(leaseEnd);
+		this.permutation = permute ? new FeistelPermutation(permutationKey) : null;
+		Logger.info("Short id sequence " + file + " resumes at " + leaseEnd
+				+ (priorIds ? ", skipping the ids registered before the sequence" : ""));
+
+	}
+
+	@Override
+	public String nextId() {
+
+		for (int skipped = 0; skipped < MAX_SKIPS; skipped++) {
+
+			long number = sequence.getAndIncrement();
+			if (number >= leaseEnd)
+				lease(number);
+
+			String id = Base62.unpack(permutation != null ? permutation.apply(number) : number);
+			if (!priorIds || !registered.test(id))
+				return id;
+
+		}
+		throw new ApplicationError("Could not generate unique key even after skipping " + MAX_SKIPS + " registered ids");
+
+	}
+
+	/**
+	 * @return the next sequence number to be handed out.
+	 **/
+	public long getSequence() {
+		return sequence.get();
+	}
+
+	/**
+	 * Extends the leased range until it covers given number. Callers holding a number
+	 * 	beyond the current lease wait here until the lease is persisted.
+	 **/
+	private void lease(long number) {
+
+		leaseLock.lock();
+		try {
+
+			while (number >= leaseEnd) {
+
+				long end = leaseEnd + blockSize;
+				if (end > Base62.SHORT_ID_SPACE)
+					throw new ApplicationError("Short id space exhausted by sequence " + file);
+				try {
+					persist(end);
+				} catch (IOException e) {
+					Logger.error("Unable to lease short ids from: " + file);
+					throw new ApplicationError("Unable to lease short ids from: " + file, e);
+				}
+				leaseEnd = end;
+
+			}
+
+		} finally {
+			leaseLock.unlock();
+		}
+
+	}
+
+	private void persist(long end) throws IOException {
+
+		File temporary = new File(file.getPath() + ".tmp");
+		try (FileOutputStream fos = new FileOutputStream(temporary);
+				DataOutputStream out = new DataOutputStream(fos)) {
+
+			out.writeLong(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(end);
+			out.writeLong(permutationKey);
+			out.writeBoolean(priorIds);
+			out.flush();
+			fos.getFD().sync();
+
+		}
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+	}
+
+}
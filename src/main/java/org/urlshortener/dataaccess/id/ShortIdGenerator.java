@@ -0,0 +1,16 @@
+package org.urlshortener.dataaccess.id;
+
+import org.urlshortener.Base62;
+
+/**
+ * Generates the short ids under which URLs get registered, as alphanumeric sequences of
+ * 	{@value Base62#SHORT_ID_LENGTH} characters. Implementations must be safe for concurrent use
+ * 	and never return the same id twice, nor an id already registered.
+ *
+ * @since 1.1
+ **/
+public interface ShortIdGenerator {
+
+	String nextId();
+
+}
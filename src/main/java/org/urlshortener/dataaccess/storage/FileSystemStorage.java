@@ -0,0 +1,200 @@
+package org.urlshortener.dataaccess.storage;
+
+import static org.urlshortener.ApplicationConstants.DOT;
+import static org.urlshortener.ApplicationConstants.JSON_FILE_SUFFIX;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.io.FileUtils;
+import org.urlshortener.ApplicationError;
+import org.urlshortener.Logger;
+
+/**
+ * <p>Stores every record as a separate file named after the record id under the repository directory.</p>
+ * <p>Files written before the record format of the repository changed carry a legacy suffix. They remain
+ * 	readable and are replaced by a file with the current suffix the next time the record is written.</p>
+ *
+ * @since 1.1
+ **/
+public class FileSystemStorage implements RecordStorage {
+
+	private final File repo;
+	private final String suffix;
+	private final String legacySuffix;
+
+	public FileSystemStorage(File repo) {
+		this(repo, JSON_FILE_SUFFIX, null);
+	}
+
+	/**
+	 * @param suffix the suffix of the files written.
+	 * @param legacySuffix the suffix of files still read but no longer written, may be <code>null</code>.
+	 **/
+	public FileSystemStorage(File repo, String suffix, String legacySuffix) {
+		this.repo = repo;
+		this.suffix = suffix;
+		this.legacySuffix = legacySuffix;
+	}
+
+	@Override
+	public boolean contains(String id) {
+		return getElementFile(id).exists() || (legacySuffix != null && getElementFile(id, legacySuffix).exists());
+	}
+
+	@Override
+	public byte[] read(String id) throws IOException {
+
+		File file = getElementFile(id);
+		if (!file.exists() && legacySuffix != null)
+			file = getElementFile(id, legacySuffix);
+		return file.exists() ? FileUtils.readFileToByteArray(file) : null;
+
+	}
+
+	@Override
+	public void write(String id, byte[] record) throws IOException {
+
+		try ( OutputStream out = new FileOutputStream(getElementFile(id))) {
+			out.write(record);
+		}
+		deleteLegacy(id);
+
+	}
+
+	@Override
+	public void write(String id, RecordWriter writer) throws IOException {
+
+		try ( OutputStream out = new BufferedOutputStream(new FileOutputStream(getElementFile(id)))) {
+			writer.writeTo(out);
+		}
+		deleteLegacy(id);
+
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Every record lives in its own file, hence each written file is synced individually.</p>
+	 **/
+	@Override
+	public void writeAll(Map<String, byte[]> records) throws IOException {
+
+		for (Map.Entry<String, byte[]> record: records.entrySet()) {
+
+			if (record.getValue() == null) {
+				delete(record.getKey());
+				continue;
+			}
+			try ( FileOutputStream out = new FileOutputStream(getElementFile(record.getKey()))) {
+				out.write(record.getValue());
+				out.getFD().sync();
+			}
+			deleteLegacy(record.getKey());
+
+		}
+
+	}
+
+	@Override
+	public boolean delete(String id) {
+
+		File file = getElementFile(id);
+		boolean deleted = file.exists() && file.delete();
+		return deleteLegacy(id) || deleted;
+
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Iterator<byte[]> iterator() {
+
+		String[] suffixes = legacySuffix == null ? new String[]{suffix} : new String[]{suffix, legacySuffix};
+		Iterator<File> fileIterator = FileUtils.iterateFiles(repo, suffixes, false);
+		return new Iterator<byte[]>() {
+
+			private File nextFile = advance();
+
+			@Override
+			public boolean hasNext() {
+				return nextFile != null;
+			}
+
+			@Override
+			public byte[] next() {
+
+				if (nextFile == null)
+					throw new NoSuchElementException();
+				File file = nextFile;
+				nextFile = advance();
+				try {
+					return FileUtils.readFileToByteArray(file);
+				} catch (IOException e) {
+					Logger.error("Unable to read the repository file: " + file);
+					throw new ApplicationError("Unable to read the repository file: " + file, e);
+				}
+			}
+
+			/*
+			 * A legacy file is skipped if the record has been rewritten in the current
+			 * 	format in the meantime but the legacy file could not be removed.
+			 */
+			private File advance() {
+
+				while (fileIterator.hasNext()) {
+					File file = fileIterator.next();
+					if (!isLegacy(file) || !new File(file.getParentFile(), idOf(file) + DOT + suffix).exists())
+						return file;
+				}
+				return null;
+
+			}
+
+		};
+	}
+
+	@Override
+	public void close() {
+		//Nothing to release, every operation opens and closes its own file.
+	}
+
+	private File getElementFile(String id) {
+		return getElementFile(id, suffix);
+	}
+
+	private File getElementFile(String id, String fileSuffix) {
+
+		return new File( repo.getAbsolutePath()
+				+ File.separator
+				+ id
+				+ DOT
+				+ fileSuffix );
+
+	}
+
+	private boolean deleteLegacy(String id) {
+
+		if (legacySuffix == null)
+			return false;
+		File file = getElementFile(id, legacySuffix);
+		return file.exists() && file.delete();
+
+	}
+
+	private boolean isLegacy(File file) {
+		return legacySuffix != null && file.getName().endsWith(DOT + legacySuffix);
+	}
+
+	private static String idOf(File file) {
+
+		String name = file.getName();
+		return name.substring(0, name.lastIndexOf(DOT));
+
+	}
+
+}
@@ -0,0 +1,72 @@
+package org.urlshortener.dataaccess.storage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Non-persistent {@link RecordIndex} held on the heap. Supports any kind of record id.
+ *
+ * @since 1.1
+ **/
+public class HeapRecordIndex implements RecordIndex {
+
+	private final Map<String, Long> index = new ConcurrentHashMap<>();
+
+	@Override
+	public long get(String id) {
+
+		Long location = index.get(id);
+		return location == null ? NOT_FOUND : location;
+
+	}
+
+	@Override
+	public void put(String id, long location) {
+		index.put(id, location);
+	}
+
+	@Override
+	public boolean remove(String id, long location) {
+		return index.remove(id) != null;
+	}
+
+	@Override
+	public int removeFrom(long position) {
+
+		int size = index.size();
+		index.values().removeIf(location -> location >= position);
+		return size - index.size();
+
+	}
+
+	@Override
+	public int size() {
+		return index.size();
+	}
+
+	@Override
+	public long[] locations() {
+		return index.values().stream().mapToLong(Long::longValue).sorted().toArray();
+	}
+
+	@Override
+	public long getCheckpoint() {
+		return 0;
+	}
+
+	@Override
+	public void setCheckpoint(long position) {
+		//Nothing survives a restart, hence there is no checkpoint to keep.
+	}
+
+	@Override
+	public void clear() {
+		index.clear();
+	}
+
+	@Override
+	public void close() {
+		index.clear();
+	}
+
+}
@@ -0,0 +1,203 @@
+package org.urlshortener.dataaccess.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.urlshortener.Logger;
+
+/**
+ * <p>Persistent Bloom filter over the ids of a repository, kept in a memory-mapped file.</p>
+ * <p>{@link #mightContain(String)} never answers false for an added id, so a negative answer proves
+ * 	that the id is unknown without touching the storage. Lookups take no lock, additions are serialized.</p>
+ * <p>The number of bits and hash functions is derived from the expected number of ids and the
+ * 	target false positive probability, bounded by a memory budget. Every addition lands in the mapping
+ * 	immediately, the file is flagged dirty while open and marked clean on {@link #close()} only. A filter
+ * 	which was not closed cleanly, e.g. after a crash, or which was created with other parameters must be
+ * 	rebuilt, see {@link #needsRebuild()}.</p>
+ * <p>File layout: a {@value #HEADER_SIZE} bytes header <code>[long magic][int version][int hashes]
+ * 	[long bits][long count][int dirty]</code> followed by the bit array.</p>
+ *
+ * @since 1.1
+ **/
+public class MappedBloomFilter implements Closeable {
+
+	private static final long MAGIC = 0x55524c53424c4d31L;
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 64;
+	private static final int HASHES_OFFSET = 12;
+	private static final int BITS_OFFSET = 16;
+	private static final int COUNT_OFFSET = 24;
+	private static final int DIRTY_OFFSET = 32;
+
+	private static final int MAX_HASHES = 16;
+	private static final long MAX_BYTES = Integer.MAX_VALUE - HEADER_SIZE;
+
+	private final File file;
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final long bits;
+	private final int hashes;
+	private final boolean rebuild;
+
+	/* Written after the bits of every addition, read before every lookup, to publish the bits to other threads. */
+	private volatile long count;
+
+	/**
+	 * @param expectedIds the number of ids the filter is sized for.
+	 * @param falsePositiveProbability the targeted probability that an unknown id is reported as present.
+	 * @param maxBytes the largest size of the bit array.
+	 **/
+	public MappedBloomFilter(File file, long expectedIds, double falsePositiveProbability, long maxBytes) throws IOException {
+
+		this.file = file;
+
+		long n = Math.max(1, expectedIds);
+		long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+		long bytes = Math.min(Math.min(maxBytes, MAX_BYTES), Math.max(8, (optimalBits + 7) / 8));
+		this.bits = (bytes / 8) * 64;
+		this.hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) bits / n * Math.log(2))));
+
+		boolean exists = file.exists();
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		long length = HEADER_SIZE + bits / 8;
+		boolean reusable = exists && isReusable(channel, length);
+		if (!reusable) {
+			channel.truncate(0);
+			if (exists)
+				Logger.info("Discarding Bloom filter " + file + " which was not closed cleanly or has other parameters");
+		}
+
+		this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+		if (reusable) {
+			this.count = buffer.getLong(COUNT_OFFSET);
+		} else {
+			buffer.putLong(0, MAGIC);
+			buffer.putInt(8, VERSION);
+			buffer.putInt(HASHES_OFFSET, hashes);
+			buffer.putLong(BITS_OFFSET, bits);
+			buffer.putLong(COUNT_OFFSET, 0);
+		}
+		buffer.putInt(DIRTY_OFFSET, 1);
+		buffer.force();
+		this.rebuild = !reusable;
+
+	}
+
+	/**
+	 * @return true if the filter has been created empty and the ids already stored have to be added again.
+	 **/
+	public boolean needsRebuild() {
+		return rebuild;
+	}
+
+	/**
+	 * @return false if the id has certainly never been added, true if it probably has.
+	 **/
+	public boolean mightContain(String id) {
+
+		if (count == 0)
+			return false;
+
+		long hash = hash(id);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashes; i++) {
+			long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bits;
+			if ((buffer.getLong(HEADER_SIZE + (int) (bit >>> 6) * 8) & (1L << bit)) == 0)
+				return false;
+		}
+		return true;
+
+	}
+
+	public synchronized void add(String id) {
+
+		long hash = hash(id);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashes; i++) {
+			long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bits;
+			int position = HEADER_SIZE + (int) (bit >>> 6) * 8;
+			buffer.putLong(position, buffer.getLong(position) | (1L << bit));
+		}
+		buffer.putLong(COUNT_OFFSET, count + 1);
+		count = count + 1;
+
+	}
+
+	/**
+	 * @return the number of additions, ids added more than once are counted each time.
+	 **/
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the size of the bit array in bytes.
+	 **/
+	public long getSizeInBytes() {
+		return bits / 8;
+	}
+
+	/**
+	 * @return the estimated probability of a false positive with the current number of additions.
+	 **/
+	public double getExpectedFalsePositiveProbability() {
+		return Math.pow(1 - Math.exp(-hashes * (double) count / bits), hashes);
+	}
+
+	/**
+	 * Persists the bits and marks the file clean so that it is reused on next start.
+	 **/
+	@Override
+	public synchronized void close() throws IOException {
+
+		buffer.force();
+		buffer.putInt(DIRTY_OFFSET, 0);
+		buffer.force();
+		channel.close();
+
+	}
+
+	private boolean isReusable(FileChannel channel, long length) throws IOException {
+
+		if (channel.size() != length)
+			return false;
+		MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+		return header.getLong(0) == MAGIC && header.getInt(8) == VERSION
+				&& header.getInt(HASHES_OFFSET) == hashes && header.getLong(BITS_OFFSET) == bits
+				&& header.getInt(DIRTY_OFFSET) == 0;
+
+	}
+
+	/**
+	 * 64-bit FNV-1a of the id finished with the MurmurHash3 mixer, the halves seed the double hashing.
+	 **/
+	private static long hash(String id) {
+
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < id.length(); i++) {
+			h ^= id.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+
+	}
+
+	@Override
+	public String toString() {
+		return file + " (" + getSizeInBytes() + " bytes, " + hashes + " hashes, " + count + " ids)";
+	}
+
+}
@@ -0,0 +1,384 @@
+package org.urlshortener.dataaccess.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.urlshortener.ApplicationError;
+import org.urlshortener.Base62;
+import org.urlshortener.Logger;
+
+/**
+ * <p>Persistent {@link RecordIndex} for records keyed by short ids. The index is an open-addressing
+ * 	hash table with linear probing kept in a memory-mapped file, so it survives restarts without
+ * 	rescanning the log and a lookup costs a single probe sequence in mapped memory.</p>
+ * <p>Every short id is packed into a long through {@link Base62}; slots hold that key and the record
+ * 	location as two longs. Ids which are not short ids cannot be stored in this index.</p>
+ * <p>File layout: a {@value #HEADER_SIZE} bytes header <code>[long magic][int version][int capacity]
+ * 	[int size][int tombstones][long checkpoint]</code> followed by <code>capacity</code> slots of
+ * 	<code>[long key + 1][long location]</code>. A key of 0 marks an empty slot and -1 a removed one, which
+ * 	keeps the location of its delete record until the next rebuild.</p>
+ * <p>The pages of the mapped file may be written back in any order, so the checkpoint is written through a
+ * 	separate mapping of the header and forced on its own, only after the slots it covers have been forced.</p>
+ *
+ * @since 1.1
+ **/
+public class MappedShortIdIndex implements RecordIndex {
+
+	private static final long MAGIC = 0x55524c5349445831L;
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 64;
+	private static final int CAPACITY_OFFSET = 12;
+	private static final int SIZE_OFFSET = 16;
+	private static final int TOMBSTONES_OFFSET = 20;
+	private static final int CHECKPOINT_OFFSET = 24;
+
+	private static final int SLOT_SIZE = 16;
+	private static final int MAX_CAPACITY = 1 << 26;
+	private static final double MAX_LOAD_FACTOR = 0.7;
+
+	private static final long EMPTY = 0;
+	private static final long TOMBSTONE = -1;
+
+	private final File file;
+	private volatile Table table;
+
+	public MappedShortIdIndex(File file, int initialCapacity) throws IOException {
+
+		this.file = file;
+		int capacity = Integer.highestOneBit(Math.max(16, Math.min(initialCapacity, MAX_CAPACITY)));
+
+		if (file.exists()) {
+			table = Table.open(file);
+			if (table == null) {
+				Logger.error("Discarding unreadable short id index: " + file);
+				table = Table.create(file, capacity);
+			}
+		} else {
+			table = Table.create(file, capacity);
+		}
+
+	}
+
+	@Override
+	public long get(String id) {
+
+		long key = toKey(id);
+		if (key == EMPTY)
+			return NOT_FOUND;
+
+		Table current = table;
+		int slot = current.find(key);
+		if (slot < 0)
+			return NOT_FOUND;
+
+		//The slot may have been removed meanwhile, its location then being the one of the delete record.
+		int position = Table.position(slot);
+		long location = current.buffer.getLong(position + 8);
+		return current.buffer.getLong(position) == key ? location : NOT_FOUND;
+
+	}
+
+	@Override
+	public void put(String id, long location) throws IOException {
+
+		long key = toKey(id);
+		if (key == EMPTY)
+			throw new ApplicationError("Only short ids of " + Base62.SHORT_ID_LENGTH + " alphanumeric characters can be indexed: " + id);
+
+		Table current = table;
+		int slot = current.find(key);
+		if (slot >= 0) {
+			current.buffer.putLong(Table.position(slot) + 8, location);
+			return;
+		}
+
+		if (current.size + current.tombstones + 1 > current.capacity * MAX_LOAD_FACTOR) {
+			rebuild(current.size + 1 > current.capacity * MAX_LOAD_FACTOR / 2 ? current.capacity * 2 : current.capacity);
+			current = table;
+		}
+
+		/*
+		 * Writing the location before the key, so that a concurrent lookup
+		 * 	never observes the key of a half written slot.
+		 */
+		slot = current.findFree(key);
+		int position = Table.position(slot);
+		if (current.buffer.getLong(position) == TOMBSTONE)
+			current.tombstones--;
+		current.buffer.putLong(position + 8, location);
+		current.buffer.putLong(position, key);
+		current.size++;
+		current.writeCounts();
+
+	}
+
+	@Override
+	public boolean remove(String id, long location) {
+
+		long key = toKey(id);
+		if (key == EMPTY)
+			return false;
+
+		Table current = table;
+		int slot = current.find(key);
+		if (slot < 0)
+			return false;
+
+		current.buffer.putLong(Table.position(slot), TOMBSTONE);
+		current.buffer.putLong(Table.position(slot) + 8, location);
+		current.size--;
+		current.tombstones++;
+		current.writeCounts();
+		return true;
+
+	}
+
+	@Override
+	public int removeFrom(long position) {
+
+		/*
+		 * Recounting the slots on the way, as the page holding the counts
+		 * 	may have been written back apart from the slots after a crash.
+		 */
+		Table current = table;
+		int removed = 0;
+		int size = 0;
+		int tombstones = 0;
+		for (int slot = 0; slot < current.capacity; slot++) {
+			int slotPosition = Table.position(slot);
+			long key = current.buffer.getLong(slotPosition);
+			boolean beyond = key != EMPTY && current.buffer.getLong(slotPosition + 8) >= position;
+			if (beyond)
+				removed++;
+			if (key == TOMBSTONE || (key != EMPTY && beyond)) {
+				current.buffer.putLong(slotPosition, TOMBSTONE);
+				tombstones++;
+			} else if (key != EMPTY) {
+				size++;
+			}
+		}
+		current.size = size;
+		current.tombstones = tombstones;
+		current.writeCounts();
+		return removed;
+
+	}
+
+	@Override
+	public int size() {
+		return table.size;
+	}
+
+	@Override
+	public long[] locations() {
+
+		Table current = table;
+		long[] locations = new long[current.size];
+		int count = 0;
+		for (int slot = 0; slot < current.capacity && count < locations.length; slot++) {
+			long key = current.buffer.getLong(Table.position(slot));
+			if (key != EMPTY && key != TOMBSTONE)
+				locations[count++] = current.buffer.getLong(Table.position(slot) + 8);
+		}
+		Arrays.sort(locations, 0, count);
+		return count == locations.length ? locations : Arrays.copyOf(locations, count);
+
+	}
+
+	@Override
+	public long getCheckpoint() {
+		return table.header.getLong(CHECKPOINT_OFFSET);
+	}
+
+	@Override
+	public void setCheckpoint(long position) {
+
+		Table current = table;
+		current.header.putLong(CHECKPOINT_OFFSET, position);
+		current.header.force();
+
+	}
+
+	@Override
+	public void clear() {
+
+		try {
+			Table current = table;
+			table = Table.create(file, current.capacity);
+			current.channel.close();
+		} catch (IOException e) {
+			Logger.error("Unable to reset the short id index: " + file);
+			throw new ApplicationError("Unable to reset the short id index: " + file, e);
+		}
+
+	}
+
+	@Override
+	public void sync() {
+		table.buffer.force();
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		table.buffer.force();
+		table.channel.close();
+
+	}
+
+	/**
+	 * Copies all live entries into a fresh table of given capacity, dropping the tombstones,
+	 * 	and atomically replaces the index file with it.
+	 **/
+	private void rebuild(int capacity) throws IOException {
+
+		if (capacity > MAX_CAPACITY)
+			throw new ApplicationError("Short id index is full: " + file);
+
+		Table current = table;
+		File rebuilt = new File(file.getPath() + ".tmp");
+		Table next = Table.create(rebuilt, capacity);
+		for (int slot = 0; slot < current.capacity; slot++) {
+			int position = Table.position(slot);
+			long key = current.buffer.getLong(position);
+			if (key != EMPTY && key != TOMBSTONE) {
+				int target = Table.position(next.findFree(key));
+				next.buffer.putLong(target + 8, current.buffer.getLong(position + 8));
+				next.buffer.putLong(target, key);
+				next.size++;
+			}
+		}
+		next.writeCounts();
+		next.header.putLong(CHECKPOINT_OFFSET, current.header.getLong(CHECKPOINT_OFFSET));
+		next.buffer.force();
+
+		Files.move(rebuilt.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		table = next;
+		current.channel.close();
+		Logger.debug("Rebuilt short id index " + file + " with capacity " + capacity);
+
+	}
+
+	private static long toKey(String id) {
+
+		long packed = Base62.pack(id);
+		return packed < 0 ? EMPTY : packed + 1;
+
+	}
+
+	private static int hash(long key) {
+
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key;
+
+	}
+
+	private static final class Table {
+
+		private final FileChannel channel;
+		private final MappedByteBuffer buffer;
+		/* The header alone, so that the checkpoint can be forced without the slots. */
+		private final MappedByteBuffer header;
+		private final int capacity;
+		private int size;
+		private int tombstones;
+
+		private Table(FileChannel channel, MappedByteBuffer buffer, int capacity) throws IOException {
+			this.channel = channel;
+			this.buffer = buffer;
+			this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+			this.capacity = capacity;
+		}
+
+		private static Table create(File file, int capacity) throws IOException {
+
+			Files.deleteIfExists(file.toPath());
+			FileChannel channel = FileChannel.open(file.toPath(),
+					StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+			buffer.putLong(0, MAGIC);
+			buffer.putInt(8, VERSION);
+			buffer.putInt(CAPACITY_OFFSET, capacity);
+			Table table = new Table(channel, buffer, capacity);
+			table.writeCounts();
+			return table;
+
+		}
+
+		/**
+		 * @return the mapped table or <code>null</code> if the file does not hold a valid index.
+		 **/
+		private static Table open(File file) throws IOException {
+
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+			long length = channel.size();
+			if (length >= HEADER_SIZE) {
+
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+				int capacity = buffer.getInt(CAPACITY_OFFSET);
+				if (buffer.getLong(0) == MAGIC && buffer.getInt(8) == VERSION
+						&& Integer.bitCount(capacity) == 1 && length == HEADER_SIZE + (long) capacity * SLOT_SIZE) {
+					Table table = new Table(channel, buffer, capacity);
+					table.size = buffer.getInt(SIZE_OFFSET);
+					table.tombstones = buffer.getInt(TOMBSTONES_OFFSET);
+					return table;
+				}
+
+			}
+			channel.close();
+			return null;
+
+		}
+
+		private static int position(int slot) {
+			return HEADER_SIZE + slot * SLOT_SIZE;
+		}
+
+		private int find(long key) {
+
+			int mask = capacity - 1;
+			int slot = hash(key) & mask;
+			for (int probes = 0; probes < capacity; probes++) {
+				long current = buffer.getLong(position(slot));
+				if (current == key)
+					return slot;
+				if (current == EMPTY)
+					return -1;
+				slot = (slot + 1) & mask;
+			}
+			return -1;
+
+		}
+
+		private int findFree(long key) {
+
+			int mask = capacity - 1;
+			int slot = hash(key) & mask;
+			while (true) {
+				long current = buffer.getLong(position(slot));
+				if (current == EMPTY || current == TOMBSTONE)
+					return slot;
+				slot = (slot + 1) & mask;
+			}
+
+		}
+
+		private void writeCounts() {
+			buffer.putInt(SIZE_OFFSET, size);
+			buffer.putInt(TOMBSTONES_OFFSET, tombstones);
+		}
+
+	}
+
+}
@@ -0,0 +1,70 @@
+package org.urlshortener.dataaccess.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Maps the id of every live record of a {@link SegmentLogStorage} to the location of its latest record.
+ * 	Mutations are serialized by the owning storage, lookups may happen concurrently.
+ *
+ * @since 1.1
+ * @see HeapRecordIndex
+ * @see MappedShortIdIndex
+ **/
+public interface RecordIndex extends Closeable {
+
+	long NOT_FOUND = -1;
+
+	/**
+	 * @return the location of the record stored against given id, or {@link #NOT_FOUND}.
+	 **/
+	long get(String id);
+
+	void put(String id, long location) throws IOException;
+
+	/**
+	 * @param location the location of the delete record, which a persistent index keeps in the removed entry
+	 * 	so that a removal reaching the storage device ahead of its delete record can be detected.
+	 * @return true if the id was indexed.
+	 **/
+	boolean remove(String id, long location);
+
+	int size();
+
+	/**
+	 * @return the locations of all indexed records in ascending order.
+	 **/
+	long[] locations();
+
+	/**
+	 * Removes every entry whose location is at or beyond given log position.
+	 * @return the number of entries removed, plus the number of removals kept with a location at or beyond
+	 * 	that position, which cannot be undone.
+	 **/
+	int removeFrom(long position);
+
+	/**
+	 * @return the log position up to which all records are reflected in this index and forced to the log.
+	 * 	A non-persistent index always returns 0 and thus has to be rebuilt from the whole log.
+	 **/
+	long getCheckpoint();
+
+	/**
+	 * Durably moves the checkpoint. The entries it covers must have been forced by {@link #sync()} before,
+	 * 	the checkpoint itself is then forced on its own.
+	 **/
+	void setCheckpoint(long position);
+
+	/**
+	 * Removes all entries and resets the checkpoint.
+	 **/
+	void clear();
+
+	/**
+	 * Forces all entries of a persistent index to the storage device.
+	 **/
+	default void sync() throws IOException {
+		//Nothing to persist by default
+	}
+
+}
@@ -0,0 +1,115 @@
+package org.urlshortener.dataaccess.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.urlshortener.dataaccess.BaseRepository;
+
+/**
+ * Persistent back-end of a {@link BaseRepository}. Stores the serialized body of
+ * 	each element against its unique identifier.
+ *
+ * @since 1.1
+ * @see FileSystemStorage
+ * @see SegmentLogStorage
+ **/
+public interface RecordStorage extends Closeable {
+
+	/**
+	 * @return true if a record is stored against the given id.
+	 **/
+	boolean contains(String id) throws IOException;
+
+	/**
+	 * @return the serialized body stored against the given id,
+	 * 	or <code>null</code> if no such record exists.
+	 **/
+	byte[] read(String id) throws IOException;
+
+	/**
+	 * Reads a batch of records. Implementations should read them in the order of their location
+	 * 	in the storage rather than in the order of given ids.
+	 * @return the serialized bodies stored against given ids, ids of no record are left out.
+	 **/
+	default Map<String, byte[]> readAll(Collection<String> ids) throws IOException {
+
+		Map<String, byte[]> records = new HashMap<>();
+		for (String id: ids) {
+			byte[] record = read(id);
+			if (record != null)
+				records.put(id, record);
+		}
+		return records;
+
+	}
+
+	/**
+	 * Stores the serialized body against the given id, replacing any previous record.
+	 **/
+	void write(String id, byte[] record) throws IOException;
+
+	/**
+	 * Stores the serialized body produced by the given writer against the given id, replacing any previous record.
+	 * 	Implementations should stream the body to the storage without buffering it, where their layout allows.
+	 **/
+	default void write(String id, RecordWriter writer) throws IOException {
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		writer.writeTo(body);
+		write(id, body.toByteArray());
+
+	}
+
+	/**
+	 * Removes the record stored against the given id.
+	 * @return true if a record existed and was removed.
+	 **/
+	boolean delete(String id) throws IOException;
+
+	/**
+	 * Stores a batch of records. A <code>null</code> body removes the record stored against that id.
+	 * 	Implementations should persist the whole batch with as few writes as their layout allows.
+	 **/
+	default void writeAll(Map<String, byte[]> records) throws IOException {
+
+		for (Map.Entry<String, byte[]> record: records.entrySet()) {
+			if (record.getValue() == null)
+				delete(record.getKey());
+			else
+				write(record.getKey(), record.getValue());
+		}
+
+	}
+
+	/**
+	 * Forces all records written so far to the storage device.
+	 **/
+	default void sync() throws IOException {
+		//Nothing buffered by default
+	}
+
+	/**
+	 * Returns an {@link Iterator} over the serialized bodies of all stored records.
+	 **/
+	Iterator<byte[]> iterator() throws IOException;
+
+	/**
+	 * Produces the serialized body of a record.
+	 **/
+	@FunctionalInterface
+	interface RecordWriter {
+
+		/**
+		 * Writes the body to the stream, must not close it.
+		 **/
+		void writeTo(OutputStream out) throws IOException;
+
+	}
+
+}
@@ -0,0 +1,835 @@
+package org.urlshortener.dataaccess.storage;
+
+import static org.urlshortener.ApplicationConstants.DOT;
+import static org.urlshortener.ApplicationConstants.SEGMENTS_DIRECTORY;
+import static org.urlshortener.ApplicationConstants.SEGMENT_FILE_SUFFIX;
+import static org.urlshortener.ApplicationConstants.SNAPSHOT_FILE;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.urlshortener.ApplicationError;
+import org.urlshortener.Logger;
+
+/**
+ * <p>Log-structured storage which appends every write as a record to the active segment file and
+ * 	rolls over to a new segment once the active one reaches the configured size. Deletes are appended
+ * 	as tombstone records.</p>
+ * <p>A {@link RecordIndex} maps every live id to the location of its latest record, so a write is one
+ * 	sequential append and a read is one positioned read. When the storage is opened only the part of the log
+ * 	beyond the index checkpoint is replayed, which is the whole log for a non-persistent index. The checkpoint
+ * 	only moves forward once both the log and the index entries it covers have been forced, as a persistent index
+ * 	may reach the storage device ahead of the log and its checkpoint ahead of its entries. A torn record at the tail of the last segment is truncated, and an index pointing beyond the
+ * 	recovered end of the log is rebuilt from the whole log.</p>
+ * <p>A batch written through {@link #writeAll(Map)} is appended with a single gathering write and made
+ * 	durable by a single {@link #sync()}.</p>
+ * <p>A {@link #snapshot()} compacts the log: the latest record of every live id is copied into a single new
+ * 	segment, which then replaces all segments written before it. Writes continue meanwhile into the segment
+ * 	after the snapshot, which is the write-ahead tail replayed on top of the snapshot when the storage is
+ * 	opened. Snapshots can be taken periodically, see {@link #scheduleSnapshots(long, long)}. The number and size
+ * 	of the latest snapshot segment are kept in a small file next to the segments, so that the tail is still told
+ * 	apart from the snapshot after a restart.</p>
+ * <p>Writers are serialized by a {@link ReentrantLock} rather than a monitor, so that a virtual thread
+ * 	waiting for the disk under the lock does not pin its carrier thread.</p>
+ * <p>Record layout: <code>[int bodyLength][int crc32(body)][byte type][short idLength][id][payload]</code></p>
+ *
+ * @since 1.1
+ **/
+public class SegmentLogStorage implements RecordStorage {
+
+	private static final byte PUT = 1;
+	private static final byte DELETE = 2;
+
+	private static final int HEADER_SIZE = 8;
+	private static final int BODY_PREFIX_SIZE = 3;
+	private static final int READ_AHEAD_SIZE = 4096;
+
+	/* A record location packs the segment number in the high bits and the offset within the segment in the low bits. */
+	private static final int OFFSET_BITS = 40;
+	private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+	private final File directory;
+	private final long maxSegmentSize;
+
+	private final RecordIndex index;
+	private final Map<Integer, FileChannel> segments = new ConcurrentHashMap<>();
+
+	private int activeSegment;
+	private FileChannel activeChannel;
+	private long activeSize;
+
+	/* The first segment of the log which has been written after the latest snapshot, and the size of that snapshot. */
+	private int tailSegment;
+	private long snapshotSize;
+	/* Segments replaced by the latest snapshot, kept open for reads which looked up their location before. */
+	private final List<Integer> retiredSegments = new ArrayList<>();
+	private ScheduledExecutorService snapshotScheduler;
+	/* Guards the active segment, the index updates and the segment bookkeeping above. */
+	private final ReentrantLock lock = new ReentrantLock();
+	private final ReentrantLock snapshotLock = new ReentrantLock();
+
+	public SegmentLogStorage(File repo, long maxSegmentSize) throws IOException {
+		this(repo, maxSegmentSize, new HeapRecordIndex());
+	}
+
+	public SegmentLogStorage(File repo, long maxSegmentSize, RecordIndex index) throws IOException {
+
+		this.directory = new File(repo, SEGMENTS_DIRECTORY);
+		this.maxSegmentSize = Math.min(maxSegmentSize, OFFSET_MASK);
+		this.index = index;
+		if( !directory.exists() ) {
+			directory.mkdirs();
+		}
+		recover();
+
+	}
+
+	@Override
+	public boolean contains(String id) {
+		return index.get(id) != RecordIndex.NOT_FOUND;
+	}
+
+	@Override
+	public byte[] read(String id) throws IOException {
+
+		long location = index.get(id);
+		return location == RecordIndex.NOT_FOUND ? null : readRecord(location).payload;
+
+	}
+
+	@Override
+	public Map<String, byte[]> readAll(Collection<String> ids) throws IOException {
+
+		/*
+		 * Reading the records in the order of their location, i.e. segment then offset,
+		 * 	turns the batch into a forward sweep over the segment files.
+		 */
+		List<String> found = new ArrayList<>(ids.size());
+		long[] locations = new long[ids.size()];
+		for (String id: ids) {
+			long location = index.get(id);
+			if (location != RecordIndex.NOT_FOUND) {
+				locations[found.size()] = location;
+				found.add(id);
+			}
+		}
+		Integer[] order = new Integer[found.size()];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> Long.compare(locations[a], locations[b]));
+
+		Map<String, byte[]> records = new HashMap<>();
+		for (int i: order)
+			records.put(found.get(i), readRecord(locations[i]).payload);
+		return records;
+
+	}
+
+	@Override
+	public void write(String id, byte[] record) throws IOException {
+
+		lock.lock();
+		try {
+			index.put(id, append(PUT, id, record));
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	@Override
+	public boolean delete(String id) throws IOException {
+
+		lock.lock();
+		try {
+
+			if ( !contains(id) )
+				return false;
+
+			index.remove(id, append(DELETE, id, new byte[0]));
+			return true;
+
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	@Override
+	public void writeAll(Map<String, byte[]> records) throws IOException {
+
+		lock.lock();
+		try {
+
+			List<ByteBuffer> batch = new ArrayList<>(records.size());
+			List<String> ids = new ArrayList<>(records.size());
+			List<Long> locations = new ArrayList<>(records.size());
+			long batchSize = 0;
+
+			for (Map.Entry<String, byte[]> record: records.entrySet()) {
+
+				String id = record.getKey();
+				boolean delete = record.getValue() == null;
+				if (delete && !contains(id))
+					continue;
+
+				ByteBuffer encoded = delete ? encode(DELETE, id, new byte[0]) : encode(PUT, id, record.getValue());
+				if (activeSize + batchSize > 0 && activeSize + batchSize + encoded.remaining() > maxSegmentSize) {
+					appendBatch(batch, ids, locations);
+					batch.clear(); ids.clear(); locations.clear();
+					batchSize = 0;
+					openSegment(activeSegment + 1);
+				}
+
+				batch.add(encoded);
+				ids.add(id);
+				locations.add(toLocation(activeSegment, activeSize + batchSize));
+				batchSize += encoded.remaining();
+
+			}
+			appendBatch(batch, ids, locations);
+
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	@Override
+	public void sync() throws IOException {
+
+		FileChannel channel;
+		long end;
+		lock.lock();
+		try {
+			channel = activeChannel;
+			end = getEndOfLog();
+		} finally {
+			lock.unlock();
+		}
+		channel.force(false);
+		index.sync();
+
+		//Only the part of the log which was actually forced, and indexed on the device, is covered by the checkpoint.
+		lock.lock();
+		try {
+			if (end > index.getCheckpoint())
+				index.setCheckpoint(end);
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	@Override
+	public Iterator<byte[]> iterator() {
+
+		/*
+		 * Visiting the records in the order of their location turns the iteration
+		 * 	into a mostly sequential scan over the segment files.
+		 */
+		long[] locations = index.locations();
+		return new Iterator<byte[]>() {
+
+			private int position = 0;
+
+			@Override
+			public boolean hasNext() {
+				return position < locations.length;
+			}
+
+			@Override
+			public byte[] next() {
+
+				long location = locations[position++];
+				try {
+					return readRecord(location).payload;
+				} catch (IOException e) {
+					Logger.error("Unable to read the record at location: " + location + " in " + directory);
+					throw new ApplicationError("Unable to read the record at location: " + location + " in " + directory, e);
+				}
+			}
+
+		};
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		if (snapshotScheduler != null) {
+			snapshotScheduler.shutdown();
+			try {
+				snapshotScheduler.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		lock.lock();
+		try {
+			activeChannel.force(false);
+			index.sync();
+			index.setCheckpoint(getEndOfLog());
+			for (FileChannel channel: segments.values())
+				channel.close();
+			segments.clear();
+			deleteRetiredSegments();
+			index.close();
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Takes a snapshot every given interval as soon as the log written after the previous snapshot
+	 * 	reaches both the given size and the size of the previous snapshot, so that compacting never
+	 * 	rewrites more than twice the data written.
+	 **/
+	public void scheduleSnapshots(long intervalMillis, long minTailSize) {
+
+		lock.lock();
+		try {
+
+			if (snapshotScheduler != null || intervalMillis <= 0)
+				return;
+
+			snapshotScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+				Thread thread = new Thread(task, "snapshot-" + directory.getParentFile().getName());
+				thread.setDaemon(true);
+				return thread;
+			});
+			snapshotScheduler.scheduleWithFixedDelay(() -> {
+				try {
+					if (getTailSize() >= Math.max(minTailSize, snapshotSize))
+						snapshot();
+				} catch (IOException | RuntimeException e) {
+					Logger.error("Unable to take a snapshot of " + directory + ": " + e);
+				}
+			}, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	/**
+	 * @return the number of bytes of log written after the latest snapshot.
+	 **/
+	public long getTailSize() {
+
+		lock.lock();
+		try {
+
+			long size = 0;
+			for (int segmentNumber = tailSegment; segmentNumber < activeSegment; segmentNumber++)
+				if (segments.containsKey(segmentNumber))
+					size += getSegmentFile(segmentNumber).length();
+			return size + activeSize;
+
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Copies the latest record of every live id into a new segment which replaces all the segments
+	 * 	written before. Writes are only blocked while the active segment is sealed and once again while
+	 * 	the index is switched over to the snapshot.
+	 * @return the number of records in the snapshot.
+	 **/
+	public int snapshot() throws IOException {
+
+		snapshotLock.lock();
+		try {
+			return takeSnapshot();
+		} finally {
+			snapshotLock.unlock();
+		}
+
+	}
+
+	private int takeSnapshot() throws IOException {
+
+		long start = System.currentTimeMillis();
+		int snapshotSegment;
+		long[] locations;
+		lock.lock();
+		try {
+
+			//The segments written so far are sealed, new writes go to the segment after the snapshot.
+			snapshotSegment = activeSegment + 1;
+			openSegment(activeSegment + 2);
+			index.sync();
+			index.setCheckpoint(getEndOfLog());
+			locations = index.locations();
+
+		} finally {
+			lock.unlock();
+		}
+
+		File file = getSegmentFile(snapshotSegment);
+		File temporary = new File(file.getPath() + ".tmp");
+		String[] ids = new String[locations.length];
+		long[] snapshotLocations = new long[locations.length];
+		long offset = 0;
+		try (FileOutputStream fos = new FileOutputStream(temporary)) {
+
+			BufferedOutputStream out = new BufferedOutputStream(fos, 1 << 16);
+			for (int i = 0; i < locations.length; i++) {
+				Record record = readRecord(locations[i]);
+				ByteBuffer encoded = encode(PUT, record.id, record.payload);
+				ids[i] = record.id;
+				snapshotLocations[i] = toLocation(snapshotSegment, offset);
+				offset += encoded.remaining();
+				out.write(encoded.array(), 0, encoded.remaining());
+			}
+			out.flush();
+			fos.getFD().sync();
+
+		}
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		persistSnapshot(snapshotSegment, offset);
+
+		int retired;
+		lock.lock();
+		try {
+
+			segments.put(snapshotSegment, FileChannel.open(file.toPath(), StandardOpenOption.READ));
+
+			//Records written or deleted since the snapshot started keep their newer location.
+			for (int i = 0; i < ids.length; i++)
+				if (index.get(ids[i]) == locations[i])
+					index.put(ids[i], snapshotLocations[i]);
+			//The replaced segments are only deleted once no persistent entry can point into them anymore.
+			index.sync();
+
+			deleteRetiredSegments();
+			for (Integer segmentNumber: segments.keySet())
+				if (segmentNumber < snapshotSegment)
+					retiredSegments.add(segmentNumber);
+			for (Integer segmentNumber: retiredSegments)
+				getSegmentFile(segmentNumber).delete();
+			retired = retiredSegments.size();
+
+			tailSegment = snapshotSegment + 1;
+			snapshotSize = offset;
+
+		} finally {
+			lock.unlock();
+		}
+
+		Logger.info("Snapshot of " + directory + ": " + ids.length + " records, " + offset + " bytes in segment "
+				+ snapshotSegment + ", replaced " + retired + " segment(s) in " + (System.currentTimeMillis() - start) + " ms");
+		return ids.length;
+
+	}
+
+	/**
+	 * Records the latest snapshot segment and its size. <code>[int segmentNumber][long size]</code>
+	 **/
+	private void persistSnapshot(int segmentNumber, long size) throws IOException {
+
+		File marker = new File(directory, SNAPSHOT_FILE);
+		File temporary = new File(marker.getPath() + ".tmp");
+		try (FileOutputStream fos = new FileOutputStream(temporary);
+				DataOutputStream out = new DataOutputStream(fos)) {
+
+			out.writeInt(segmentNumber);
+			out.writeLong(size);
+			out.flush();
+			fos.getFD().sync();
+
+		}
+		Files.move(temporary.toPath(), marker.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+	}
+
+	/**
+	 * Restores the latest snapshot recorded by {@link #persistSnapshot(int, long)}. Without any, the whole log
+	 * 	counts as tail.
+	 **/
+	private void recoverSnapshot(int[] segmentNumbers) {
+
+		tailSegment = segmentNumbers.length > 0 ? segmentNumbers[0] : 0;
+		snapshotSize = 0;
+
+		File marker = new File(directory, SNAPSHOT_FILE);
+		if (!marker.exists())
+			return;
+		try (DataInputStream in = new DataInputStream(new FileInputStream(marker))) {
+			int segmentNumber = in.readInt();
+			long size = in.readLong();
+			if (Arrays.binarySearch(segmentNumbers, segmentNumber) >= 0 && getSegmentFile(segmentNumber).length() == size) {
+				tailSegment = segmentNumber + 1;
+				snapshotSize = size;
+			}
+		} catch (IOException e) {
+			Logger.error("Ignoring unreadable snapshot record " + marker + ": " + e);
+		}
+
+	}
+
+	/**
+	 * Closes the segments replaced by the previous snapshot. Deleting a segment which
+	 * 	is still open fails on some platforms, it is deleted again once closed.
+	 **/
+	private void deleteRetiredSegments() throws IOException {
+
+		for (Integer segmentNumber: retiredSegments) {
+			FileChannel channel = segments.remove(segmentNumber);
+			if (channel != null)
+				channel.close();
+			Files.deleteIfExists(getSegmentFile(segmentNumber).toPath());
+		}
+		retiredSegments.clear();
+
+	}
+
+	private long append(byte type, String id, byte[] payload) throws IOException {
+
+		ByteBuffer record = encode(type, id, payload);
+		if ( activeSize > 0 && activeSize + record.remaining() > maxSegmentSize )
+			openSegment(activeSegment + 1);
+
+		long offset = activeSize;
+		while (record.hasRemaining())
+			activeSize += activeChannel.write(record, activeSize);
+
+		return toLocation(activeSegment, offset);
+
+	}
+
+	/**
+	 * Appends the encoded records with one gathering write, then publishes their locations to the index.
+	 **/
+	private void appendBatch(List<ByteBuffer> batch, List<String> ids, List<Long> locations) throws IOException {
+
+		if (batch.isEmpty())
+			return;
+
+		ByteBuffer[] buffers = batch.toArray(new ByteBuffer[batch.size()]);
+		activeChannel.position(activeSize);
+		while (buffers[buffers.length - 1].hasRemaining())
+			activeSize += activeChannel.write(buffers);
+
+		for (int i = 0; i < ids.size(); i++) {
+			if (batch.get(i).get(HEADER_SIZE) == DELETE)
+				index.remove(ids.get(i), locations.get(i));
+			else
+				index.put(ids.get(i), locations.get(i));
+		}
+
+	}
+
+	private long getEndOfLog() {
+		return toLocation(activeSegment, activeSize);
+	}
+
+	private static long toLocation(int segmentNumber, long offset) {
+		return ((long) segmentNumber << OFFSET_BITS) | offset;
+	}
+
+	private Record readRecord(long location) throws IOException {
+
+		FileChannel channel = segments.get((int) (location >>> OFFSET_BITS));
+		long offset = location & OFFSET_MASK;
+
+		/*
+		 * Optimistically reading ahead a block large enough for most records
+		 * 	so that a lookup usually costs a single positioned read.
+		 */
+		ByteBuffer buffer = ByteBuffer.allocate(READ_AHEAD_SIZE);
+		readFully(channel, buffer, offset);
+		int recordSize = HEADER_SIZE + buffer.getInt(0);
+		if (recordSize > buffer.position()) {
+			ByteBuffer larger = ByteBuffer.allocate(recordSize);
+			buffer.flip();
+			larger.put(buffer);
+			readFully(channel, larger, offset);
+			buffer = larger;
+		}
+
+		Record record = decode(buffer.array(), recordSize);
+		if (record == null)
+			throw new ApplicationError("Corrupted record at location: " + location + " in " + directory);
+		return record;
+
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0)
+				break;
+		}
+
+	}
+
+	private static ByteBuffer encode(byte type, String id, byte[] payload) {
+
+		byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+		if (idBytes.length > Short.MAX_VALUE)
+			throw new ApplicationError("Record id is too long: " + id);
+
+		int bodyLength = BODY_PREFIX_SIZE + idBytes.length + payload.length;
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bodyLength);
+		buffer.putInt(bodyLength)
+		.putInt(0)
+		.put(type)
+		.putShort((short) idBytes.length)
+		.put(idBytes)
+		.put(payload);
+
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), HEADER_SIZE, bodyLength);
+		buffer.putInt(4, (int) crc.getValue());
+		buffer.flip();
+		return buffer;
+
+	}
+
+	/**
+	 * @return the decoded record or <code>null</code> if the bytes do not hold a valid record.
+	 **/
+	private static Record decode(byte[] bytes, int recordSize) {
+
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, recordSize);
+		int bodyLength = buffer.getInt();
+		int checksum = buffer.getInt();
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes, HEADER_SIZE, bodyLength);
+		if ((int) crc.getValue() != checksum)
+			return null;
+
+		byte type = buffer.get();
+		int idLength = buffer.getShort();
+		String id = new String(bytes, buffer.position(), idLength, StandardCharsets.UTF_8);
+		int payloadOffset = buffer.position() + idLength;
+		return new Record(type, id, Arrays.copyOfRange(bytes, payloadOffset, HEADER_SIZE + bodyLength));
+
+	}
+
+	private void recover() throws IOException {
+
+		long start = System.currentTimeMillis();
+		//A snapshot interrupted before completion is discarded, the segments it should have replaced are still there.
+		File[] interrupted = directory.listFiles((dir, name) -> name.endsWith(DOT + SEGMENT_FILE_SUFFIX + ".tmp"));
+		if (interrupted != null)
+			for (File file: interrupted)
+				Files.delete(file.toPath());
+
+		int[] segmentNumbers = listSegments();
+		long checkpoint = index.getCheckpoint();
+		int checkpointSegment = (int) (checkpoint >>> OFFSET_BITS);
+		long checkpointOffset = checkpoint & OFFSET_MASK;
+
+		if (checkpoint > 0 && !isWithinLog(segmentNumbers, checkpointSegment, checkpointOffset)) {
+			Logger.error("Index checkpoint is ahead of the log, rebuilding the index of " + directory);
+			index.clear();
+			checkpointSegment = 0;
+			checkpointOffset = 0;
+		}
+
+		long replayed = 0;
+		for (int i = 0; i < segmentNumbers.length; i++) {
+
+			int segmentNumber = segmentNumbers[i];
+			boolean last = i == segmentNumbers.length - 1;
+			File file = getSegmentFile(segmentNumber);
+
+			/*
+			 * Segments entirely covered by the index checkpoint are opened without being read.
+			 */
+			long validSize = file.length();
+			if (segmentNumber >= checkpointSegment) {
+				long from = segmentNumber == checkpointSegment ? checkpointOffset : 0;
+				validSize = scanSegment(segmentNumber, from, last);
+				replayed += validSize - from;
+			}
+
+			FileChannel channel = last
+					? FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)
+					: FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			segments.put(segmentNumber, channel);
+
+			if (last) {
+				if (channel.size() > validSize) {
+					Logger.error("Truncating torn tail of segment " + file + " at offset " + validSize);
+					channel.truncate(validSize);
+				}
+				activeSegment = segmentNumber;
+				activeChannel = channel;
+				activeSize = validSize;
+			}
+
+		}
+
+		if (activeChannel == null)
+			openSegment(0);
+
+		/*
+		 * Index pages may have been written ahead of the log they point to, removals included. Dropping those
+		 * 	entries alone would lose the older records they replaced, so the index is rebuilt from the whole log.
+		 */
+		int dangling = index.removeFrom(getEndOfLog());
+		if (dangling > 0) {
+			Logger.error(dangling + " index entries point beyond the end of the log, rebuilding the index of " + directory);
+			for (FileChannel channel: segments.values())
+				channel.close();
+			segments.clear();
+			activeChannel = null;
+			index.clear();
+			recover();
+			return;
+		}
+
+		//The recovered log may only have reached the page cache before a crash of the process.
+		activeChannel.force(false);
+		index.sync();
+		index.setCheckpoint(getEndOfLog());
+
+		recoverSnapshot(segmentNumbers);
+		Logger.info("Recovered " + index.size() + " records from " + segmentNumbers.length 
+				+ " segment(s) in " + directory + ", replayed " + replayed + " bytes of log in "
+				+ (System.currentTimeMillis() - start) + " ms");
+
+	}
+
+	private boolean isWithinLog(int[] segmentNumbers, int segmentNumber, long offset) {
+
+		return Arrays.binarySearch(segmentNumbers, segmentNumber) >= 0
+				&& offset <= getSegmentFile(segmentNumber).length();
+
+	}
+
+	/**
+	 * Replays all valid records of the given segment, starting at given offset, into the index.
+	 * @return the size of the valid prefix of the segment
+	 **/
+	private long scanSegment(int segmentNumber, long from, boolean last) throws IOException {
+
+		File file = getSegmentFile(segmentNumber);
+		long offset = from;
+		try (FileInputStream fis = new FileInputStream(file)) {
+
+			fis.getChannel().position(from);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(fis));
+			while (true) {
+
+				int bodyLength;
+				try {
+					bodyLength = in.readInt();
+				} catch (EOFException e) {
+					return offset;
+				}
+
+				Record record = null;
+				if (bodyLength >= BODY_PREFIX_SIZE && bodyLength <= maxSegmentSize) {
+					byte[] bytes = new byte[HEADER_SIZE + bodyLength];
+					ByteBuffer.wrap(bytes).putInt(bodyLength);
+					try {
+						in.readFully(bytes, 4, bytes.length - 4);
+						record = decode(bytes, bytes.length);
+					} catch (EOFException e) {
+						record = null;
+					}
+				}
+
+				if (record == null) {
+					if (last)
+						return offset;
+					throw new ApplicationError("Corrupted record at offset " + offset + " in sealed segment " + file);
+				}
+
+				long location = toLocation(segmentNumber, offset);
+				if (record.type == PUT)
+					index.put(record.id, location);
+				else
+					index.remove(record.id, location);
+				offset += HEADER_SIZE + bodyLength;
+
+			}
+
+		}
+
+	}
+
+	private void openSegment(int segmentNumber) throws IOException {
+
+		/*
+		 * A sealed segment is never written again, syncing it here leaves
+		 * 	only the active segment to be synced by sync().
+		 */
+		if (activeChannel != null)
+			activeChannel.force(false);
+
+		FileChannel channel = FileChannel.open(getSegmentFile(segmentNumber).toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		segments.put(segmentNumber, channel);
+		activeSegment = segmentNumber;
+		activeChannel = channel;
+		activeSize = channel.size();
+		Logger.debug("Opened segment " + getSegmentFile(segmentNumber));
+
+	}
+
+	private int[] listSegments() {
+
+		String[] names = directory.list((dir, name) -> name.matches("\\d{8}\\" + DOT + SEGMENT_FILE_SUFFIX));
+		return names == null ? new int[0] : Arrays.stream(names)
+				.mapToInt(name -> Integer.parseInt(name.substring(0, 8)))
+				.sorted()
+				.toArray();
+
+	}
+
+	private File getSegmentFile(int segmentNumber) {
+		return new File(directory, String.format("%08d", segmentNumber) + DOT + SEGMENT_FILE_SUFFIX);
+	}
+
+	private static final class Record {
+
+		private final byte type;
+		private final String id;
+		private final byte[] payload;
+
+		private Record(byte type, String id, byte[] payload) {
+			this.type = type;
+			this.id = id;
+			this.payload = payload;
+		}
+
+	}
+
+}
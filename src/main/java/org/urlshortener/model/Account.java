@@ -16,6 +16,7 @@ import org.urlshortener.dataaccess.UrlRepository;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonProperty.Access;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 /**
@@ -32,17 +33,27 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 public class Account extends BaseModel {
 
 	@JsonProperty(ACCOUNT_ID) @NotNull private String id;
-	@NotNull private String password;
+	@JsonProperty(access = Access.WRITE_ONLY) private String password;
+	private String passwordHash;
 	@NotNull private Collection<String> redirects = new ArrayList<>();
 
 	/**
 	 * @return the application generated password to perform 
-	 * 	authenticated operations under this account. 
+	 * 	authenticated operations under this account. Only known right after the
+	 * 	account creation, or for accounts stored before the password was hashed.
+	 * 	The password itself is never persisted, see {@link #getPasswordHash()}.
 	 **/
 	public String getPassword() {
 		return password;
 	}
 
+	/**
+	 * @return the BCrypt hash of the password, persisted in place of the password.
+	 **/
+	public String getPasswordHash() {
+		return passwordHash;
+	}
+
 	/**
 	 * @return Collection of short URL id(s) registered
 	 *	under this account. 
@@ -84,6 +95,13 @@ public class Account extends BaseModel {
 		redirects.add(shortUrlId);
 	}
 
+	/**
+	 * @param the unique identifier to access this account
+	 **/
+	public void setId(String id) {
+		this.id = id;
+	}
+
 	/**
 	 * Sets the application generated password to this user account.
 	 * @param password
@@ -92,4 +110,11 @@ public class Account extends BaseModel {
 		this.password = password;
 	}
 
+	/**
+	 * @param passwordHash the BCrypt hash of the password
+	 **/
+	public void setPasswordHash(String passwordHash) {
+		this.passwordHash = passwordHash;
+	}
+
 }
@@ -0,0 +1,57 @@
+package org.urlshortener.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * <p>JSON serialization shared by all models and repositories.</p>
+ * <p>Holds a single Jackson {@link ObjectMapper} and one {@link ObjectReader}/{@link ObjectWriter}
+ * 	per model type, which are immutable, thread-safe and reuse the serializers resolved on first use.
+ * 	Writing to a stream never closes it, so callers can stream several documents into the same target.</p>
+ *
+ * @since 1.1
+ **/
+public final class ModelSerializer {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+	private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+	private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+	private ModelSerializer() {}
+
+	public static String toJson(Object model) throws IOException {
+		return writerFor(model.getClass()).writeValueAsString(model);
+	}
+
+	/**
+	 * @return the UTF-8 encoded JSON document of given model.
+	 **/
+	public static byte[] toJsonBytes(Object model) throws IOException {
+		return writerFor(model.getClass()).writeValueAsBytes(model);
+	}
+
+	/**
+	 * Writes the UTF-8 encoded JSON document of given model to the stream, without closing it.
+	 **/
+	public static void writeJson(Object model, OutputStream out) throws IOException {
+		writerFor(model.getClass()).writeValue(out, model);
+	}
+
+	public static <T> T fromJson(byte[] json, Class<T> type) throws IOException {
+		return READERS.computeIfAbsent(type, MAPPER::readerFor).readValue(json);
+	}
+
+	private static ObjectWriter writerFor(Class<?> type) {
+		return WRITERS.computeIfAbsent(type, MAPPER::writerFor);
+	}
+
+}
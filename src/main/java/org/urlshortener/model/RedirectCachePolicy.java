@@ -0,0 +1,59 @@
+package org.urlshortener.model;
+
+import static org.urlshortener.ApplicationConstants.REDIRECT_CACHE_PERMANENT_MAX_AGE_PROP;
+import static org.urlshortener.ApplicationConstants.REDIRECT_CACHE_TEMPORARY_MAX_AGE_PROP;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides for how long browsers and proxies may cache the redirect of a {@link RegisteredUrl}: permanent
+ * 	redirects for <code>urlshortener.redirect.cache.permanent-max-age</code> seconds (30 days), temporary
+ * 	ones for <code>...temporary-max-age</code> seconds (0). Redirects cached for 0 seconds, and redirects of
+ * 	URLs registered as not cacheable, are marked <code>no-store</code>.
+ *
+ * @since 1.1
+ * @see RedirectResponse
+ **/
+@Component
+public class RedirectCachePolicy {
+
+	private static final long DEFAULT_PERMANENT_MAX_AGE = 30L * 24 * 60 * 60;
+	private static final long DEFAULT_TEMPORARY_MAX_AGE = 0;
+
+	private final long permanentMaxAge;
+	private final long temporaryMaxAge;
+
+	@Autowired
+	public RedirectCachePolicy(Environment environment) {
+
+		this(environment.getProperty(REDIRECT_CACHE_PERMANENT_MAX_AGE_PROP, Long.class, DEFAULT_PERMANENT_MAX_AGE),
+				environment.getProperty(REDIRECT_CACHE_TEMPORARY_MAX_AGE_PROP, Long.class, DEFAULT_TEMPORARY_MAX_AGE));
+
+	}
+
+	/**
+	 * @param permanentMaxAge the seconds permanent redirects may be cached.
+	 * @param temporaryMaxAge the seconds temporary redirects may be cached.
+	 **/
+	public RedirectCachePolicy(long permanentMaxAge, long temporaryMaxAge) {
+
+		this.permanentMaxAge = Math.max(0, permanentMaxAge);
+		this.temporaryMaxAge = Math.max(0, temporaryMaxAge);
+
+	}
+
+	/**
+	 * @return the seconds the redirect of given URL may be cached, 0 if it must not be stored.
+	 **/
+	public long getMaxAge(RegisteredUrl url) {
+
+		if (!url.isCacheable())
+			return 0;
+		return url.getRedirectType() == HttpStatus.MOVED_PERMANENTLY.value() ? permanentMaxAge : temporaryMaxAge;
+
+	}
+
+}
@@ -0,0 +1,188 @@
+package org.urlshortener.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.urlshortener.controller.RedirectServer;
+
+/**
+ * <p>Redirect to a {@link RegisteredUrl}, prepared once and reused for every redirect request of its short URL.</p>
+ * <p>Holds the redirect status, the value of the <code>Location</code> header, the caching headers decided by
+ * 	the {@link RedirectCachePolicy} and the complete encoded heads of the HTTP/1.1 responses as written by the
+ * 	{@link RedirectServer}. Control and non-ASCII characters of the URL are percent-encoded, so that the header
+ * 	value is plain ASCII and can never break the response head.</p>
+ * <p>Cacheable redirects carry an <code>ETag</code>, so that a cache revalidating its copy is answered with
+ * 	<code>304 Not Modified</code>, and an <code>Expires</code> date for HTTP/1.0 caches. The encoded heads of
+ * 	those are prepared again once per second, as the <code>Expires</code> date moves on.</p>
+ *
+ * @since 1.1
+ * @see RegisteredUrl#getRedirectResponse(RedirectCachePolicy)
+ **/
+public final class RedirectResponse {
+
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+	private static final String NO_STORE = "no-store";
+	private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter
+			.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+	private final int status;
+	private final String location;
+	private final long maxAge;
+	private final String cacheControl;
+	private final String etag;
+	private volatile Heads heads;
+
+	RedirectResponse(int status, String url, long maxAge) {
+
+		this.status = status;
+		this.location = encodeLocation(url);
+		this.maxAge = maxAge;
+		this.cacheControl = maxAge > 0 ? "public, max-age=" + maxAge : NO_STORE;
+
+		CRC32 crc = new CRC32();
+		crc.update((status + " " + location).getBytes(StandardCharsets.US_ASCII));
+		this.etag = maxAge > 0 ? "\"" + Long.toHexString(crc.getValue()) + "\"" : null;
+		this.heads = new Heads(maxAge > 0 ? 0 : Long.MAX_VALUE);
+
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the value of the <code>Location</code> header.
+	 **/
+	public String getLocation() {
+		return location;
+	}
+
+	/**
+	 * @return true if browsers and proxies may cache the redirect.
+	 **/
+	public boolean isCacheable() {
+		return maxAge > 0;
+	}
+
+	/**
+	 * @return the seconds the redirect may be cached, 0 if it must not be stored.
+	 **/
+	public long getMaxAge() {
+		return maxAge;
+	}
+
+	/**
+	 * @return the value of the <code>Cache-Control</code> header.
+	 **/
+	public String getCacheControl() {
+		return cacheControl;
+	}
+
+	/**
+	 * @return the value of the <code>ETag</code> header, <code>null</code> if the redirect is not cacheable.
+	 **/
+	public String getETag() {
+		return etag;
+	}
+
+	/**
+	 * @param ifNoneMatch the value of the <code>If-None-Match</code> request header, may be <code>null</code>.
+	 * @return true if the client holds this redirect already and is to be answered with <code>304 Not Modified</code>.
+	 **/
+	public boolean isNotModified(String ifNoneMatch) {
+
+		if (etag == null || ifNoneMatch == null)
+			return false;
+		for (String tag: ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.startsWith("W/"))
+				tag = tag.substring(2);
+			if (tag.equals("*") || tag.equals(etag))
+				return true;
+		}
+		return false;
+
+	}
+
+	/**
+	 * @param notModified whether the head of the <code>304 Not Modified</code> response is requested.
+	 * @param now the current time in milliseconds.
+	 * @return the encoded head of the response, ending with the empty line. Must not be modified.
+	 **/
+	public byte[] getHead(boolean notModified, boolean keepAlive, long now) {
+
+		Heads current = heads;
+		long second = now / 1000;
+		if (current.second < second) {
+			current = new Heads(second);
+			heads = current;
+		}
+		return notModified
+				? keepAlive ? current.notModifiedKeepAlive : current.notModifiedClose
+				: keepAlive ? current.redirectKeepAlive : current.redirectClose;
+
+	}
+
+	/**
+	 * Encoded response heads, with the <code>Expires</code> date of the given second if cacheable.
+	 **/
+	private final class Heads {
+
+		private final long second;
+		private final byte[] redirectKeepAlive;
+		private final byte[] redirectClose;
+		private final byte[] notModifiedKeepAlive;
+		private final byte[] notModifiedClose;
+
+		private Heads(long second) {
+
+			this.second = second;
+			StringBuilder headers = new StringBuilder(128)
+					.append(HttpHeaders.LOCATION).append(": ").append(location).append("\r\n")
+					.append(HttpHeaders.CACHE_CONTROL).append(": ").append(cacheControl).append("\r\n");
+			if (etag != null)
+				headers.append(HttpHeaders.ETAG).append(": ").append(etag).append("\r\n")
+				.append(HttpHeaders.EXPIRES).append(": ").append(HTTP_DATE.format(Instant.ofEpochSecond(second + maxAge))).append("\r\n");
+
+			String redirect = "HTTP/1.1 " + status + " " + HttpStatus.valueOf(status).getReasonPhrase() + "\r\n"
+					+ headers + HttpHeaders.CONTENT_LENGTH + ": 0\r\n" + HttpHeaders.CONNECTION + ": ";
+			String notModified = "HTTP/1.1 304 " + HttpStatus.NOT_MODIFIED.getReasonPhrase() + "\r\n"
+					+ headers + HttpHeaders.CONNECTION + ": ";
+			this.redirectKeepAlive = (redirect + "keep-alive\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+			this.redirectClose = (redirect + "close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+			this.notModifiedKeepAlive = (notModified + "keep-alive\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+			this.notModifiedClose = (notModified + "close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+		}
+
+	}
+
+	private static String encodeLocation(String url) {
+
+		StringBuilder encoded = null;
+		for (int i = 0; i < url.length(); i++) {
+			char c = url.charAt(i);
+			if (c > 0x20 && c < 0x7f) {
+				if (encoded != null)
+					encoded.append(c);
+				continue;
+			}
+
+			if (encoded == null)
+				encoded = new StringBuilder(url.length() + 16).append(url, 0, i);
+			int end = Character.isHighSurrogate(c) && i + 1 < url.length() ? i + 2 : i + 1;
+			for (byte b: url.substring(i, end).getBytes(StandardCharsets.UTF_8))
+				encoded.append('%').append(HEX_DIGITS[(b >> 4) & 0xf]).append(HEX_DIGITS[b & 0xf]);
+			i = end - 1;
+		}
+		return encoded != null ? encoded.toString() : url;
+
+	}
+
+}
@@ -1,5 +1,6 @@
 package org.urlshortener.model;
 
+import static org.urlshortener.ApplicationConstants.CACHEABLE;
 import static org.urlshortener.ApplicationConstants.ID;
 import static org.urlshortener.ApplicationConstants.REDIRECT_TYPE;
 import static org.urlshortener.ApplicationConstants.URL;
@@ -13,6 +14,7 @@ import org.urlshortener.controller.RedirectController;
 import org.urlshortener.controller.UrlRegistrationController;
 import org.urlshortener.dataaccess.UrlRepository;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 /**
@@ -25,12 +27,15 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
  * @see UrlShortenerApp
  **/
 @Component
-@JsonPropertyOrder({ID, URL, REDIRECT_TYPE})
+@JsonPropertyOrder({ID, URL, REDIRECT_TYPE, CACHEABLE})
 public class RegisteredUrl extends BaseModel {
 
 	private int redirectType = HttpStatus.FOUND.value();
 	private String id;
 	@NotNull private String url;
+	private boolean cacheable = true;
+	/* Prepared on the first redirect, dropped whenever the redirect changes. */
+	private volatile RedirectResponse redirectResponse;
 
 	/**
 	 * @return the configured {@link HttpStatus} to redirect clients
@@ -41,6 +46,32 @@ public class RegisteredUrl extends BaseModel {
 		return redirectType;
 	}
 
+	/**
+	 * @return false if browsers and proxies must not cache the redirect, so that every
+	 * 	redirect request reaches the application.
+	 * @see RedirectCachePolicy
+	 **/
+	public boolean isCacheable() {
+		return cacheable;
+	}
+
+	/**
+	 * @return the redirect to the registered URL with the configured {@link HttpStatus} and caching headers,
+	 * 	prepared once for all redirect requests of this short URL.
+	 **/
+	@JsonIgnore
+	public RedirectResponse getRedirectResponse(RedirectCachePolicy cachePolicy) {
+
+		RedirectResponse response = redirectResponse;
+		long maxAge = cachePolicy.getMaxAge(this);
+		if (response == null || response.getMaxAge() != maxAge) {
+			response = new RedirectResponse(redirectType, url, maxAge);
+			redirectResponse = response;
+		}
+		return response;
+
+	}
+
 	/**
 	 * @return the registered full length URL
 	 **/
@@ -62,5 +93,28 @@ public class RegisteredUrl extends BaseModel {
 	public void setId(String id) {
 		this.id = id;
 	}
+
+	/**
+	 * @param the full length URL to redirect clients to
+	 **/
+	public void setUrl(String url) {
+		this.url = url;
+		this.redirectResponse = null;
+	}
+
+	/**
+	 * @param cacheable false if browsers and proxies must not cache the redirect
+	 **/
+	public void setCacheable(boolean cacheable) {
+		this.cacheable = cacheable;
+	}
+
+	/**
+	 * @param the {@link HttpStatus} to redirect clients with
+	 **/
+	public void setRedirectType(int redirectType) {
+		this.redirectType = redirectType;
+		this.redirectResponse = null;
+	}
 	
 }
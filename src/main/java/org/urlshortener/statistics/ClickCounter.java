@@ -0,0 +1,230 @@
+package org.urlshortener.statistics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.urlshortener.ApplicationError;
+import org.urlshortener.Logger;
+import org.urlshortener.dataaccess.storage.RecordStorage;
+
+/**
+ * <p>Counts the clicks, i.e. served redirects, of every short id without ever writing to the storage on
+ * 	the redirect path.</p>
+ * <p>Clicks are counted in memory by a {@link LongAdder} per short id, which spreads concurrent increments
+ * 	over striped cells instead of contending on a single one. A daemon thread periodically adds the clicks
+ * 	counted since the previous flush to the totals in the {@link RecordStorage}, all of them in one batch
+ * 	followed by a single sync. Clicks counted after the last flush are lost on a crash, never counted twice.</p>
+ * <p>Counters of short ids which were not clicked during a whole flush interval are retired after the flush,
+ * 	so that only the recently clicked ids are kept in memory. A click racing with the retirement of its counter
+ * 	is counted again on a fresh one. Clicks of deleted short ids still in flight are ignored.</p>
+ * <p>Each total is stored as its decimal digits, a valid JSON document for the file storage as well.</p>
+ *
+ * @since 1.1
+ **/
+public class ClickCounter implements Closeable {
+
+	private final RecordStorage storage;
+	private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+	/* The ids deleted recently, against the flush they were deleted before. */
+	private final Map<String, Long> deleted = new ConcurrentHashMap<>();
+	/* Only ever updated under the flush lock. */
+	private volatile long flushCount;
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final ScheduledExecutorService flusher;
+
+	/**
+	 * @param flushIntervalMillis the interval between two flushes, no periodic flush if not positive.
+	 **/
+	public ClickCounter(String name, RecordStorage storage, long flushIntervalMillis) {
+
+		this.storage = storage;
+		if (flushIntervalMillis > 0) {
+			flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+				Thread thread = new Thread(task, "click-flush-" + name);
+				thread.setDaemon(true);
+				return thread;
+			});
+			flusher.scheduleWithFixedDelay(() -> {
+				try {
+					flush();
+				} catch (IOException | RuntimeException e) {
+					Logger.error("Unable to flush the click counts: " + e);
+				}
+			}, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+		} else {
+			flusher = null;
+		}
+
+	}
+
+	public void increment(String id) {
+
+		for (;;) {
+
+			Counter counter = counters.get(id);
+			if (counter == null) {
+				//A redirect served just before the short id was deleted.
+				if (deleted.containsKey(id))
+					return;
+				counter = counters.computeIfAbsent(id, key -> new Counter());
+			}
+
+			/*
+			 * The click is counted before the retired flag is checked, while the flush sets the flag before
+			 * 	checking the clicks once more, so either the flush keeps the counter or the click is taken back.
+			 */
+			counter.clicks.increment();
+			if (!counter.retired)
+				return;
+			counter.clicks.decrement();
+
+		}
+
+	}
+
+	/**
+	 * @return the total number of clicks of given short id, including the ones not flushed yet.
+	 **/
+	public long getClicks(String id) {
+
+		Counter counter = counters.get(id);
+		if (counter != null && counter.total >= 0)
+			return counter.total + counter.clicks.sum() - counter.flushed;
+		long unflushed = counter != null ? counter.clicks.sum() : 0;
+		return readTotal(id) + unflushed;
+
+	}
+
+	/**
+	 * @return the number of short ids whose clicks are counted in memory.
+	 **/
+	int getCounterCount() {
+		return counters.size();
+	}
+
+	/**
+	 * Drops the clicks of a short id which is no longer registered.
+	 **/
+	public void delete(String id) throws IOException {
+
+		flushLock.lock();
+		try {
+			deleted.put(id, flushCount);
+			Counter counter = counters.remove(id);
+			if (counter != null)
+				counter.retired = true;
+			storage.delete(id);
+		} finally {
+			flushLock.unlock();
+		}
+
+	}
+
+	/**
+	 * Adds the clicks counted since the previous flush to the persisted totals and syncs them,
+	 * 	then retires the counters which were not clicked since the previous flush.
+	 **/
+	public void flush() throws IOException {
+
+		flushLock.lock();
+		try {
+
+			Map<String, byte[]> batch = new HashMap<>();
+			Map<Counter, long[]> flushed = new HashMap<>();
+			Map<String, Counter> idle = new HashMap<>();
+			for (Map.Entry<String, Counter> entry: counters.entrySet()) {
+
+				Counter counter = entry.getValue();
+				//Counters are never reset, a concurrent increment is simply part of the next flush.
+				long sum = counter.clicks.sum();
+				if (sum == counter.flushed) {
+					idle.put(entry.getKey(), counter);
+					continue;
+				}
+
+				long total = (counter.total >= 0 ? counter.total : readTotal(entry.getKey())) + sum - counter.flushed;
+				batch.put(entry.getKey(), Long.toString(total).getBytes(StandardCharsets.US_ASCII));
+				flushed.put(counter, new long[] { sum, total });
+
+			}
+			if (!batch.isEmpty()) {
+				storage.writeAll(batch);
+				storage.sync();
+				for (Map.Entry<Counter, long[]> entry: flushed.entrySet()) {
+					Counter counter = entry.getKey();
+					counter.flushed = entry.getValue()[0];
+					counter.total = entry.getValue()[1];
+				}
+				Logger.debug("Flushed the clicks of " + batch.size() + " short ids");
+			}
+
+			for (Map.Entry<String, Counter> entry: idle.entrySet()) {
+				Counter counter = entry.getValue();
+				counter.retired = true;
+				if (counter.clicks.sum() == counter.flushed)
+					counters.remove(entry.getKey(), counter);
+				else
+					counter.retired = false;
+			}
+			//Redirects in flight when a short id was deleted are over by now.
+			long count = flushCount++;
+			deleted.values().removeIf(deletedBefore -> deletedBefore < count);
+
+		} finally {
+			flushLock.unlock();
+		}
+
+	}
+
+	/**
+	 * Flushes the clicks counted so far and closes the storage.
+	 **/
+	@Override
+	public void close() throws IOException {
+
+		if (flusher != null) {
+			flusher.shutdown();
+			try {
+				flusher.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		flush();
+		storage.close();
+
+	}
+
+	private long readTotal(String id) {
+
+		try {
+			byte[] record = storage.read(id);
+			return record != null ? Long.parseLong(new String(record, StandardCharsets.US_ASCII)) : 0;
+		} catch (IOException e) {
+			Logger.error("Unable to read the click count of: " + id);
+			throw new ApplicationError("Unable to read the click count of: " + id, e);
+		}
+
+	}
+
+	private static final class Counter {
+
+		private final LongAdder clicks = new LongAdder();
+		/* The clicks already added to the total, and the persisted total or -1 until the first flush. */
+		private volatile long flushed;
+		private volatile long total = -1;
+		/* Set once the counter is removed from the map, clicks must be counted on a fresh one. */
+		private volatile boolean retired;
+
+	}
+
+}
@@ -0,0 +1,117 @@
+package org.urlshortener.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Bounded lock-free ring buffer handing the clicks over from the redirecting threads to the single thread
+ * 	aggregating them.</p>
+ * <p>A producer claims a slot by advancing the shared tail with a compare-and-set, fills it and publishes it
+ * 	by setting the slot's sequence. The consumer takes published slots in order and hands them back by
+ * 	advancing their sequence by the capacity. Producers never wait: once the consumer falls a full buffer
+ * 	behind, further clicks are dropped and counted instead.</p>
+ *
+ * @since 1.1
+ **/
+public class ClickEventBuffer {
+
+	private final int mask;
+	private final AtomicLongArray sequences;
+	private final String[] ids;
+	private final long[] times;
+	private final long[] fingerprints;
+	private final AtomicLong tail = new AtomicLong();
+	private final LongAdder dropped = new LongAdder();
+	/* Only ever accessed by the consumer. */
+	private long head;
+
+	/**
+	 * Consumes one click taken from the buffer.
+	 **/
+	@FunctionalInterface
+	public interface ClickConsumer {
+
+		void accept(String id, long time, long fingerprint);
+
+	}
+
+	/**
+	 * @param capacity the number of clicks buffered at most, rounded up to a power of two.
+	 **/
+	public ClickEventBuffer(int capacity) {
+
+		int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = size - 1;
+		this.sequences = new AtomicLongArray(size);
+		this.ids = new String[size];
+		this.times = new long[size];
+		this.fingerprints = new long[size];
+		for (int i = 0; i < size; i++)
+			sequences.set(i, i);
+
+	}
+
+	/**
+	 * Adds a click, safe to call from any number of threads.
+	 * @param fingerprint the hash identifying the client, see {@link HyperLogLog#hash(String, String)}.
+	 * @return false if the buffer is full and the click was dropped.
+	 **/
+	public boolean offer(String id, long time, long fingerprint) {
+
+		while (true) {
+			long position = tail.get();
+			int slot = (int) position & mask;
+			long available = sequences.get(slot) - position;
+			if (available == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					ids[slot] = id;
+					times[slot] = time;
+					fingerprints[slot] = fingerprint;
+					//Publishes the slot, the consumer reads it only after seeing this sequence.
+					sequences.lazySet(slot, position + 1);
+					return true;
+				}
+			} else if (available < 0) {
+				dropped.increment();
+				return false;
+			}
+		}
+
+	}
+
+	/**
+	 * Hands every published click over to the consumer, in order. Must only be called by a single thread.
+	 * @return the number of clicks drained.
+	 **/
+	public int drain(ClickConsumer consumer) {
+
+		int count = 0;
+		while (true) {
+			int slot = (int) head & mask;
+			if (sequences.get(slot) != head + 1)
+				return count;
+			String id = ids[slot];
+			long time = times[slot];
+			long fingerprint = fingerprints[slot];
+			ids[slot] = null;
+			sequences.lazySet(slot, head + mask + 1);
+			head++;
+			count++;
+			consumer.accept(id, time, fingerprint);
+		}
+
+	}
+
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * @return the number of clicks dropped so far because the buffer was full.
+	 **/
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+}
@@ -0,0 +1,160 @@
+package org.urlshortener.statistics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * <p>Clicks of one short id counted in minute buckets, rolled up into hour buckets and those into day buckets.</p>
+ * <p>Each coarser granularity keeps a watermark: its buckets hold every click of the finer buckets before the
+ * 	watermark, later clicks are only counted in the finer buckets until the next {@link #rollUp(long)}. A query
+ * 	therefore reads the coarse buckets up to the watermark and sums the finer ones after it, it never sees a
+ * 	click twice nor scans single clicks.</p>
+ * <p>Not thread-safe, owned by the thread aggregating the clicks.</p>
+ * <p>Record layout: <code>[byte version]</code> then for every granularity
+ * 	<code>[long watermark][int buckets]([long start][long clicks])*</code></p>
+ *
+ * @since 1.1
+ **/
+class ClickSeries {
+
+	private static final byte VERSION = 1;
+
+	private final Map<Granularity, NavigableMap<Long, Long>> buckets = new EnumMap<>(Granularity.class);
+	private final Map<Granularity, Long> rolledUpTo = new EnumMap<>(Granularity.class);
+
+	ClickSeries() {
+
+		for (Granularity granularity: Granularity.values()) {
+			buckets.put(granularity, new TreeMap<>());
+			rolledUpTo.put(granularity, Long.MIN_VALUE);
+		}
+
+	}
+
+	/**
+	 * Counts clicks at given time. Clicks arriving after their minute was rolled up are added to the coarser
+	 * 	buckets right away.
+	 **/
+	void add(long time, long clicks) {
+
+		Granularity granularity = Granularity.MINUTE;
+		do {
+			buckets.get(granularity).merge(granularity.floor(time), clicks, Long::sum);
+			granularity = granularity.coarser();
+		} while (granularity != null && granularity.finer().floor(time) < rolledUpTo.get(granularity));
+
+	}
+
+	/**
+	 * Rolls the finer buckets of every completed hour and day up into the coarser ones.
+	 * @return true if any bucket changed.
+	 **/
+	boolean rollUp(long now) {
+
+		boolean changed = false;
+		for (Granularity granularity = Granularity.HOUR; granularity != null; granularity = granularity.coarser()) {
+
+			long from = rolledUpTo.get(granularity);
+			long until = granularity.floor(now);
+			if (until <= from)
+				continue;
+			NavigableMap<Long, Long> coarse = buckets.get(granularity);
+			for (Map.Entry<Long, Long> bucket: buckets.get(granularity.finer()).subMap(from, true, until, false).entrySet())
+				coarse.merge(granularity.floor(bucket.getKey()), bucket.getValue(), Long::sum);
+			rolledUpTo.put(granularity, until);
+			changed = true;
+
+		}
+		return changed;
+
+	}
+
+	/**
+	 * Drops the buckets older than the retention of their granularity, as long as they are rolled up already.
+	 * @return true if any bucket was dropped.
+	 **/
+	boolean retain(long now, Map<Granularity, Integer> retention) {
+
+		boolean changed = false;
+		for (Granularity granularity: Granularity.values()) {
+
+			long limit = granularity.floor(now) - retention.get(granularity) * granularity.getMillis();
+			Granularity coarser = granularity.coarser();
+			if (coarser != null)
+				limit = Math.min(limit, rolledUpTo.get(coarser));
+			NavigableMap<Long, Long> expired = buckets.get(granularity).headMap(limit, false);
+			changed |= !expired.isEmpty();
+			expired.clear();
+
+		}
+		return changed;
+
+	}
+
+	/**
+	 * @return the clicks of the buckets of given granularity starting within the range, keyed by bucket start.
+	 * 	Buckets without clicks are left out.
+	 **/
+	NavigableMap<Long, Long> query(Granularity granularity, long from, long to) {
+
+		long start = granularity.floor(from);
+		if (start >= to)
+			return new TreeMap<>();
+
+		Granularity finer = granularity.finer();
+		if (finer == null)
+			return new TreeMap<>(buckets.get(granularity).subMap(start, true, to, false));
+
+		long watermark = rolledUpTo.get(granularity);
+		NavigableMap<Long, Long> result = new TreeMap<>(buckets.get(granularity).subMap(start, true, Math.min(to, Math.max(start, watermark)), false));
+		for (Map.Entry<Long, Long> bucket: query(finer, Math.max(start, watermark), to).entrySet())
+			result.merge(granularity.floor(bucket.getKey()), bucket.getValue(), Long::sum);
+		return result;
+
+	}
+
+	byte[] encode() throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(VERSION);
+		for (Granularity granularity: Granularity.values()) {
+			out.writeLong(rolledUpTo.get(granularity));
+			NavigableMap<Long, Long> series = buckets.get(granularity);
+			out.writeInt(series.size());
+			for (Map.Entry<Long, Long> bucket: series.entrySet()) {
+				out.writeLong(bucket.getKey());
+				out.writeLong(bucket.getValue());
+			}
+		}
+		out.flush();
+		return bytes.toByteArray();
+
+	}
+
+	static ClickSeries decode(byte[] record) throws IOException {
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+		byte version = in.readByte();
+		if (version != VERSION)
+			throw new IOException("Unsupported click series version: " + version);
+
+		ClickSeries series = new ClickSeries();
+		for (Granularity granularity: Granularity.values()) {
+			series.rolledUpTo.put(granularity, in.readLong());
+			NavigableMap<Long, Long> buckets = series.buckets.get(granularity);
+			for (int i = in.readInt(); i > 0; i--)
+				buckets.put(in.readLong(), in.readLong());
+		}
+		return series;
+
+	}
+
+}
@@ -0,0 +1,315 @@
+package org.urlshortener.statistics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.urlshortener.ApplicationError;
+import org.urlshortener.Logger;
+import org.urlshortener.dataaccess.storage.RecordStorage;
+
+/**
+ * <p>Aggregates the clicks of every short id into a {@link ClickSeries} of minute, hour and day buckets and
+ * 	a {@link HyperLogLog} sketch of its unique visitors, and feeds them to a {@link HotLinkTracker}.</p>
+ * <p>Redirecting threads only offer their clicks to a {@link ClickEventBuffer}. A single thread drains it
+ * 	every 100 ms into the series, sketches and hot links, which are thus never updated concurrently: queries and deletions are
+ * 	run on that thread as well. Every flush interval the changed series are rolled up, trimmed to their
+ * 	retention and written to their {@link RecordStorage} in one batch, the changed sketches to theirs. Short
+ * 	ids left untouched since the previous flush are then released from memory.</p>
+ * <p>The clicks of a deleted short id still in flight are ignored until the flush following the one after
+ * 	its deletion, so that they cannot write its series back.</p>
+ *
+ * @since 1.1
+ **/
+public class ClickSeriesAggregator implements Closeable {
+
+	private static final long DRAIN_INTERVAL = 100;
+
+	private final RecordStorage storage;
+	private final RecordStorage visitorStorage;
+	private final ClickEventBuffer events;
+	private final Map<Granularity, Integer> retention;
+	private final int visitorPrecision;
+	private final HotLinkTracker hotLinks;
+	private final ScheduledExecutorService aggregator;
+	/* Only ever accessed by the aggregator thread. */
+	private final Map<String, Entry> series = new HashMap<>();
+	/* The deleted short ids, with the flush count at their deletion. */
+	private final Map<String, Long> deleted = new HashMap<>();
+	private long flushCount;
+	private long reportedDrops;
+
+	/**
+	 * @param retention the number of buckets kept for each granularity.
+	 * @param visitorPrecision the precision of new unique visitor sketches.
+	 * @param flushIntervalMillis the interval between two flushes, no periodic flush if not positive.
+	 **/
+	public ClickSeriesAggregator(String name, RecordStorage storage, RecordStorage visitorStorage, int bufferSize,
+			Map<Granularity, Integer> retention, int visitorPrecision, HotLinkTracker hotLinks, long flushIntervalMillis) {
+
+		this.storage = storage;
+		this.visitorStorage = visitorStorage;
+		this.events = new ClickEventBuffer(bufferSize);
+		this.retention = retention;
+		this.visitorPrecision = visitorPrecision;
+		this.hotLinks = hotLinks;
+		this.aggregator = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "click-series-" + name);
+			thread.setDaemon(true);
+			return thread;
+		});
+		aggregator.scheduleWithFixedDelay(() -> {
+			try {
+				drain();
+			} catch (RuntimeException e) {
+				Logger.error("Unable to aggregate the clicks: " + e);
+			}
+		}, DRAIN_INTERVAL, DRAIN_INTERVAL, TimeUnit.MILLISECONDS);
+		if (flushIntervalMillis > 0) {
+			aggregator.scheduleWithFixedDelay(() -> {
+				try {
+					flushSeries();
+				} catch (IOException | RuntimeException e) {
+					Logger.error("Unable to flush the click series: " + e);
+				}
+			}, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+		}
+
+	}
+
+	/**
+	 * Records a click at given time without blocking.
+	 * @param fingerprint the hash identifying the client, see {@link HyperLogLog#hash(String, String)}.
+	 * @return false if the click was dropped as the aggregator fell behind.
+	 **/
+	public boolean record(String id, long time, long fingerprint) {
+		return events.offer(id, time, fingerprint);
+	}
+
+	/**
+	 * @return the clicks of given short id in the buckets of given granularity starting within
+	 * 	<code>[from, to)</code>, keyed by bucket start.
+	 **/
+	public NavigableMap<Long, Long> query(String id, Granularity granularity, long from, long to) throws IOException {
+
+		return call(() -> {
+			drain();
+			Entry entry = load(id, System.currentTimeMillis());
+			return entry.series.query(granularity, from, to);
+		});
+
+	}
+
+	/**
+	 * @return a copy of the unique visitor sketch of given short id.
+	 **/
+	public HyperLogLog queryVisitors(String id) throws IOException {
+
+		return call(() -> {
+			drain();
+			Entry entry = load(id, System.currentTimeMillis());
+			return new HyperLogLog(loadVisitors(id, entry));
+		});
+
+	}
+
+	/**
+	 * Drops the series of a short id which is no longer registered.
+	 **/
+	public void delete(String id) throws IOException {
+
+		call(() -> {
+			drain();
+			series.remove(id);
+			deleted.put(id, flushCount);
+			storage.delete(id);
+			visitorStorage.delete(id);
+			return null;
+		});
+
+	}
+
+	/**
+	 * Aggregates the buffered clicks and persists every changed series.
+	 **/
+	public void flush() throws IOException {
+
+		call(() -> {
+			flushSeries();
+			return null;
+		});
+
+	}
+
+	public int getBufferCapacity() {
+		return events.getCapacity();
+	}
+
+	public long getDroppedCount() {
+		return events.getDroppedCount();
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		try {
+			flush();
+		} finally {
+			aggregator.shutdown();
+			try {
+				aggregator.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			try {
+				storage.close();
+			} finally {
+				visitorStorage.close();
+			}
+		}
+
+	}
+
+	private void drain() {
+
+		long now = System.currentTimeMillis();
+		events.drain((id, time, fingerprint) -> {
+			if (deleted.containsKey(id))
+				return;
+			hotLinks.record(id, time);
+			Entry entry = load(id, now);
+			entry.series.add(time, 1);
+			entry.dirty = true;
+			entry.visitorsDirty |= loadVisitors(id, entry).add(fingerprint);
+		});
+		hotLinks.publish(now);
+
+	}
+
+	private void flushSeries() throws IOException {
+
+		drain();
+		long now = System.currentTimeMillis();
+		Map<String, byte[]> batch = new HashMap<>();
+		Map<String, byte[]> visitorBatch = new HashMap<>();
+		for (Map.Entry<String, Entry> entry: series.entrySet()) {
+			Entry value = entry.getValue();
+			value.dirty |= value.series.rollUp(now) | value.series.retain(now, retention);
+			if (value.dirty)
+				batch.put(entry.getKey(), value.series.encode());
+			if (value.visitorsDirty)
+				visitorBatch.put(entry.getKey(), value.visitors.encode());
+		}
+
+		if (!batch.isEmpty()) {
+			storage.writeAll(batch);
+			storage.sync();
+		}
+		if (!visitorBatch.isEmpty()) {
+			visitorStorage.writeAll(visitorBatch);
+			visitorStorage.sync();
+		}
+
+		for (Iterator<Entry> entries = series.values().iterator(); entries.hasNext(); ) {
+			Entry entry = entries.next();
+			if (!entry.dirty && !entry.visitorsDirty && !entry.touched)
+				entries.remove();
+			entry.dirty = false;
+			entry.visitorsDirty = false;
+			entry.touched = false;
+		}
+
+		long drops = events.getDroppedCount();
+		if (drops > reportedDrops) {
+			Logger.error("Dropped " + (drops - reportedDrops) + " clicks from the click series, the buffer of "
+					+ events.getCapacity() + " clicks was full");
+			reportedDrops = drops;
+		}
+
+		long count = flushCount++;
+		deleted.values().removeIf(d -> d < count);
+
+	}
+
+	private Entry load(String id, long now) {
+
+		Entry entry = series.get(id);
+		if (entry == null) {
+			byte[] record;
+			try {
+				record = storage.read(id);
+				entry = new Entry(record != null ? ClickSeries.decode(record) : new ClickSeries());
+			} catch (IOException e) {
+				Logger.error("Unable to read the click series of: " + id);
+				throw new ApplicationError("Unable to read the click series of: " + id, e);
+			}
+			entry.dirty = entry.series.rollUp(now) | entry.series.retain(now, retention);
+			series.put(id, entry);
+		}
+		entry.touched = true;
+		return entry;
+
+	}
+
+	/**
+	 * Reads the unique visitor sketch of a loaded short id on first use only, as the series are more often
+	 * 	queried alone.
+	 **/
+	private HyperLogLog loadVisitors(String id, Entry entry) {
+
+		if (entry.visitors == null) {
+			try {
+				byte[] record = visitorStorage.read(id);
+				entry.visitors = record != null ? HyperLogLog.decode(record) : new HyperLogLog(visitorPrecision);
+			} catch (IOException e) {
+				Logger.error("Unable to read the unique visitors of: " + id);
+				throw new ApplicationError("Unable to read the unique visitors of: " + id, e);
+			}
+		}
+		return entry.visitors;
+
+	}
+
+	private <T> T call(Callable<T> task) throws IOException {
+
+		try {
+			return aggregator.submit(task).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the click series", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new ApplicationError("Click series task failed", e.getCause());
+		}
+
+	}
+
+	private static final class Entry {
+
+		private final ClickSeries series;
+		private HyperLogLog visitors;
+		/* Changed since the last flush, and accessed since the last flush. */
+		private boolean dirty;
+		private boolean visitorsDirty;
+		private boolean touched;
+
+		private Entry(ClickSeries series) {
+			this.series = series;
+		}
+
+	}
+
+}
@@ -0,0 +1,220 @@
+package org.urlshortener.statistics;
+
+import static org.urlshortener.ApplicationConstants.CLICKS_REPO_PATH;
+import static org.urlshortener.ApplicationConstants.CLICK_SERIES_REPO_PATH;
+import static org.urlshortener.ApplicationConstants.STATISTICS_BUFFER_SIZE_PROP;
+import static org.urlshortener.ApplicationConstants.STATISTICS_FLUSH_INTERVAL_PROP;
+import static org.urlshortener.ApplicationConstants.STATISTICS_HOT_LINKS_CAPACITY_PROP;
+import static org.urlshortener.ApplicationConstants.STATISTICS_HOT_LINKS_SLOTS_PROP;
+import static org.urlshortener.ApplicationConstants.STATISTICS_HOT_LINKS_TOP_PROP;
+import static org.urlshortener.ApplicationConstants.STATISTICS_HOT_LINKS_WINDOW_PROP;
+import static org.urlshortener.ApplicationConstants.STATISTICS_RETENTION_PROP_PREFIX;
+import static org.urlshortener.ApplicationConstants.STATISTICS_VISITORS_PRECISION_PROP;
+import static org.urlshortener.ApplicationConstants.VISITORS_REPO_PATH;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.urlshortener.ApplicationError;
+import org.urlshortener.Logger;
+import org.urlshortener.controller.RedirectController;
+import org.urlshortener.dataaccess.RepositorySettings;
+import org.urlshortener.dataaccess.UrlRepository;
+import org.urlshortener.dataaccess.storage.RecordStorage;
+
+/**
+ * <p>Records the redirects served for every short id, whichever of {@link RedirectController}, the redirect
+ * 	filter or the redirect server serves them, and answers the statistics about them.</p>
+ * <p>Recording a click never blocks nor writes to a storage. The total clicks are persisted in batches by a
+ * 	{@link ClickCounter} every <code>urlshortener.statistics.flush-interval-ms</code>, the clicks per minute,
+ * 	hour and day by a {@link ClickSeriesAggregator}, which keeps
+ * 	<code>urlshortener.statistics.retention.minutes|hours|days</code> buckets of each. The same aggregator
+ * 	estimates the unique visitors, told apart by their address and user agent, with a {@link HyperLogLog}
+ * 	sketch of <code>urlshortener.statistics.visitors.precision</code> per short id. The statistics are
+ * 	stored like the repositories named "clicks", "clickSeries" and "visitors", hence configured with their
+ * 	<code>urlshortener.repository.&lt;name&gt;.*</code> settings.</p>
+ * <p>The aggregator also feeds a {@link HotLinkTracker} with the <code>urlshortener.statistics.hot-links.top</code>
+ * 	most clicked short ids of the last <code>urlshortener.statistics.hot-links.window-ms</code>. With
+ * 	<code>urlshortener.repository.registeredUrls.cache.pin-hot</code> they are kept in the cache of the registered URLs.</p>
+ *
+ * @since 1.1
+ **/
+@Component
+public class ClickTracker {
+
+	private static final long DEFAULT_FLUSH_INTERVAL = 5000;
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+	private static final int DEFAULT_MINUTE_RETENTION = 24 * 60;
+	private static final int DEFAULT_HOUR_RETENTION = 30 * 24;
+	private static final int DEFAULT_DAY_RETENTION = 365;
+	/* 2 KB per dense sketch, within a standard error of 2.3%. */
+	private static final int DEFAULT_VISITORS_PRECISION = 11;
+	private static final int DEFAULT_HOT_LINKS_TOP = 10;
+	private static final int DEFAULT_HOT_LINKS_CAPACITY = 1024;
+	private static final long DEFAULT_HOT_LINKS_WINDOW = 60_000;
+	private static final int DEFAULT_HOT_LINKS_SLOTS = 6;
+
+	private final ClickCounter clicks;
+	private final ClickSeriesAggregator series;
+	private final HotLinkTracker hotLinks;
+	private final Map<Granularity, Integer> retention = new EnumMap<>(Granularity.class);
+
+	@Autowired
+	public ClickTracker(RepositorySettings settings, Environment environment, UrlRepository urlRepo) {
+
+		long flushInterval = environment.getProperty(STATISTICS_FLUSH_INTERVAL_PROP, Long.class, DEFAULT_FLUSH_INTERVAL);
+		retention.put(Granularity.MINUTE, getRetention(environment, Granularity.MINUTE, DEFAULT_MINUTE_RETENTION));
+		retention.put(Granularity.HOUR, getRetention(environment, Granularity.HOUR, DEFAULT_HOUR_RETENTION));
+		retention.put(Granularity.DAY, getRetention(environment, Granularity.DAY, DEFAULT_DAY_RETENTION));
+
+		this.hotLinks = new HotLinkTracker(
+				environment.getProperty(STATISTICS_HOT_LINKS_TOP_PROP, Integer.class, DEFAULT_HOT_LINKS_TOP),
+				environment.getProperty(STATISTICS_HOT_LINKS_CAPACITY_PROP, Integer.class, DEFAULT_HOT_LINKS_CAPACITY),
+				environment.getProperty(STATISTICS_HOT_LINKS_WINDOW_PROP, Long.class, DEFAULT_HOT_LINKS_WINDOW),
+				environment.getProperty(STATISTICS_HOT_LINKS_SLOTS_PROP, Integer.class, DEFAULT_HOT_LINKS_SLOTS));
+		if (settings.isCachePinningHotElements(urlRepo.getName()))
+			urlRepo.pinInCache(hotLinks::isHot);
+
+		this.clicks = new ClickCounter("clicks", openStorage(settings, CLICKS_REPO_PATH), flushInterval);
+		this.series = new ClickSeriesAggregator("clickSeries", openStorage(settings, CLICK_SERIES_REPO_PATH),
+				openStorage(settings, VISITORS_REPO_PATH),
+				environment.getProperty(STATISTICS_BUFFER_SIZE_PROP, Integer.class, DEFAULT_BUFFER_SIZE), retention,
+				environment.getProperty(STATISTICS_VISITORS_PRECISION_PROP, Integer.class, DEFAULT_VISITORS_PRECISION),
+				hotLinks, flushInterval);
+
+	}
+
+	/**
+	 * Records a redirect served for given short id.
+	 * @param clientAddress the address of the client, the user agent tells apart the visitors behind it.
+	 **/
+	public void recordClick(String id, String clientAddress, String userAgent) {
+
+		clicks.increment(id);
+		series.record(id, System.currentTimeMillis(), HyperLogLog.hash(clientAddress, userAgent));
+
+	}
+
+	public long getClicks(String id) {
+		return clicks.getClicks(id);
+	}
+
+	/**
+	 * @return the clicks of given short id in the buckets of given granularity starting within
+	 * 	<code>[from, to)</code>, keyed by bucket start. Buckets without clicks are left out.
+	 **/
+	public NavigableMap<Long, Long> getSeries(String id, Granularity granularity, long from, long to) {
+
+		try {
+			return series.query(id, granularity, from, to);
+		} catch (IOException e) {
+			Logger.error("Unable to read the click series of: " + id);
+			throw new ApplicationError("Unable to read the click series of: " + id, e);
+		}
+
+	}
+
+	/**
+	 * @return the sketch of the unique visitors of given short id, to be estimated or merged.
+	 **/
+	public HyperLogLog getVisitors(String id) {
+
+		try {
+			return series.queryVisitors(id);
+		} catch (IOException e) {
+			Logger.error("Unable to read the unique visitors of: " + id);
+			throw new ApplicationError("Unable to read the unique visitors of: " + id, e);
+		}
+
+	}
+
+	/**
+	 * @return the most clicked short ids of the sliding window, refreshed as the clicks are aggregated.
+	 **/
+	public HotLinkTracker getHotLinks() {
+		return hotLinks;
+	}
+
+	/**
+	 * @return the number of buckets kept for given granularity.
+	 **/
+	public int getRetention(Granularity granularity) {
+		return retention.get(granularity);
+	}
+
+	/**
+	 * @return the number of clicks left out of the series so far as the aggregation fell behind.
+	 **/
+	public long getDroppedCount() {
+		return series.getDroppedCount();
+	}
+
+	public int getBufferCapacity() {
+		return series.getBufferCapacity();
+	}
+
+	/**
+	 * Drops the statistics of a short id which is no longer registered.
+	 **/
+	public void delete(String id) {
+
+		try {
+			clicks.delete(id);
+			series.delete(id);
+		} catch (IOException e) {
+			Logger.error("Unable to delete the statistics of: " + id);
+			throw new ApplicationError("Unable to delete the statistics of: " + id, e);
+		}
+
+	}
+
+	/**
+	 * Persists the clicks recorded so far without waiting for the next periodic flush.
+	 **/
+	public void flush() throws IOException {
+
+		clicks.flush();
+		series.flush();
+
+	}
+
+	@PreDestroy
+	public void close() throws IOException {
+
+		try {
+			clicks.close();
+		} finally {
+			series.close();
+		}
+
+	}
+
+	private static int getRetention(Environment environment, Granularity granularity, int defaultValue) {
+
+		String name = granularity.name().toLowerCase() + "s";
+		return Math.max(1, environment.getProperty(STATISTICS_RETENTION_PROP_PREFIX + name, Integer.class, defaultValue));
+
+	}
+
+	private static RecordStorage openStorage(RepositorySettings settings, String path) {
+
+		File repo = new File(path);
+		try {
+			repo.mkdirs();
+			return settings.openStorage(repo);
+		} catch (IOException e) {
+			Logger.error("Unable to open the statistics of: " + path);
+			throw new ApplicationError("Unable to open the statistics of: " + path, e);
+		}
+
+	}
+
+}
@@ -0,0 +1,46 @@
+package org.urlshortener.statistics;
+
+/**
+ * Sizes of the time buckets clicks are aggregated in, from the finest to the coarsest. Buckets are aligned
+ * 	to the epoch, i.e. start on full UTC minutes, hours and days.
+ *
+ * @since 1.1
+ **/
+public enum Granularity {
+
+	MINUTE(60_000L),
+	HOUR(60 * 60_000L),
+	DAY(24 * 60 * 60_000L);
+
+	private final long millis;
+
+	Granularity(long millis) {
+		this.millis = millis;
+	}
+
+	public long getMillis() {
+		return millis;
+	}
+
+	/**
+	 * @return the start of the bucket given time falls in.
+	 **/
+	public long floor(long time) {
+		return Math.floorDiv(time, millis) * millis;
+	}
+
+	/**
+	 * @return the granularity this one is rolled up from, or <code>null</code> for the finest.
+	 **/
+	public Granularity finer() {
+		return ordinal() > 0 ? values()[ordinal() - 1] : null;
+	}
+
+	/**
+	 * @return the granularity rolled up from this one, or <code>null</code> for the coarsest.
+	 **/
+	public Granularity coarser() {
+		return ordinal() < values().length - 1 ? values()[ordinal() + 1] : null;
+	}
+
+}
@@ -0,0 +1,186 @@
+package org.urlshortener.statistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * <p>Tracks the short ids redirected most often within a sliding window, e.g. the last minute, in fixed memory.</p>
+ * <p>The window is divided into slots, each summarizing the clicks of its period with a {@link SpaceSaving}
+ * 	summary of a fixed number of counters. A slot is reused once its period left the window, so the window
+ * 	slides by one slot at a time. The summaries are only updated by the thread aggregating the clicks, which
+ * 	publishes the top links of the window as an immutable snapshot read without any lock, e.g. by a cache
+ * 	deciding whether an element may be evicted.</p>
+ *
+ * @since 1.1
+ **/
+public class HotLinkTracker {
+
+	/**
+	 * A short id within the top links, with its clicks in the window. The clicks exceed the true number by
+	 * 	the error at most.
+	 **/
+	public static final class HotLink {
+
+		private final String id;
+		private final long clicks;
+		private final long error;
+
+		private HotLink(String id, long clicks, long error) {
+
+			this.id = id;
+			this.clicks = clicks;
+			this.error = error;
+
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public long getClicks() {
+			return clicks;
+		}
+
+		public long getError() {
+			return error;
+		}
+
+	}
+
+	private static final Comparator<HotLink> BY_CLICKS = Comparator.comparingLong(HotLink::getClicks).thenComparing(HotLink::getId, Comparator.reverseOrder());
+
+	private final int top;
+	private final long slotMillis;
+	private final SpaceSaving[] slots;
+	private final long[] slotEpochs;
+
+	/* Only ever accessed by the aggregating thread. */
+	private boolean changed;
+	private long publishedEpoch = Long.MIN_VALUE;
+
+	private volatile List<HotLink> topLinks = Collections.emptyList();
+	private volatile Set<String> topIds = Collections.emptySet();
+
+	/**
+	 * @param top the number of links reported.
+	 * @param capacity the number of counters of each slot, at least <code>top</code>.
+	 * @param windowMillis the length of the sliding window.
+	 * @param slotCount the number of slots the window is divided into.
+	 **/
+	public HotLinkTracker(int top, int capacity, long windowMillis, int slotCount) {
+
+		this.top = Math.max(1, top);
+		int count = Math.max(1, slotCount);
+		this.slotMillis = Math.max(1, windowMillis / count);
+		this.slots = new SpaceSaving[count];
+		this.slotEpochs = new long[count];
+		for (int i = 0; i < count; i++) {
+			slots[i] = new SpaceSaving(Math.max(this.top, capacity));
+			slotEpochs[i] = Long.MIN_VALUE;
+		}
+
+	}
+
+	/**
+	 * Counts a click at given time. Must only be called by the aggregating thread.
+	 **/
+	void record(String id, long time) {
+
+		long epoch = Math.floorDiv(time, slotMillis);
+		int slot = (int) Math.floorMod(epoch, (long) slots.length);
+		if (slotEpochs[slot] < epoch) {
+			slots[slot].clear();
+			slotEpochs[slot] = epoch;
+		} else if (slotEpochs[slot] > epoch) {
+			//Left the window already.
+			return;
+		}
+		slots[slot].offer(id);
+		changed = true;
+
+	}
+
+	/**
+	 * Publishes the top links of the window ending at given time, if it changed since the last call.
+	 * 	Must only be called by the aggregating thread.
+	 **/
+	void publish(long now) {
+
+		long epoch = Math.floorDiv(now, slotMillis);
+		if (!changed && epoch == publishedEpoch)
+			return;
+
+		/*
+		 * Sums the counts of every id over the slots of the window. An id missing from a slot may still
+		 * 	have been clicked as often as the least frequent counter of that slot, which is added to both
+		 * 	its count and its error, so that the count remains an upper bound of the true clicks.
+		 */
+		Map<String, long[]> window = new HashMap<>();
+		long missingError = 0;
+		List<SpaceSaving> current = new ArrayList<>();
+		for (int i = 0; i < slots.length; i++) {
+			if (slotEpochs[i] <= epoch - slots.length || slotEpochs[i] > epoch)
+				continue;
+			current.add(slots[i]);
+			missingError += slots[i].getMinCount();
+			slots[i].forEach(counter -> {
+				long[] sum = window.computeIfAbsent(counter.getId(), id -> new long[2]);
+				sum[0] += counter.getCount();
+				sum[1] += counter.getError();
+			});
+		}
+
+		PriorityQueue<HotLink> best = new PriorityQueue<>(top + 1, BY_CLICKS);
+		for (Map.Entry<String, long[]> entry: window.entrySet()) {
+			long clicks = entry.getValue()[0];
+			long error = entry.getValue()[1];
+			if (missingError > 0)
+				for (SpaceSaving slot: current)
+					if (!slot.contains(entry.getKey())) {
+						clicks += slot.getMinCount();
+						error += slot.getMinCount();
+					}
+			best.add(new HotLink(entry.getKey(), clicks, error));
+			if (best.size() > top)
+				best.poll();
+		}
+
+		List<HotLink> links = new ArrayList<>(best);
+		links.sort(BY_CLICKS.reversed());
+		Set<String> ids = new HashSet<>();
+		for (HotLink link: links)
+			ids.add(link.getId());
+
+		topLinks = Collections.unmodifiableList(links);
+		topIds = Collections.unmodifiableSet(ids);
+		changed = false;
+		publishedEpoch = epoch;
+
+	}
+
+	/**
+	 * @return the top links of the window as last published, the most clicked first.
+	 **/
+	public List<HotLink> getTopLinks() {
+		return topLinks;
+	}
+
+	/**
+	 * @return true if given short id is among the top links as last published, safe to call from any thread.
+	 **/
+	public boolean isHot(String id) {
+		return topIds.contains(id);
+	}
+
+	public long getWindowMillis() {
+		return slotMillis * slots.length;
+	}
+
+}
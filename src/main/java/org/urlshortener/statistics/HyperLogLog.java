@@ -0,0 +1,257 @@
+package org.urlshortener.statistics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * <p>HyperLogLog sketch estimating the number of distinct hashes added to it, e.g. unique visitors of a short id,
+ * 	within a relative standard error of <code>1.04 / sqrt(2^precision)</code> in at most <code>2^precision</code>
+ * 	bytes.</p>
+ * <p>Sketches start sparse, as a sorted list of the registers set so far, and switch to the dense array of registers
+ * 	once the list would take half of its size, so that rarely visited short ids cost a few bytes only. Sketches of
+ * 	the same precision are merged by keeping the larger of each register, the union of sketches filled on
+ * 	different nodes or over different periods is thus estimated as if it had been filled at once.</p>
+ * <p>Not thread-safe.</p>
+ * <p>Record layout: <code>[byte version][byte precision][int sparse entries or -1]</code> followed by the
+ * 	<code>[int index &lt;&lt; 8 | rank]</code> sparse entries or the <code>2^precision</code> register bytes.</p>
+ *
+ * @since 1.1
+ **/
+public class HyperLogLog {
+
+	public static final int MIN_PRECISION = 4;
+	public static final int MAX_PRECISION = 16;
+
+	private static final byte VERSION = 1;
+	private static final int DENSE = -1;
+
+	private final int precision;
+	/* Dense registers, null while sparse. */
+	private byte[] registers;
+	private int[] sparse = new int[4];
+	private int sparseSize;
+
+	public HyperLogLog(int precision) {
+
+		if (precision < MIN_PRECISION || precision > MAX_PRECISION)
+			throw new IllegalArgumentException("Precision must be within " + MIN_PRECISION + " and " + MAX_PRECISION + ": " + precision);
+		this.precision = precision;
+
+	}
+
+	/**
+	 * Copies the registers of given sketch.
+	 **/
+	public HyperLogLog(HyperLogLog other) {
+
+		this.precision = other.precision;
+		this.registers = other.registers != null ? other.registers.clone() : null;
+		this.sparse = other.sparse.clone();
+		this.sparseSize = other.sparseSize;
+
+	}
+
+	/**
+	 * Adds a 64-bit hash of an element, see {@link #hash(String, String)}.
+	 * @return true if the sketch changed.
+	 **/
+	public boolean add(long hash) {
+
+		int index = (int) (hash >>> (64 - precision));
+		//The guard bit bounds the rank for hashes whose remaining bits are all zero.
+		int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+		return update(index, rank);
+
+	}
+
+	/**
+	 * Adds every element of given sketch to this one.
+	 * @return true if the sketch changed.
+	 **/
+	public boolean merge(HyperLogLog other) {
+
+		if (other.precision != precision)
+			throw new IllegalArgumentException("Cannot merge sketches of precision " + other.precision + " into " + precision);
+
+		boolean changed = false;
+		if (other.registers != null) {
+			for (int i = 0; i < other.registers.length; i++)
+				if (other.registers[i] != 0)
+					changed |= update(i, other.registers[i]);
+		} else {
+			for (int i = 0; i < other.sparseSize; i++)
+				changed |= update(other.sparse[i] >>> 8, other.sparse[i] & 0xff);
+		}
+		return changed;
+
+	}
+
+	/**
+	 * @return the estimated number of distinct elements added.
+	 **/
+	public long estimate() {
+
+		int m = 1 << precision;
+		double sum = 0;
+		int zeros;
+		if (registers != null) {
+			zeros = 0;
+			for (byte register: registers) {
+				sum += 1.0 / (1L << register);
+				if (register == 0)
+					zeros++;
+			}
+		} else {
+			zeros = m - sparseSize;
+			sum = zeros;
+			for (int i = 0; i < sparseSize; i++)
+				sum += 1.0 / (1L << (sparse[i] & 0xff));
+		}
+
+		double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+		double estimate = alpha * m * m / sum;
+		//Small cardinalities are estimated more accurately by linear counting of the empty registers.
+		if (estimate <= 2.5 * m && zeros > 0)
+			estimate = m * Math.log((double) m / zeros);
+		return Math.round(estimate);
+
+	}
+
+	/**
+	 * @return the relative standard error of the estimate.
+	 **/
+	public double getStandardError() {
+		return 1.04 / Math.sqrt(1 << precision);
+	}
+
+	public int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * @return the number of bytes the sketch occupies, roughly.
+	 **/
+	public int getSizeInBytes() {
+		return registers != null ? registers.length : sparse.length * Integer.BYTES;
+	}
+
+	public byte[] encode() throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(VERSION);
+		out.writeByte(precision);
+		if (registers != null) {
+			out.writeInt(DENSE);
+			out.write(registers);
+		} else {
+			out.writeInt(sparseSize);
+			for (int i = 0; i < sparseSize; i++)
+				out.writeInt(sparse[i]);
+		}
+		out.flush();
+		return bytes.toByteArray();
+
+	}
+
+	public static HyperLogLog decode(byte[] record) throws IOException {
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+		byte version = in.readByte();
+		if (version != VERSION)
+			throw new IOException("Unsupported sketch version: " + version);
+
+		HyperLogLog sketch = new HyperLogLog(in.readByte());
+		int entries = in.readInt();
+		if (entries == DENSE) {
+			sketch.registers = new byte[1 << sketch.precision];
+			in.readFully(sketch.registers);
+		} else {
+			sketch.sparse = new int[Math.max(4, entries)];
+			for (int i = 0; i < entries; i++)
+				sketch.sparse[i] = in.readInt();
+			sketch.sparseSize = entries;
+		}
+		return sketch;
+
+	}
+
+	/**
+	 * 64-bit FNV-1a of the client address and user agent finished with the MurmurHash3 mixer, so that every
+	 * 	bit of the fingerprint depends on every character.
+	 **/
+	public static long hash(String address, String userAgent) {
+
+		long h = 0xcbf29ce484222325L;
+		h = hash(h, address != null ? address : "");
+		//Separates the address from the user agent.
+		h *= 0x100000001b3L;
+		h = hash(h, userAgent != null ? userAgent : "");
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+
+	}
+
+	private static long hash(long h, String value) {
+
+		for (int i = 0; i < value.length(); i++) {
+			h ^= value.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return h;
+
+	}
+
+	private boolean update(int index, int rank) {
+
+		if (registers != null) {
+			if (registers[index] >= rank)
+				return false;
+			registers[index] = (byte) rank;
+			return true;
+		}
+
+		//Entries are sorted by index, held by their upper bits.
+		int position = Arrays.binarySearch(sparse, 0, sparseSize, index << 8);
+		if (position < 0)
+			position = -position - 1;
+		if (position < sparseSize && sparse[position] >>> 8 == index) {
+			if ((sparse[position] & 0xff) >= rank)
+				return false;
+			sparse[position] = index << 8 | rank;
+			return true;
+		}
+
+		if (sparseSize == sparse.length) {
+			if (sparseSize * Integer.BYTES >= (1 << precision) / 2) {
+				toDense();
+				return update(index, rank);
+			}
+			sparse = Arrays.copyOf(sparse, sparseSize * 2);
+		}
+		System.arraycopy(sparse, position, sparse, position + 1, sparseSize - position);
+		sparse[position] = index << 8 | rank;
+		sparseSize++;
+		return true;
+
+	}
+
+	private void toDense() {
+
+		registers = new byte[1 << precision];
+		for (int i = 0; i < sparseSize; i++)
+			registers[sparse[i] >>> 8] = (byte) (sparse[i] & 0xff);
+		sparse = new int[0];
+		sparseSize = 0;
+
+	}
+
+}
@@ -0,0 +1,146 @@
+package org.urlshortener.statistics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * <p>Space-Saving summary of the most frequent short ids within a stream, in a fixed number of counters.</p>
+ * <p>An id without a counter takes over the counter of the least frequent id once all are in use, inheriting
+ * 	its count as the error of its own. Any id counted more often than <code>total / capacity</code> is thus
+ * 	guaranteed a counter, and every count exceeds the true one by its error at most. The counters are kept in
+ * 	a min-heap, so that both an increment and a takeover cost <code>O(log capacity)</code>.</p>
+ * <p>Not thread-safe.</p>
+ *
+ * @since 1.1
+ **/
+final class SpaceSaving {
+
+	private final Map<String, Counter> counters;
+	private final Counter[] heap;
+	private int size;
+
+	SpaceSaving(int capacity) {
+
+		this.heap = new Counter[Math.max(1, capacity)];
+		this.counters = new HashMap<>(heap.length * 2);
+
+	}
+
+	void offer(String id) {
+
+		Counter counter = counters.get(id);
+		if (counter != null) {
+			counter.count++;
+			siftDown(counter.position);
+			return;
+		}
+
+		if (size < heap.length) {
+			counter = new Counter();
+			counter.id = id;
+			counter.count = 1;
+			counter.position = size;
+			heap[size++] = counter;
+			siftUp(counter.position);
+		} else {
+			counter = heap[0];
+			counters.remove(counter.id);
+			counter.id = id;
+			counter.error = counter.count;
+			counter.count++;
+			siftDown(0);
+		}
+		counters.put(id, counter);
+
+	}
+
+	/**
+	 * @return the count of the least frequent counter once all are in use, which bounds the count of every
+	 * 	id without a counter, or 0.
+	 **/
+	long getMinCount() {
+		return size < heap.length ? 0 : heap[0].count;
+	}
+
+	void forEach(Consumer<Counter> consumer) {
+
+		for (int i = 0; i < size; i++)
+			consumer.accept(heap[i]);
+
+	}
+
+	boolean contains(String id) {
+		return counters.containsKey(id);
+	}
+
+	void clear() {
+
+		Arrays.fill(heap, 0, size, null);
+		counters.clear();
+		size = 0;
+
+	}
+
+	private void siftUp(int position) {
+
+		Counter counter = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (heap[parent].count <= counter.count)
+				break;
+			place(heap[parent], position);
+			position = parent;
+		}
+		place(counter, position);
+
+	}
+
+	private void siftDown(int position) {
+
+		Counter counter = heap[position];
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size && heap[child + 1].count < heap[child].count)
+				child++;
+			if (counter.count <= heap[child].count)
+				break;
+			place(heap[child], position);
+			position = child;
+		}
+		place(counter, position);
+
+	}
+
+	private void place(Counter counter, int position) {
+
+		heap[position] = counter;
+		counter.position = position;
+
+	}
+
+	static final class Counter {
+
+		private String id;
+		private long count;
+		private long error;
+		private int position;
+
+		String getId() {
+			return id;
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		long getError() {
+			return error;
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+package org.urlshortener.configurator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ *	This class tests that the {@link CachingAuthenticationProvider} only verifies
+ *	the credentials it has not verified yet, and forgets them on invalidation.
+ */
+public class CachingAuthenticationProviderTest {
+
+	private static final String PASSWORD_HASH = "hash";
+
+	private AtomicInteger verifications;
+	private CachingAuthenticationProvider provider;
+
+	@Before
+	public void setUp() {
+
+		verifications = new AtomicInteger();
+		AuthenticationProvider verifier = new AuthenticationProvider() {
+			@Override
+			public Authentication authenticate(Authentication authentication) {
+				verifications.incrementAndGet();
+				if (!"secret".equals(authentication.getCredentials()))
+					throw new BadCredentialsException("Bad credentials");
+				User user = new User(authentication.getName(), PASSWORD_HASH,
+						Collections.singleton(new SimpleGrantedAuthority("ROLE_REGISTER")));
+				return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+			}
+			@Override
+			public boolean supports(Class<?> authentication) {
+				return true;
+			}
+		};
+		provider = new CachingAuthenticationProvider(verifier, 60_000, 100);
+
+	}
+
+	@Test
+	public void testVerifiedCredentialsAreCached() {
+
+		assertTrue(provider.authenticate(token("secret")).isAuthenticated());
+		assertTrue(provider.authenticate(token("secret")).isAuthenticated());
+		assertEquals(1, verifications.get());
+
+		/*
+		 * A wrong password must never match the cached verification.
+		 */
+		try {
+			provider.authenticate(token("wrong"));
+		} catch (BadCredentialsException e) {
+			assertEquals(2, verifications.get());
+			return;
+		}
+		throw new AssertionError("Wrong password was accepted");
+
+	}
+
+	@Test
+	public void testInvalidation() {
+
+		provider.authenticate(token("secret"));
+
+		/*
+		 * An update keeping the password hash keeps the verification.
+		 */
+		provider.invalidate("myAccountId", PASSWORD_HASH);
+		provider.authenticate(token("secret"));
+		assertEquals(1, verifications.get());
+
+		/*
+		 * A changed password hash or a deleted account drops it.
+		 */
+		provider.invalidate("myAccountId", "otherHash");
+		provider.authenticate(token("secret"));
+		assertEquals(2, verifications.get());
+
+		provider.invalidate("myAccountId", null);
+		provider.authenticate(token("secret"));
+		assertEquals(3, verifications.get());
+
+	}
+
+	private static Authentication token(String password) {
+		return new UsernamePasswordAuthenticationToken("myAccountId", password);
+	}
+
+}
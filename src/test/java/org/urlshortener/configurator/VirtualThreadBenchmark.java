@@ -0,0 +1,187 @@
+package org.urlshortener.configurator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.springframework.core.env.StandardEnvironment;
+import org.urlshortener.Base62;
+import org.urlshortener.dataaccess.BaseRepository;
+import org.urlshortener.dataaccess.RepositorySettings;
+import org.urlshortener.dataaccess.storage.RecordStorage;
+import org.urlshortener.model.RegisteredUrl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * <p>Measures how redirects of cached short URLs are delayed by concurrent lookups of uncached ones on a
+ * 	slow disk, simulated by a storage sleeping {@value #DISK_LATENCY_MILLIS} ms on every read. The requests
+ * 	are dispatched to a pool of {@value #WORKER_THREADS} threads, the default of Tomcat, and to a virtual
+ * 	thread per request as with <code>urlshortener.server.virtual-threads=true</code>.</p>
+ * <p>Not part of the test suite. Run the <code>main</code> method with the test classpath on Java 21, see
+ * 	<code>RepositoryThroughputBenchmark</code>. On older versions only the worker pool is measured.</p>
+ */
+public class VirtualThreadBenchmark {
+
+	private static final int ELEMENTS = 20_000;
+	private static final int HOT_ELEMENTS = 50;
+	private static final int REQUESTS = 20_000;
+	private static final int COLD_PERCENT = 10;
+	private static final int WORKER_THREADS = 200;
+	private static final long DISK_LATENCY_MILLIS = 20;
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) throws Exception {
+
+		if (!VirtualThreads.isSupported())
+			System.out.println("Virtual threads are not supported by Java " + System.getProperty("java.version"));
+
+		//The first rounds only warm up the JIT.
+		for (int round = 0; round < ROUNDS; round++) {
+			if (round == ROUNDS - 1)
+				System.out.println("executor\trequests/s\thot p50 ms\thot p99 ms\tcold p99 ms");
+			run("worker pool", Executors.newFixedThreadPool(WORKER_THREADS), round == ROUNDS - 1);
+			if (VirtualThreads.isSupported())
+				run("virtual", VirtualThreads.newThreadPerTaskExecutor("benchmark-"), round == ROUNDS - 1);
+		}
+
+	}
+
+	private static void run(String name, ExecutorService executor, boolean report) throws Exception {
+
+		File directory = Files.createTempDirectory("virtual-thread-benchmark").toFile();
+		BaseRepository<RegisteredUrl> repository = open(directory);
+		try {
+
+			ObjectMapper mapper = new ObjectMapper();
+			for (int i = 0; i < ELEMENTS; i++) {
+				RegisteredUrl url = mapper.readValue("{\"url\":\"http://example.com/page/" + i + "\"}", RegisteredUrl.class);
+				url.setId(Base62.unpack(i));
+				repository.commit(url);
+			}
+			for (int i = 0; i < HOT_ELEMENTS; i++)
+				repository.read(Base62.unpack(i));
+
+			/*
+			 * All requests arrive at once, every cold one reads another element which is not cached.
+			 */
+			long[] hot = new long[REQUESTS];
+			long[] cold = new long[REQUESTS];
+			int hotCount = 0, coldCount = 0;
+			CountDownLatch done = new CountDownLatch(REQUESTS);
+			long start = System.nanoTime();
+			for (int i = 0; i < REQUESTS; i++) {
+
+				boolean isCold = ThreadLocalRandom.current().nextInt(100) < COLD_PERCENT;
+				String id = Base62.unpack(isCold ? HOT_ELEMENTS + i : ThreadLocalRandom.current().nextInt(HOT_ELEMENTS));
+				long[] latencies = isCold ? cold : hot;
+				int slot = isCold ? coldCount++ : hotCount++;
+				long submitted = System.nanoTime();
+				executor.execute(() -> {
+					repository.read(id);
+					latencies[slot] = System.nanoTime() - submitted;
+					done.countDown();
+				});
+
+			}
+			done.await();
+			long elapsed = System.nanoTime() - start;
+
+			if (report)
+				System.out.println(name + "\t" + REQUESTS * 1_000_000_000L / elapsed
+						+ "\t" + percentile(hot, hotCount, 50) + "\t" + percentile(hot, hotCount, 99)
+						+ "\t" + percentile(cold, coldCount, 99));
+
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+			repository.close();
+			FileUtils.deleteDirectory(directory);
+		}
+
+	}
+
+	private static long percentile(long[] latencies, int count, int percent) {
+
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		return sorted[count * percent / 100] / 1_000_000;
+
+	}
+
+	private static BaseRepository<RegisteredUrl> open(File directory) {
+
+		RepositorySettings settings = new RepositorySettings(new StandardEnvironment()) {
+			@Override
+			public RecordStorage openStorage(File repo) throws IOException {
+				return new SlowDiskStorage(super.openStorage(repo));
+			}
+		};
+		return new BaseRepository<RegisteredUrl>(directory.getPath(), settings) {
+			@Override
+			protected Class<RegisteredUrl> getType() {
+				return RegisteredUrl.class;
+			}
+		};
+
+	}
+
+	/**
+	 * Delays every read of the wrapped storage as a busy disk would.
+	 **/
+	private static final class SlowDiskStorage implements RecordStorage {
+
+		private final RecordStorage storage;
+
+		private SlowDiskStorage(RecordStorage storage) {
+			this.storage = storage;
+		}
+
+		@Override
+		public boolean contains(String id) throws IOException {
+			return storage.contains(id);
+		}
+
+		@Override
+		public byte[] read(String id) throws IOException {
+
+			try {
+				Thread.sleep(DISK_LATENCY_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return storage.read(id);
+
+		}
+
+		@Override
+		public void write(String id, byte[] record) throws IOException {
+			storage.write(id, record);
+		}
+
+		@Override
+		public boolean delete(String id) throws IOException {
+			return storage.delete(id);
+		}
+
+		@Override
+		public Iterator<byte[]> iterator() throws IOException {
+			return storage.iterator();
+		}
+
+		@Override
+		public void close() throws IOException {
+			storage.close();
+		}
+
+	}
+
+}
@@ -1,7 +1,9 @@
 package org.urlshortener.controller;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
 import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -9,10 +11,15 @@ import static org.urlshortener.ApplicationConstants.ACCOUNT_URI;
 import static org.urlshortener.ApplicationConstants.ACCOUNT_REPO_PATH;
 import static org.urlshortener.ApplicationConstants.DOT;
 import static org.urlshortener.ApplicationConstants.JSON_FILE_SUFFIX;
+import static org.urlshortener.ApplicationConstants.STATISTIC_URI;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 
@@ -77,6 +84,34 @@ public class AccountControllerTest extends BaseTest{
 
 	}
 
+	@Test
+	public void testPasswordIsPersistedHashed() throws Exception {
+
+		String auth = createAccount(TEST_ACCOUNT_ID);
+		String password = new String(Base64.getDecoder().decode(auth)).substring(TEST_ACCOUNT_ID.length() + 1);
+
+		/*
+		 * Asserting that only the hash of the generated password was persisted.
+		 */
+		String persistedAcc = FileUtils.readFileToString(new File( ACCOUNT_REPO_PATH
+				+ File.separator
+				+ TEST_ACCOUNT_ID 
+				+ DOT
+				+ JSON_FILE_SUFFIX), StandardCharsets.UTF_8.name());
+		assertFalse(persistedAcc.contains(password));
+		assertTrue(persistedAcc.contains("\"passwordHash\":\"$2a$"));
+
+		/*
+		 * Asserting that the account authenticates with the generated password, and only with it.
+		 */
+		registerUrl(auth, "http://www.example.com");
+		mockMvc.perform(get(STATISTIC_URI + "/" + TEST_ACCOUNT_ID)
+				.header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString(
+						(TEST_ACCOUNT_ID + ":" + password + "x").getBytes())))
+				.andExpect(status().isUnauthorized());
+
+	}
+
 
 	@Test
 	public void testCreateAccountWhenAccountAlreadyExists() throws Exception {
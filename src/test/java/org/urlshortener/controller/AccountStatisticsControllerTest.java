@@ -3,12 +3,24 @@ package org.urlshortener.controller;
 import static org.junit.Assert.assertEquals;
 import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.urlshortener.ApplicationConstants.CLICKS;
+import static org.urlshortener.ApplicationConstants.FROM;
+import static org.urlshortener.ApplicationConstants.GRANULARITY;
+import static org.urlshortener.ApplicationConstants.SERIES;
+import static org.urlshortener.ApplicationConstants.TO;
+import static org.urlshortener.ApplicationConstants.VIEW;
+
+import java.time.Instant;
 
 import org.junit.Test;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.urlshortener.statistics.ClickTracker;
+import org.urlshortener.statistics.Granularity;
+import org.urlshortener.statistics.HyperLogLog;
 
 /**
  *	This class tests all use-cases of {@link AccountStatisticsController}'s getStats() 
@@ -59,6 +71,94 @@ public class AccountStatisticsControllerTest extends BaseTest{
 
 	}
 
+	@Test
+	public void testStatisticsWithClicks() throws Exception {
+
+		String auth = createAccount(TEST_ACCOUNT_ID);
+		String clickedId = registerUrl(auth, TEST_URL);
+		String otherId = registerUrl(auth, TEST_URL);
+
+		/*
+		 * Redirecting the first short URL 3 times, twice for the same visitor
+		 */
+		for (String userAgent: new String[] { "Firefox", "Chrome", "Firefox" })
+			mockMvc.perform(
+					get(REDIRECT_URI_FORMAT.format(new String[]{clickedId}))
+					.header(HttpHeaders.USER_AGENT, userAgent))
+			.andExpect(status().is3xxRedirection());
+
+		/*
+		 * Performing GET request on "/statistic" API with the clicks view
+		 * 
+		 * Verifying the response body maps every short id to its URL, the number of redirects served
+		 * 	and the estimated number of unique visitors
+		 */
+		String uri = STATISTIC_URI_FORMAT.format( new String[] {TEST_ACCOUNT_ID} );
+		MockHttpServletResponse response = mockMvc.perform(
+				get(uri)
+				.param(VIEW, CLICKS)
+				.header(HttpHeaders.AUTHORIZATION, "Basic " + auth))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andReturn()
+				.getResponse();
+
+		String visitors = ",\"visitors\":{\"estimate\":%d,\"standardError\":" + new HyperLogLog(11).getStandardError() + "}";
+		String expectedResponse = "{"
+				+ "\"" + clickedId + "\":{\"url\":\"" + TEST_URL + "\",\"clicks\":3" + String.format(visitors, 2) + "},"
+				+ "\"" + otherId + "\":{\"url\":\"" + TEST_URL + "\",\"clicks\":0" + String.format(visitors, 0) + "}"
+				+ "}";
+		assertEquals(expectedResponse, response.getContentAsString());
+
+		/*
+		 * Verifying the clicks survive a flush to the click store
+		 */
+		springContext.getBean(ClickTracker.class).flush();
+		assertEquals(3, springContext.getBean(ClickTracker.class).getClicks(clickedId));
+
+	}
+
+	@Test
+	public void testStatisticsWithSeries() throws Exception {
+
+		String auth = createAccount(TEST_ACCOUNT_ID);
+		String shortUrlId = registerUrl(auth, TEST_URL);
+		mockMvc.perform(
+				get(REDIRECT_URI_FORMAT.format(new String[]{shortUrlId})))
+		.andExpect(status().is3xxRedirection());
+
+		/*
+		 * Performing GET request on "/statistic" API with the series view in minute buckets of the last hour
+		 * 
+		 * Verifying the redirect is counted in the bucket of the current minute
+		 */
+		long now = System.currentTimeMillis();
+		String uri = STATISTIC_URI_FORMAT.format( new String[] {TEST_ACCOUNT_ID} );
+		String minute = Instant.ofEpochMilli(Granularity.MINUTE.floor(now)).toString();
+		mockMvc.perform(
+				get(uri)
+				.param(VIEW, SERIES)
+				.param(GRANULARITY, "minute")
+				.param(FROM, Instant.ofEpochMilli(now - Granularity.HOUR.getMillis()).toString())
+				.param(TO, Instant.ofEpochMilli(now + Granularity.MINUTE.getMillis()).toString())
+				.header(HttpHeaders.AUTHORIZATION, "Basic " + auth))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$." + shortUrlId + ".url").value(TEST_URL))
+				.andExpect(jsonPath("$." + shortUrlId + ".series['" + minute + "']").value(1));
+
+		/*
+		 * Verifying an unknown granularity is rejected with HTTP status 400 i.e. BAD_REQUEST
+		 */
+		mockMvc.perform(
+				get(uri)
+				.param(VIEW, SERIES)
+				.param(GRANULARITY, "week")
+				.header(HttpHeaders.AUTHORIZATION, "Basic " + auth))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("granularity can only be minute|hour|day"));
+
+	}
+
 	@Test
 	public void testStatisticsWithoutAuthHeader() throws Exception {
 
@@ -0,0 +1,88 @@
+package org.urlshortener.controller;
+
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.urlshortener.ApplicationConstants.ADMIN_URI;
+import static org.urlshortener.ApplicationConstants.HOT_LINKS_URI;
+import static org.urlshortener.ApplicationConstants.METRICS_URI;
+
+import org.junit.Test;
+import org.urlshortener.statistics.ClickTracker;
+
+/**
+ *	This class tests the operational end-points served by {@link AdminController}.
+ */
+public class AdminControllerTest extends BaseTest {
+
+	@Test
+	public void testMetrics() throws Exception {
+
+		/*
+		 * Performing a redirect first so that the cache of the URL repository has seen a lookup.
+		 */
+		String auth = createAccount(TEST_ACCOUNT_ID);
+		String shortUrlId = registerUrl(auth, TEST_URL);
+		mockMvc.perform(get(REDIRECT_URI_FORMAT.format(new String[]{shortUrlId})));
+
+		/*
+		 * Performing GET request on "/admin/metrics" API from the local machine.
+		 * 
+		 * Verifying the returned HTTP status 200 i.e. OK
+		 * Verifying the cache statistics of both repositories are present
+		 */
+		mockMvc.perform(
+				get(ADMIN_URI + METRICS_URI))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$.accounts.cache.hits").isNumber())
+		.andExpect(jsonPath("$.registeredUrls.cache.hits").isNumber())
+		.andExpect(jsonPath("$.registeredUrls.idPool.depth").isNumber())
+		.andExpect(jsonPath("$.credentials.hits").isNumber())
+		.andExpect(jsonPath("$.clicks.dropped").isNumber());
+
+	}
+
+	@Test
+	public void testHotLinks() throws Exception {
+
+		/*
+		 * Redirecting a short URL more often than any other test does, then aggregating the clicks.
+		 */
+		String auth = createAccount(TEST_ACCOUNT_ID);
+		String hotId = registerUrl(auth, TEST_URL);
+		for (int i = 0; i < 100; i++)
+			mockMvc.perform(get(REDIRECT_URI_FORMAT.format(new String[]{hotId})));
+		springContext.getBean(ClickTracker.class).flush();
+
+		/*
+		 * Performing GET request on "/admin/hotlinks" API from the local machine.
+		 * 
+		 * Verifying the returned HTTP status 200 i.e. OK
+		 * Verifying the most clicked link comes first, with its exact clicks
+		 */
+		mockMvc.perform(
+				get(ADMIN_URI + HOT_LINKS_URI))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$.windowMs").isNumber())
+		.andExpect(jsonPath("$.links[0].shortId").value(hotId))
+		.andExpect(jsonPath("$.links[0].clicks").value(100))
+		.andExpect(jsonPath("$.links[0].error").value(0));
+
+	}
+
+	@Test
+	public void testMetricsFromRemoteAddress() throws Exception {
+
+		/*
+		 * Performing GET request on "/admin/metrics" API from a remote address.
+		 * 
+		 * Verifying the returned HTTP status 401 i.e. UNAUTHORIZED
+		 */
+		mockMvc.perform(
+				get(ADMIN_URI + METRICS_URI)
+				.with(request -> { request.setRemoteAddr("203.0.113.7"); return request; }))
+		.andExpect(status().isUnauthorized());
+
+	}
+
+}
@@ -1,12 +1,27 @@
 package org.urlshortener.controller;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.urlshortener.ApplicationConstants.*;
 
 import org.junit.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.urlshortener.dataaccess.UrlRepository;
+import org.urlshortener.model.RedirectCachePolicy;
+import org.urlshortener.model.RedirectResponse;
+import org.urlshortener.model.RegisteredUrl;
+import org.urlshortener.statistics.ClickTracker;
 
 /**
  *	This class tests all use-cases of {@link RedirectController}'s redirect() 
@@ -98,4 +113,123 @@ public class RedirectControllerTest extends BaseTest{
 
 	}
 
+	@Test
+	public void testRedirectFastPath() throws Exception {
+
+		String auth = createAccount(TEST_ACCOUNT_ID);
+		String shortUrlId = registerUrl(auth, HttpStatus.MOVED_PERMANENTLY, TEST_URL);
+
+		/*
+		 * Preparing a MockMvc with the RedirectFilter ahead of the security filter chain,
+		 * 	as registered with the servlet container.
+		 */
+		MockMvc fastPath = MockMvcBuilders.webAppContextSetup(springContext)
+				.addFilters(new RedirectFilter(springContext.getBean(UrlRepository.class), springContext.getBean(RedirectCachePolicy.class),
+						springContext.getBean(ClickTracker.class)))
+				.apply(springSecurity())
+				.build();
+
+		/*
+		 * Verifying the registered short URL is redirected by the filter without reaching the RedirectController
+		 */
+		MvcResult result = fastPath.perform(
+				get(REDIRECT_URI_FORMAT.format(new String[]{shortUrlId})))
+		.andExpect(status().isMovedPermanently())
+		.andExpect(redirectedUrl(TEST_URL))
+		.andReturn();
+		assertNull(result.getHandler());
+
+		/*
+		 * Verifying unknown short ids and other URIs fall through to Spring MVC
+		 */
+		fastPath.perform(
+				get(REDIRECT_URI_FORMAT.format(new String[]{"xYz123ab"})))
+		.andExpect(status().isNotFound());
+		fastPath.perform(
+				get(HELP_URI))
+		.andExpect(status().isFound())
+		.andExpect(redirectedUrl( HELP_LOCATION ));
+
+	}
+
+	@Test
+	public void testRedirectResponseIsPrepared() throws Exception {
+
+		String auth = createAccount(TEST_ACCOUNT_ID);
+		String shortUrlId = registerUrl(auth, TEST_URL + "/s\u00f6k?q=a b");
+		UrlRepository urlRepo = springContext.getBean(UrlRepository.class);
+		RedirectCachePolicy cachePolicy = springContext.getBean(RedirectCachePolicy.class);
+
+		/*
+		 * Verifying the redirect is prepared once, with the URL percent-encoded into an ASCII Location header
+		 */
+		RegisteredUrl url = urlRepo.read(shortUrlId).get();
+		RedirectResponse redirect = url.getRedirectResponse(cachePolicy);
+		assertSame(redirect, urlRepo.read(shortUrlId).get().getRedirectResponse(cachePolicy));
+		assertEquals(TEST_URL + "/s%C3%B6k?q=a%20b", redirect.getLocation());
+		mockMvc.perform(
+				get(REDIRECT_URI_FORMAT.format(new String[]{shortUrlId})))
+		.andExpect(status().isFound())
+		.andExpect(redirectedUrl(redirect.getLocation()));
+
+		/*
+		 * Verifying a changed redirect type prepares a new redirect
+		 */
+		url.setRedirectType(HttpStatus.MOVED_PERMANENTLY.value());
+		urlRepo.update(url);
+		assertNotSame(redirect, urlRepo.read(shortUrlId).get().getRedirectResponse(cachePolicy));
+		mockMvc.perform(
+				get(REDIRECT_URI_FORMAT.format(new String[]{shortUrlId})))
+		.andExpect(status().isMovedPermanently());
+
+	}
+
+	@Test
+	public void testRedirectCacheHeaders() throws Exception {
+
+		String auth = createAccount(TEST_ACCOUNT_ID);
+		String permanentId = registerUrl(auth, HttpStatus.MOVED_PERMANENTLY, TEST_URL);
+		String temporaryId = registerUrl(auth, TEST_URL);
+
+		/*
+		 * Verifying permanent redirects may be cached for 30 days and carry an ETag
+		 */
+		MvcResult result = mockMvc.perform(
+				get(REDIRECT_URI_FORMAT.format(new String[]{permanentId})))
+		.andExpect(status().isMovedPermanently())
+		.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=2592000"))
+		.andExpect(header().exists(HttpHeaders.EXPIRES))
+		.andReturn();
+		String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+		/*
+		 * Verifying a cache revalidating its copy is answered with 304 NOT_MODIFIED
+		 */
+		mockMvc.perform(
+				get(REDIRECT_URI_FORMAT.format(new String[]{permanentId}))
+				.header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag))
+		.andExpect(status().isNotModified())
+		.andExpect(header().string(HttpHeaders.ETAG, etag));
+
+		/*
+		 * Verifying temporary redirects, and permanent ones registered as not cacheable, must not be stored
+		 */
+		mockMvc.perform(
+				get(REDIRECT_URI_FORMAT.format(new String[]{temporaryId})))
+		.andExpect(status().isFound())
+		.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+		.andExpect(header().doesNotExist(HttpHeaders.ETAG));
+
+		UrlRepository urlRepo = springContext.getBean(UrlRepository.class);
+		RegisteredUrl url = urlRepo.read(permanentId).get();
+		url.setCacheable(false);
+		urlRepo.update(url);
+		mockMvc.perform(
+				get(REDIRECT_URI_FORMAT.format(new String[]{permanentId}))
+				.header(HttpHeaders.IF_NONE_MATCH, etag))
+		.andExpect(status().isMovedPermanently())
+		.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"));
+
+	}
+
 }
@@ -0,0 +1,114 @@
+package org.urlshortener.controller;
+
+import static org.urlshortener.ApplicationConstants.LOCAL_SERVER_PORT_PROP;
+import static org.urlshortener.ApplicationConstants.REDIRECT_FAST_PATH_PROP;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.urlshortener.app.UrlShortenerApp;
+
+import com.google.gson.JsonParser;
+
+/**
+ * <p>Measures the latency of redirects over HTTP with the {@link RedirectFilter} fast path disabled
+ * 	(served by {@link RedirectController} through the security filter chain and Spring MVC) and enabled.</p>
+ * <p>Not part of the test suite. Run the <code>main</code> method with the test classpath, see
+ * 	<code>RepositoryThroughputBenchmark</code>. The application data is kept in a temporary directory.</p>
+ */
+public class RedirectLatencyBenchmark {
+
+	private static final int WARMUP_REQUESTS = 20_000;
+	private static final int MEASURED_REQUESTS = 50_000;
+
+	public static void main(String[] args) throws Exception {
+
+		File home = Files.createTempDirectory("redirect-benchmark").toFile();
+		//Must be set before the repository paths are resolved.
+		System.setProperty("user.home", home.getPath());
+		try {
+			System.out.println("fast path\tmean us\tp50 us\tp99 us");
+			for (boolean fastPath: new boolean[] { false, true })
+				run(fastPath);
+		} finally {
+			FileUtils.deleteDirectory(home);
+		}
+
+	}
+
+	private static void run(boolean fastPath) throws Exception {
+
+		ConfigurableApplicationContext context = SpringApplication.run(UrlShortenerApp.class,
+				"--server.port=0", "--" + REDIRECT_FAST_PATH_PROP + "=" + fastPath, "--logging.level.root=WARN");
+		try {
+
+			String server = "http://localhost:" + context.getEnvironment().getProperty(LOCAL_SERVER_PORT_PROP);
+			String accountId = "benchmark" + fastPath;
+			String password = new JsonParser().parse(post(server + "/account", null, "{\"AccountId\":\"" + accountId + "\"}"))
+					.getAsJsonObject().get("password").getAsString();
+			String auth = Base64.getEncoder().encodeToString((accountId + ":" + password).getBytes(StandardCharsets.UTF_8));
+			String shortUrl = new JsonParser().parse(post(server + "/register", auth, "{\"url\":\"http://example.com\"}"))
+					.getAsJsonObject().get("shortUrl").getAsString();
+			URL redirect = new URL(server + new URL(shortUrl).getPath());
+
+			for (int i = 0; i < WARMUP_REQUESTS; i++)
+				get(redirect);
+			long[] latencies = new long[MEASURED_REQUESTS];
+			for (int i = 0; i < MEASURED_REQUESTS; i++) {
+				long start = System.nanoTime();
+				get(redirect);
+				latencies[i] = System.nanoTime() - start;
+			}
+
+			Arrays.sort(latencies);
+			long mean = Arrays.stream(latencies).sum() / latencies.length;
+			System.out.println(fastPath + "\t" + mean / 1000 + "\t" + latencies[latencies.length / 2] / 1000
+					+ "\t" + latencies[latencies.length * 99 / 100] / 1000);
+
+		} finally {
+			context.close();
+		}
+
+	}
+
+	private static void get(URL url) throws Exception {
+
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setInstanceFollowRedirects(false);
+		if (connection.getResponseCode() / 100 != 3)
+			throw new IllegalStateException("Unexpected status " + connection.getResponseCode());
+		try (InputStream in = connection.getErrorStream() != null ? connection.getErrorStream() : connection.getInputStream()) {
+			IOUtils.toByteArray(in);
+		}
+
+	}
+
+	private static String post(String url, String auth, String body) throws Exception {
+
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", "application/json");
+		if (auth != null)
+			connection.setRequestProperty("Authorization", "Basic " + auth);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body.getBytes(StandardCharsets.UTF_8));
+		}
+		try (InputStream in = connection.getInputStream()) {
+			return new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8);
+		}
+
+	}
+
+}
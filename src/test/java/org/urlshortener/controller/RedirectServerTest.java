@@ -0,0 +1,108 @@
+package org.urlshortener.controller;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.urlshortener.dataaccess.UrlRepository;
+import org.urlshortener.model.RedirectCachePolicy;
+import org.urlshortener.statistics.ClickTracker;
+
+/**
+ *	This class tests redirects served by the {@link RedirectServer} over HTTP,
+ *	including requests pipelined on a single connection.
+ */
+public class RedirectServerTest extends BaseTest {
+
+	private RedirectServer server;
+
+	@Before
+	public void startServer() throws Exception {
+
+		server = new RedirectServer(springContext.getBean(UrlRepository.class), springContext.getBean(RedirectCachePolicy.class),
+				springContext.getBean(ClickTracker.class), new InetSocketAddress("localhost", 0), 2, 16);
+		server.start();
+
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		server.close();
+	}
+
+	@Test
+	public void testRedirect() throws Exception {
+
+		String auth = createAccount(TEST_ACCOUNT_ID);
+		String shortUrlId = registerUrl(auth, HttpStatus.MOVED_PERMANENTLY, TEST_URL);
+
+		HttpURLConnection connection = open(shortUrlId);
+		assertEquals(HttpStatus.MOVED_PERMANENTLY.value(), connection.getResponseCode());
+		assertEquals(TEST_URL, connection.getHeaderField(HttpHeaders.LOCATION));
+		assertEquals("public, max-age=2592000", connection.getHeaderField(HttpHeaders.CACHE_CONTROL));
+
+		String etag = connection.getHeaderField(HttpHeaders.ETAG);
+		connection = open(shortUrlId);
+		connection.setRequestProperty(HttpHeaders.IF_NONE_MATCH, etag);
+		assertEquals(HttpStatus.NOT_MODIFIED.value(), connection.getResponseCode());
+
+		assertEquals(HttpStatus.NOT_FOUND.value(), open("xYz123ab").getResponseCode());
+		assertEquals(HttpStatus.NOT_FOUND.value(), open("help").getResponseCode());
+
+	}
+
+	@Test
+	public void testPipelinedRequestsAreAnsweredInOrder() throws Exception {
+
+		String auth = createAccount(TEST_ACCOUNT_ID);
+		String shortUrlId = registerUrl(auth, TEST_URL);
+
+		try (Socket socket = new Socket("localhost", server.getPort())) {
+
+			String request = "GET /" + shortUrlId + " HTTP/1.1\r\nHost: localhost\r\n\r\n";
+			OutputStream out = socket.getOutputStream();
+			out.write((request + "GET /xYz123ab HTTP/1.1\r\n\r\n" + request.replace("GET", "POST")).getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			assertEquals("HTTP/1.1 302 Found", readResponse(in));
+			assertEquals("HTTP/1.1 404 Not Found", readResponse(in));
+			assertEquals("HTTP/1.1 405 Method Not Allowed", readResponse(in));
+
+		}
+
+	}
+
+	private HttpURLConnection open(String shortUrlId) throws Exception {
+
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/" + shortUrlId).openConnection();
+		connection.setInstanceFollowRedirects(false);
+		return connection;
+
+	}
+
+	/**
+	 * @return the status line of the next response, skipping its headers.
+	 **/
+	private static String readResponse(BufferedReader in) throws Exception {
+
+		String statusLine = in.readLine();
+		for (String line = in.readLine(); line != null && !line.isEmpty(); line = in.readLine())
+			;
+		return statusLine;
+
+	}
+
+}
@@ -0,0 +1,82 @@
+package org.urlshortener.controller;
+
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.urlshortener.ApplicationConstants.REGISTER_URI;
+import static org.urlshortener.ApplicationConstants.TOKEN_URI;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import com.google.gson.JsonParser;
+
+/**
+ *	This class tests the access tokens issued by {@link TokenController} and
+ *	their use in place of HTTP Basic credentials.
+ */
+public class TokenControllerTest extends BaseTest {
+
+	@Test
+	public void testRegisterWithToken() throws Exception {
+
+		String token = issueToken(createAccount(TEST_ACCOUNT_ID));
+
+		/*
+		 * Performing POST request on "/register" API with the bearer token.
+		 *
+		 * Verifying the returned HTTP status 201 i.e. CREATED
+		 */
+		mockMvc.perform(post(REGISTER_URI)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+				.contentType(MediaType.APPLICATION_JSON_VALUE)
+				.content(URL_REGISTRATION_REQUEST_BODY.format(new String[]{TEST_URL})))
+		.andExpect(status().isCreated())
+		.andExpect(jsonPath("$.shortUrl").isString());
+
+	}
+
+	@Test
+	public void testTamperedToken() throws Exception {
+
+		String token = issueToken(createAccount(TEST_ACCOUNT_ID));
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+		/*
+		 * Verifying a token with a wrong signature is rejected with HTTP status 401 i.e. UNAUTHORIZED
+		 */
+		mockMvc.perform(post(REGISTER_URI)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + tampered)
+				.contentType(MediaType.APPLICATION_JSON_VALUE)
+				.content(URL_REGISTRATION_REQUEST_BODY.format(new String[]{TEST_URL})))
+		.andExpect(status().isUnauthorized());
+
+		/*
+		 * Verifying a token cannot be exchanged for another one, HTTP status 403 i.e. FORBIDDEN
+		 */
+		mockMvc.perform(post(TOKEN_URI)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+		.andExpect(status().isForbidden());
+
+	}
+
+	private String issueToken(String auth) throws Exception {
+
+		/*
+		 * Performing POST request on "/token" API with the account credentials.
+		 *
+		 * Verifying the returned HTTP status 200 i.e. OK
+		 */
+		String response = mockMvc.perform(post(TOKEN_URI)
+				.header(HttpHeaders.AUTHORIZATION, "Basic " + auth))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.expiresIn").isNumber())
+				.andReturn()
+				.getResponse()
+				.getContentAsString();
+		return new JsonParser().parse(response).getAsJsonObject().get("token").getAsString();
+
+	}
+
+}
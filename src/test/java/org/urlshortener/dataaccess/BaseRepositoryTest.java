@@ -0,0 +1,214 @@
+package org.urlshortener.dataaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.urlshortener.ApplicationConstants.FORMAT_PROP;
+import static org.urlshortener.ApplicationConstants.REPOSITORY_PROPERTY_PREFIX;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.urlshortener.dataaccess.codec.BinaryRecordCodec;
+import org.urlshortener.dataaccess.codec.RegisteredUrlCodec;
+import org.urlshortener.dataaccess.storage.FileSystemStorage;
+import org.urlshortener.dataaccess.storage.RecordStorage;
+import org.urlshortener.model.RegisteredUrl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ *	This class tests the concurrent read behaviour of the {@link BaseRepository}.
+ */
+public class BaseRepositoryTest {
+
+	private static final int THREADS = 16;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testConcurrentMissesAreCoalesced() throws Exception {
+
+		AtomicInteger storageReads = new AtomicInteger();
+		RepositorySettings settings = new RepositorySettings(new StandardEnvironment()) {
+			@Override
+			public RecordStorage openStorage(File repo) {
+				return new FileSystemStorage(repo) {
+					@Override
+					public byte[] read(String id) throws IOException {
+						storageReads.incrementAndGet();
+						try {
+							Thread.sleep(200);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						return super.read(id);
+					}
+				};
+			}
+		};
+
+		/*
+		 * Persisting an element through one repository instance and reading it through
+		 * 	another one, which starts with an empty cache.
+		 */
+		RegisteredUrl url = new ObjectMapper().readValue("{\"id\":\"viral\",\"url\":\"http://example.com\"}", RegisteredUrl.class);
+		BaseRepository<RegisteredUrl> writer = open(settings);
+		writer.commit(url);
+		writer.close();
+
+		BaseRepository<RegisteredUrl> repository = open(settings);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger found = new AtomicInteger();
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			threads[t] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (repository.read("viral").isPresent())
+					found.incrementAndGet();
+			});
+			threads[t].start();
+		}
+		start.countDown();
+		for (Thread thread: threads)
+			thread.join();
+
+		/*
+		 * Every reader must get the element while the record is loaded only a few times.
+		 */
+		assertEquals(THREADS, found.get());
+		assertTrue("Expected coalesced loads but got " + storageReads.get() + " reads", storageReads.get() < THREADS / 2);
+		assertTrue(repository.getCoalescedLoadCount() > 0);
+		assertTrue(repository.getCoalescedLoadCount() + storageReads.get() <= THREADS);
+		repository.close();
+
+	}
+
+	@Test
+	public void testReadAll() throws Exception {
+
+		List<Collection<String>> batches = new ArrayList<>();
+		AtomicInteger storageReads = new AtomicInteger();
+		RepositorySettings settings = new RepositorySettings(new StandardEnvironment()) {
+			@Override
+			public RecordStorage openStorage(File repo) {
+				return new FileSystemStorage(repo) {
+					@Override
+					public byte[] read(String id) throws IOException {
+						storageReads.incrementAndGet();
+						return super.read(id);
+					}
+
+					@Override
+					public Map<String, byte[]> readAll(Collection<String> ids) throws IOException {
+						batches.add(new ArrayList<>(ids));
+						return super.readAll(ids);
+					}
+				};
+			}
+		};
+
+		BaseRepository<RegisteredUrl> writer = open(settings);
+		for (int i = 0; i < 5; i++)
+			writer.commit(new ObjectMapper().readValue("{\"id\":\"batch" + i + "\",\"url\":\"http://example.com/" + i + "\"}", RegisteredUrl.class));
+		writer.close();
+
+		/*
+		 * Reading one element into the cache, then all of them along with an unknown id and a duplicate.
+		 */
+		BaseRepository<RegisteredUrl> repository = open(settings);
+		repository.read("batch3");
+		batches.clear();
+		Map<String, RegisteredUrl> elements = repository.readAll(Arrays.asList("batch4", "batch0", "unknown", "batch3", "batch1", "batch2", "batch0"));
+
+		/*
+		 * Verifying the elements are returned in the requested order, and only the misses are read from the storage, in one batch.
+		 */
+		assertEquals(Arrays.asList("batch4", "batch0", "batch3", "batch1", "batch2"), new ArrayList<>(elements.keySet()));
+		assertEquals("http://example.com/1", elements.get("batch1").getUrl());
+		assertEquals(1, batches.size());
+		assertEquals(Arrays.asList("batch4", "batch0", "unknown", "batch1", "batch2"), batches.get(0));
+
+		/*
+		 * Loaded elements are cached, so the next batch does not touch the storage for them.
+		 */
+		storageReads.set(0);
+		batches.clear();
+		assertEquals(5, repository.readAll(Arrays.asList("batch0", "batch1", "batch2", "batch3", "batch4")).size());
+		assertTrue(batches.isEmpty());
+		assertEquals(0, storageReads.get());
+		repository.close();
+
+	}
+
+	@Test
+	public void testJsonRecordsAreMigratedToBinary() throws Exception {
+
+		/*
+		 * Persisting an element in the JSON format, then switching the repository to the binary format.
+		 */
+		RegisteredUrl url = new ObjectMapper().readValue("{\"id\":\"migrate1\",\"url\":\"http://example.com\",\"redirectType\":301}", RegisteredUrl.class);
+		BaseRepository<RegisteredUrl> repository = open(new RepositorySettings(new StandardEnvironment()));
+		repository.commit(url);
+		repository.close();
+		assertTrue(new File(folder.getRoot(), "migrate1.json").exists());
+
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new MapPropertySource("test",
+				Collections.singletonMap(REPOSITORY_PROPERTY_PREFIX + FORMAT_PROP, "binary")));
+		repository = open(new RepositorySettings(environment));
+
+		/*
+		 * The JSON record is still readable and is replaced by a binary one on the next commit.
+		 */
+		RegisteredUrl migrated = repository.read("migrate1").get();
+		assertEquals(301, migrated.getRedirectType());
+		repository.commit(migrated);
+		assertFalse(new File(folder.getRoot(), "migrate1.json").exists());
+		Iterator<RegisteredUrl> iterator = repository.getIterator();
+		assertEquals("migrate1", iterator.next().getId());
+		assertFalse(iterator.hasNext());
+		repository.close();
+
+		byte[] record = Files.readAllBytes(new File(folder.getRoot(), "migrate1.rec").toPath());
+		assertTrue(BinaryRecordCodec.isBinary(record));
+
+	}
+
+	private BaseRepository<RegisteredUrl> open(RepositorySettings settings) {
+
+		return new BaseRepository<RegisteredUrl>(folder.getRoot().getPath(), settings) {
+			@Override
+			protected BinaryRecordCodec<RegisteredUrl> createBinaryCodec() {
+				return new RegisteredUrlCodec();
+			}
+
+			@Override
+			protected Class<RegisteredUrl> getType() {
+				return RegisteredUrl.class;
+			}
+		};
+
+	}
+
+}
@@ -0,0 +1,98 @@
+package org.urlshortener.dataaccess;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.io.FileUtils;
+import org.springframework.core.env.StandardEnvironment;
+import org.urlshortener.Base62;
+import org.urlshortener.model.RegisteredUrl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * <p>Measures the read throughput of a {@link BaseRepository} with an increasing number of threads,
+ * 	up to the number of available cores, for a cache resident working set and for a working set
+ * 	far larger than the cache.</p>
+ * <p>Not part of the test suite. Run the <code>main</code> method with the test classpath, e.g.
+ * 	<code>mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt</code> and then
+ * 	<code>java -cp target/classes:target/test-classes:$(cat cp.txt) org.urlshortener.dataaccess.RepositoryThroughputBenchmark</code>.
+ * 	Repository settings can be passed as system properties, e.g. <code>-Durlshortener.repository.storage=log</code>.</p>
+ */
+public class RepositoryThroughputBenchmark {
+
+	private static final int ELEMENTS = 20_000;
+	private static final int HOT_ELEMENTS = 50;
+	private static final long MEASURE_MILLIS = 2_000;
+
+	public static void main(String[] args) throws Exception {
+
+		File directory = Files.createTempDirectory("repository-benchmark").toFile();
+		BaseRepository<RegisteredUrl> repository = open(directory);
+		try {
+
+			ObjectMapper mapper = new ObjectMapper();
+			for (int i = 0; i < ELEMENTS; i++) {
+				RegisteredUrl url = mapper.readValue("{\"url\":\"http://example.com/page/" + i + "\"}", RegisteredUrl.class);
+				url.setId(Base62.unpack(i));
+				repository.create(url);
+				repository.commit(url);
+			}
+
+			int cores = Runtime.getRuntime().availableProcessors();
+			System.out.println("threads\thot reads/s\tcold reads/s");
+			for (int threads = 1; threads <= cores; threads *= 2) {
+				long hot = measure(repository, threads, HOT_ELEMENTS);
+				long cold = measure(repository, threads, ELEMENTS);
+				System.out.println(threads + "\t" + hot + "\t" + cold);
+			}
+
+		} finally {
+			repository.close();
+			FileUtils.deleteDirectory(directory);
+		}
+
+	}
+
+	private static BaseRepository<RegisteredUrl> open(File directory) {
+
+		return new BaseRepository<RegisteredUrl>(directory.getPath(), new RepositorySettings(new StandardEnvironment())) {
+			@Override
+			protected Class<RegisteredUrl> getType() {
+				return RegisteredUrl.class;
+			}
+		};
+
+	}
+
+	/**
+	 * @return the number of reads per second over all threads, each reading random ids out of the first <code>range</code> ones.
+	 **/
+	private static long measure(BaseRepository<RegisteredUrl> repository, int threads, int range) throws InterruptedException {
+
+		LongAdder reads = new LongAdder();
+		long deadline = System.currentTimeMillis() + MEASURE_MILLIS;
+		List<Thread> workers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			Thread worker = new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				while (System.currentTimeMillis() < deadline) {
+					for (int i = 0; i < 1000; i++)
+						repository.read(Base62.unpack(random.nextInt(range)));
+					reads.add(1000);
+				}
+			});
+			workers.add(worker);
+			worker.start();
+		}
+		for (Thread worker: workers)
+			worker.join();
+		return reads.sum() * 1000 / MEASURE_MILLIS;
+
+	}
+
+}
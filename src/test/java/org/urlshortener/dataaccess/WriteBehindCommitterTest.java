@@ -0,0 +1,146 @@
+package org.urlshortener.dataaccess;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.urlshortener.dataaccess.storage.SegmentLogStorage;
+
+/**
+ *	This class tests the group commit behaviour of the {@link WriteBehindCommitter}
+ *	on top of a {@link SegmentLogStorage}.
+ */
+public class WriteBehindCommitterTest {
+
+	private static final int THREADS = 8;
+	private static final int COMMITS_PER_THREAD = 250;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testCommitsAreBatched() throws Exception {
+
+		AtomicInteger syncs = new AtomicInteger();
+		SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), 1 << 20) {
+			@Override
+			public void sync() throws IOException {
+				syncs.incrementAndGet();
+				super.sync();
+			}
+		};
+		WriteBehindCommitter committer = new WriteBehindCommitter("test", storage, 5, 512);
+
+		/*
+		 * Committing concurrently from several threads, every commit waits for its own durability.
+		 */
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < COMMITS_PER_THREAD; i++)
+					committer.enqueue(thread + "-" + i, bytes("record " + i));
+			});
+			threads[t].start();
+		}
+		for (Thread thread: threads)
+			thread.join();
+		committer.flush();
+
+		/*
+		 * All records must be persisted with far fewer syncs than commits.
+		 */
+		assertArrayEquals(bytes("record 42"), storage.read("3-42"));
+		assertTrue("Expected batched syncs but got " + syncs.get(), syncs.get() < THREADS * COMMITS_PER_THREAD / 10);
+
+		committer.close();
+		storage.close();
+
+	}
+
+	@Test
+	public void testPendingDeleteAndClose() throws Exception {
+
+		SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), 1 << 20);
+		WriteBehindCommitter committer = new WriteBehindCommitter("test", storage, 1000, 512);
+
+		/*
+		 * With a long durability window the commits stay in the pipeline and must be visible as pending.
+		 */
+		committer.enqueue("abc", bytes("first"));
+		committer.enqueue("abc", null);
+		assertNull(committer.getPending("abc").getRecord());
+
+		committer.enqueue("xyz", bytes("second"));
+		committer.close();
+
+		/*
+		 * Closing the pipeline persists everything enqueued before.
+		 */
+		assertFalse(storage.contains("abc"));
+		assertArrayEquals(bytes("second"), storage.read("xyz"));
+		assertNull(committer.getPending("xyz"));
+		storage.close();
+
+	}
+
+	@Test
+	public void testFailedBatchIsRetried() throws Exception {
+
+		AtomicBoolean failing = new AtomicBoolean(true);
+		SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), 1 << 20) {
+			@Override
+			public void writeAll(Map<String, byte[]> records) throws IOException {
+				if (failing.get())
+					throw new IOException("Disk full");
+				super.writeAll(records);
+			}
+		};
+		WriteBehindCommitter committer = new WriteBehindCommitter("test", storage, 5, 512);
+
+		/*
+		 * While the storage fails the commit stays pending and readable, it is neither durable nor given up.
+		 */
+		CompletableFuture<Void> durable = committer.enqueue("abc", bytes("first"));
+		long deadline = System.currentTimeMillis() + 5000;
+		while (committer.getFailureCount() < 2 && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertTrue(committer.getFailureCount() >= 2);
+		assertFalse(durable.isDone());
+		assertArrayEquals(bytes("first"), committer.getPending("abc").getRecord());
+		committer.enqueue("xyz", bytes("second"));
+		assertEquals(2, committer.getPendingCount());
+
+		/*
+		 * Once the storage recovers, the retried batch and the commits enqueued meanwhile are persisted.
+		 */
+		failing.set(false);
+		durable.get(5, TimeUnit.SECONDS);
+		committer.flush();
+		assertArrayEquals(bytes("first"), storage.read("abc"));
+		assertArrayEquals(bytes("second"), storage.read("xyz"));
+		assertEquals(0, committer.getPendingCount());
+
+		committer.close();
+		storage.close();
+
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,144 @@
+package org.urlshortener.dataaccess.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ *	This class tests the admission and weighing behaviour of the {@link TinyLfuCache}.
+ */
+public class TinyLfuCacheTest {
+
+	private static final int CAPACITY = 100;
+
+	@Test
+	public void testScanDoesNotEvictHotElements() {
+
+		TinyLfuCache<String> cache = new TinyLfuCache<>(CAPACITY);
+
+		/*
+		 * Filling the cache with elements which are then requested repeatedly.
+		 */
+		for (int i = 0; i < CAPACITY; i++)
+			cache.put("hot" + i, "value" + i);
+		for (int round = 0; round < 5; round++)
+			for (int i = 0; i < CAPACITY; i++)
+				cache.get("hot" + i);
+
+		/*
+		 * A scan over many elements, each one missed and loaded once.
+		 */
+		for (int i = 0; i < 10 * CAPACITY; i++) {
+			if (cache.get("cold" + i) == null)
+				cache.put("cold" + i, "value" + i);
+		}
+
+		int retained = 0;
+		for (int i = 0; i < CAPACITY; i++)
+			if (cache.get("hot" + i) != null)
+				retained++;
+		assertTrue("Expected hot elements to survive the scan but only " + retained + " did", retained > CAPACITY * 9 / 10);
+		assertTrue(cache.size() <= CAPACITY);
+
+		CacheStatistics statistics = cache.getStatistics();
+		assertTrue(statistics.getRejections() > 0);
+		assertTrue(statistics.getHits() >= 5 * CAPACITY);
+
+	}
+
+	@Test
+	public void testNewElementsAreAdmitted() {
+
+		TinyLfuCache<String> cache = new TinyLfuCache<>(CAPACITY);
+
+		/*
+		 * Filling the cache with elements which are requested a few times.
+		 */
+		for (int i = 0; i < CAPACITY; i++)
+			cache.put("old" + i, "value" + i);
+		for (int round = 0; round < 2; round++)
+			for (int i = 0; i < CAPACITY; i++)
+				cache.get("old" + i);
+
+		/*
+		 * A new element, never requested before, is kept in the admission window rather than rejected.
+		 */
+		cache.put("new", "value");
+		for (int i = 0; i < CAPACITY; i++)
+			cache.get("old" + i);
+		assertNotNull(cache.get("new"));
+
+		/*
+		 * Requested more often than the others while in the window, it keeps its place once it leaves the window.
+		 */
+		for (int i = 0; i < 5; i++)
+			cache.get("new");
+		for (int i = 0; i < 5; i++)
+			cache.put("newer" + i, "value" + i);
+		assertNotNull(cache.peek("new"));
+		assertTrue(cache.size() <= CAPACITY);
+
+	}
+
+	@Test
+	public void testWeightBound() {
+
+		TinyLfuCache<String> cache = new TinyLfuCache<>(1000, 10, String::length);
+
+		/*
+		 * Elements heavier than the whole cache are not cached at all.
+		 */
+		cache.put("big", new String(new char[2000]));
+		assertNull(cache.get("big"));
+
+		/*
+		 * Replacing an element accounts for the difference of weight.
+		 */
+		cache.put("a", new String(new char[400]));
+		cache.put("a", new String(new char[300]));
+		assertNotNull(cache.get("a"));
+		assertEquals(300, cache.getStatistics().getWeight());
+
+		for (int i = 0; i < 20; i++) {
+			cache.get("b" + i);
+			cache.put("b" + i, new String(new char[300]));
+		}
+		assertTrue(cache.getStatistics().getWeight() <= 1000);
+
+	}
+
+	@Test
+	public void testPinnedElementsAreNotEvicted() {
+
+		TinyLfuCache<String> cache = new TinyLfuCache<>(CAPACITY);
+		cache.setPinned(key -> key.startsWith("pinned"));
+
+		/*
+		 * Pinned elements requested only once survive a scan, and are admitted even once the cache is full.
+		 */
+		cache.put("pinned0", "value");
+		for (int i = 0; i < 10 * CAPACITY; i++) {
+			if (cache.get("cold" + i) == null)
+				cache.put("cold" + i, "value" + i);
+		}
+		cache.put("pinned1", "value");
+		assertNotNull(cache.peek("pinned0"));
+		assertNotNull(cache.peek("pinned1"));
+
+		/*
+		 * Once no longer pinned they are evicted like any other element.
+		 */
+		cache.setPinned(key -> false);
+		for (int i = 0; i < 10 * CAPACITY; i++) {
+			if (cache.get("scan" + i) == null)
+				cache.put("scan" + i, "value" + i);
+		}
+		assertNull(cache.peek("pinned0"));
+		assertTrue(cache.size() <= CAPACITY);
+
+	}
+
+}
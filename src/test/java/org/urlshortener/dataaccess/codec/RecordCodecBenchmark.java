@@ -0,0 +1,80 @@
+package org.urlshortener.dataaccess.codec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.urlshortener.Base62;
+import org.urlshortener.model.Account;
+import org.urlshortener.model.RegisteredUrl;
+
+/**
+ * <p>Compares the JSON and the binary record formats by the bytes written per record and by the decoding time.</p>
+ * <p>Not part of the test suite, run the <code>main</code> method with the test classpath.</p>
+ */
+public class RecordCodecBenchmark {
+
+	private static final int RECORDS = 100_000;
+	private static final int ROUNDS = 10;
+	private static final int REDIRECTS_PER_ACCOUNT = 20;
+
+	/* Consumes the decoded elements so that decoding cannot be optimized away. */
+	private static volatile Object sink;
+
+	public static void main(String[] args) {
+
+		List<RegisteredUrl> urls = new ArrayList<>();
+		List<Account> accounts = new ArrayList<>();
+		for (int i = 0; i < RECORDS; i++) {
+
+			RegisteredUrl url = new RegisteredUrl();
+			url.setId(Base62.unpack(i));
+			url.setUrl("https://www.example.com/articles/" + i + "/a-reasonably-long-article-title?utm_source=newsletter");
+			urls.add(url);
+
+			if (i % REDIRECTS_PER_ACCOUNT == 0) {
+				Account account = new Account();
+				account.setId("account" + i);
+				account.setPasswordHash("$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy");
+				accounts.add(account);
+			}
+			accounts.get(accounts.size() - 1).registerUrl(url.getId());
+
+		}
+
+		System.out.println("type\tformat\tbytes/record\tdecode ns/record");
+		compare("url", urls, new JsonRecordCodec<>(RegisteredUrl.class), new RegisteredUrlCodec());
+		compare("account", accounts, new JsonRecordCodec<>(Account.class), new AccountCodec());
+
+	}
+
+	private static <T> void compare(String type, List<T> elements, RecordCodec<T> json, RecordCodec<T> binary) {
+
+		measure(type, "json", elements, json);
+		measure(type, "binary", elements, binary);
+
+	}
+
+	private static <T> void measure(String type, String format, List<T> elements, RecordCodec<T> codec) {
+
+		List<byte[]> records = new ArrayList<>(elements.size());
+		long bytes = 0;
+		for (T element: elements) {
+			byte[] record = codec.encode(element);
+			records.add(record);
+			bytes += record.length;
+		}
+
+		//The first rounds warm up the JIT, only the best round is reported.
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (byte[] record: records)
+				sink = codec.decode(record);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+
+		System.out.println(type + "\t" + format + "\t" + bytes / records.size() + "\t" + best / records.size());
+
+	}
+
+}
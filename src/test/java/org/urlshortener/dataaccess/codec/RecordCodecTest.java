@@ -0,0 +1,92 @@
+package org.urlshortener.dataaccess.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.urlshortener.model.Account;
+import org.urlshortener.model.RegisteredUrl;
+
+/**
+ *	This class tests the binary record format of {@link RegisteredUrlCodec} and {@link AccountCodec}.
+ */
+public class RecordCodecTest {
+
+	@Test
+	public void testRegisteredUrlRoundTrip() {
+
+		RegisteredUrl url = new RegisteredUrl();
+		url.setId("aBcD1234");
+		url.setUrl("http://example.com/été?q=1");
+		url.setRedirectType(301);
+		url.setCacheable(false);
+
+		RegisteredUrlCodec codec = new RegisteredUrlCodec();
+		byte[] record = codec.encode(url);
+		assertTrue(BinaryRecordCodec.isBinary(record));
+		assertTrue(record.length < new JsonRecordCodec<RegisteredUrl>(RegisteredUrl.class).encode(url).length);
+		assertEquals(record.length, codec.getRecordLength(url));
+
+		RegisteredUrl decoded = codec.decode(record);
+		assertEquals(url.getId(), decoded.getId());
+		assertEquals(url.getUrl(), decoded.getUrl());
+		assertEquals(301, decoded.getRedirectType());
+		assertFalse(decoded.isCacheable());
+
+	}
+
+	@Test
+	public void testAccountRoundTrip() {
+
+		Account account = new Account();
+		account.setId("myAccountId");
+		account.setPassword("pAsSw0rd");
+		account.setPasswordHash("$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy");
+		account.registerUrl("aBcD1234");
+		account.registerUrl("xYz98765");
+
+		byte[] record = new AccountCodec().encode(account);
+		assertEquals(record.length, new AccountCodec().getRecordLength(account));
+
+		Account decoded = new AccountCodec().decode(record);
+		assertEquals("myAccountId", decoded.getId());
+		assertEquals(account.getPasswordHash(), decoded.getPasswordHash());
+		assertNull(decoded.getPassword());
+		assertEquals(Arrays.asList("aBcD1234", "xYz98765"), decoded.getRedirects());
+
+	}
+
+	@Test(expected = RecordFormatException.class)
+	public void testJsonRecordIsNotBinary() {
+
+		byte[] json = "{\"id\":\"aBcD1234\",\"url\":\"http://example.com\",\"redirectType\":302}".getBytes();
+		assertFalse(BinaryRecordCodec.isBinary(json));
+		new RegisteredUrlCodec().decode(json);
+
+	}
+
+	@Test(expected = RecordFormatException.class)
+	public void testTruncatedRecord() {
+
+		RegisteredUrl url = new RegisteredUrl();
+		url.setId("aBcD1234");
+		url.setUrl("http://example.com");
+		byte[] record = new RegisteredUrlCodec().encode(url);
+		new RegisteredUrlCodec().decode(Arrays.copyOf(record, record.length - 4));
+
+	}
+
+	@Test(expected = RecordFormatException.class)
+	public void testRecordOfOtherType() {
+
+		Account account = new Account();
+		account.setId("myAccountId");
+		new RegisteredUrlCodec().decode(new AccountCodec().encode(account));
+
+	}
+
+}
@@ -0,0 +1,85 @@
+package org.urlshortener.dataaccess.id;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.urlshortener.Base62;
+
+/**
+ *	This class tests that the {@link PooledShortIdGenerator} is filled in the background
+ *	and hands out every generated id once, also when drained concurrently.
+ */
+public class PooledShortIdGeneratorTest {
+
+	private static final int CAPACITY = 64;
+	private static final int THREADS = 4;
+	private static final int IDS_PER_THREAD = 5_000;
+
+	@Test
+	public void testPoolIsRefilled() throws Exception {
+
+		AtomicLong sequence = new AtomicLong();
+		PooledShortIdGenerator pool = new PooledShortIdGenerator("test", () -> Base62.unpack(sequence.getAndIncrement()), CAPACITY);
+		try {
+
+			awaitDepth(pool, CAPACITY);
+			assertEquals(Base62.unpack(0), pool.nextId());
+
+			/*
+			 * Draining down to half of the capacity wakes up the refill.
+			 */
+			for (int i = 1; i < CAPACITY / 2; i++)
+				pool.nextId();
+			awaitDepth(pool, CAPACITY);
+			assertTrue(pool.getRefillCount() > CAPACITY);
+
+		} finally {
+			pool.close();
+		}
+
+	}
+
+	@Test
+	public void testConcurrentDrain() throws Exception {
+
+		AtomicLong sequence = new AtomicLong();
+		PooledShortIdGenerator pool = new PooledShortIdGenerator("test", () -> Base62.unpack(sequence.getAndIncrement()), CAPACITY);
+		Set<String> ids = ConcurrentHashMap.newKeySet();
+		try {
+
+			Thread[] threads = new Thread[THREADS];
+			for (int t = 0; t < THREADS; t++) {
+				threads[t] = new Thread(() -> {
+					for (int i = 0; i < IDS_PER_THREAD; i++)
+						ids.add(pool.nextId());
+				});
+				threads[t].start();
+			}
+			for (Thread thread: threads)
+				thread.join();
+
+			/*
+			 * Every id was handed out once, whether taken from the pool or generated as a fallback.
+			 */
+			assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+
+		} finally {
+			pool.close();
+		}
+
+	}
+
+	private static void awaitDepth(PooledShortIdGenerator pool, int depth) throws InterruptedException {
+
+		for (int i = 0; i < 500 && pool.getDepth() < depth; i++)
+			Thread.sleep(10);
+		assertEquals(depth, pool.getDepth());
+
+	}
+
+}
@@ -0,0 +1,98 @@
+package org.urlshortener.dataaccess.id;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.urlshortener.Base62;
+
+/**
+ *	This class tests the uniqueness of the ids handed out by the {@link SequentialShortIdGenerator},
+ *	also across restarts and with ids registered otherwise.
+ */
+public class SequentialShortIdGeneratorTest {
+
+	private static final int IDS = 50_000;
+	private static final int BLOCK_SIZE = 100;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testPermutedIdsAreUniqueAcrossRestarts() throws Exception {
+
+		File file = new File(folder.getRoot(), "shortIds.sequence");
+		Set<String> ids = new HashSet<>();
+
+		SequentialShortIdGenerator generator = new SequentialShortIdGenerator(file, BLOCK_SIZE, true, id -> false, () -> false);
+		for (int i = 0; i < IDS; i++)
+			assertTrue(ids.add(generator.nextId()));
+		generator.nextId();
+
+		/*
+		 * After a restart the sequence resumes at the end of the last leased block, with the same permutation.
+		 */
+		generator = new SequentialShortIdGenerator(file, BLOCK_SIZE, true, id -> false, () -> false);
+		assertEquals((IDS / BLOCK_SIZE + 1) * BLOCK_SIZE, generator.getSequence());
+		for (int i = 0; i < IDS; i++) {
+			String id = generator.nextId();
+			assertTrue(Base62.pack(id) >= 0);
+			assertTrue(ids.add(id));
+		}
+
+		/*
+		 * Permuted ids must not simply count up.
+		 */
+		assertFalse(ids.contains(Base62.unpack(1)) && ids.contains(Base62.unpack(2)));
+
+	}
+
+	@Test
+	public void testRegisteredIdsAreSkipped() throws Exception {
+
+		File file = new File(folder.getRoot(), "shortIds.sequence");
+		Set<String> registered = new HashSet<>();
+		registered.add(Base62.unpack(1));
+		registered.add(Base62.unpack(2));
+
+		SequentialShortIdGenerator generator = new SequentialShortIdGenerator(file, BLOCK_SIZE, false, registered::contains, () -> true);
+		assertEquals(Base62.unpack(0), generator.nextId());
+		assertEquals(Base62.unpack(3), generator.nextId());
+
+		/*
+		 * The ids registered before the sequence are still skipped after a restart.
+		 */
+		registered.add(Base62.unpack(BLOCK_SIZE));
+		generator = new SequentialShortIdGenerator(file, BLOCK_SIZE, false, registered::contains, () -> false);
+		assertEquals(Base62.unpack(BLOCK_SIZE + 1), generator.nextId());
+
+	}
+
+	@Test
+	public void testSequenceOnlyIdsAreNeverLookedUp() throws Exception {
+
+		File file = new File(folder.getRoot(), "shortIds.sequence");
+		SequentialShortIdGenerator generator = new SequentialShortIdGenerator(file, BLOCK_SIZE, true, id -> {
+			throw new AssertionError("Looked up " + id);
+		}, () -> false);
+		for (int i = 0; i < IDS; i++)
+			generator.nextId();
+
+		/*
+		 * The repository holds the sequence's own ids after a restart, which cannot collide with the sequence.
+		 */
+		generator = new SequentialShortIdGenerator(file, BLOCK_SIZE, true, id -> {
+			throw new AssertionError("Looked up " + id);
+		}, () -> true);
+		generator.nextId();
+
+	}
+
+}
@@ -0,0 +1,114 @@
+package org.urlshortener.dataaccess.storage;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.urlshortener.ApplicationConstants.BLOOM_ENABLED_PROP;
+import static org.urlshortener.ApplicationConstants.BLOOM_FILTER_FILE;
+import static org.urlshortener.ApplicationConstants.REPOSITORY_PROPERTY_PREFIX;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.urlshortener.Base62;
+import org.urlshortener.dataaccess.RepositorySettings;
+
+/**
+ *	This class tests the lookups and the persistence of the {@link MappedBloomFilter}.
+ */
+public class MappedBloomFilterTest {
+
+	private static final int IDS = 10_000;
+	private static final double FPP = 0.01;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testNoFalseNegativesAndBoundedFalsePositives() throws Exception {
+
+		MappedBloomFilter filter = new MappedBloomFilter(new File(folder.getRoot(), "ids.bloom"), IDS, FPP, 1 << 20);
+		assertTrue(filter.needsRebuild());
+		for (int i = 0; i < IDS; i++)
+			filter.add(Base62.unpack(i));
+
+		/*
+		 * Every added id must be reported, unknown ones rarely.
+		 */
+		for (int i = 0; i < IDS; i++)
+			assertTrue(filter.mightContain(Base62.unpack(i)));
+		int falsePositives = 0;
+		for (int i = IDS; i < 11 * IDS; i++)
+			if (filter.mightContain(Base62.unpack(i)))
+				falsePositives++;
+		assertTrue("Too many false positives: " + falsePositives, falsePositives < 10 * IDS * FPP * 2);
+		filter.close();
+
+	}
+
+	@Test
+	public void testReopen() throws Exception {
+
+		File file = new File(folder.getRoot(), "ids.bloom");
+		MappedBloomFilter filter = new MappedBloomFilter(file, IDS, FPP, 1 << 20);
+		filter.add("abcdEFGH");
+		filter.close();
+
+		/*
+		 * A cleanly closed filter is reused as is.
+		 */
+		filter = new MappedBloomFilter(file, IDS, FPP, 1 << 20);
+		assertFalse(filter.needsRebuild());
+		assertTrue(filter.mightContain("abcdEFGH"));
+
+		/*
+		 * A filter which has not been closed, as after a crash, must be rebuilt.
+		 */
+		MappedBloomFilter crashed = new MappedBloomFilter(new File(folder.getRoot(), "copy.bloom"), IDS, FPP, 1 << 20);
+		crashed.add("abcdEFGH");
+		Files.copy(new File(folder.getRoot(), "copy.bloom").toPath(), new File(folder.getRoot(), "crashed.bloom").toPath());
+		filter.close();
+		crashed.close();
+		MappedBloomFilter reopened = new MappedBloomFilter(new File(folder.getRoot(), "crashed.bloom"), IDS, FPP, 1 << 20);
+		assertTrue(reopened.needsRebuild());
+		assertFalse(reopened.mightContain("abcdEFGH"));
+		reopened.close();
+
+		/*
+		 * A filter created with other parameters must be rebuilt as well.
+		 */
+		MappedBloomFilter resized = new MappedBloomFilter(file, 10 * IDS, FPP, 1 << 20);
+		assertTrue(resized.needsRebuild());
+		resized.close();
+
+	}
+
+	@Test
+	public void testDisabledFilterIsDiscarded() throws Exception {
+
+		File repo = folder.newFolder("registeredUrls");
+		RepositorySettings enabled = new RepositorySettings(new StandardEnvironment());
+		enabled.openBloomFilter(repo).close();
+
+		/*
+		 * Ids stored while the filter is disabled are not added, so a cleanly closed filter left in place would miss them.
+		 */
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new MapPropertySource("test",
+				Collections.singletonMap(REPOSITORY_PROPERTY_PREFIX + BLOOM_ENABLED_PROP, "false")));
+		assertNull(new RepositorySettings(environment).openBloomFilter(repo));
+		assertFalse(new File(repo, BLOOM_FILTER_FILE).exists());
+
+		MappedBloomFilter filter = enabled.openBloomFilter(repo);
+		assertTrue(filter.needsRebuild());
+		filter.close();
+
+	}
+
+}
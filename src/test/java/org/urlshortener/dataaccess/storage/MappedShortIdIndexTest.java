@@ -0,0 +1,281 @@
+package org.urlshortener.dataaccess.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.urlshortener.ApplicationConstants.SEGMENTS_DIRECTORY;
+import static org.urlshortener.ApplicationConstants.SHORT_ID_INDEX_FILE;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.urlshortener.Base62;
+
+/**
+ *	This class tests the {@link MappedShortIdIndex} on its own and as the persistent
+ *	index of a {@link SegmentLogStorage}.
+ */
+public class MappedShortIdIndexTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testPutGetRemoveAcrossGrowth() throws Exception {
+
+		File file = new File(folder.getRoot(), SHORT_ID_INDEX_FILE);
+
+		/*
+		 * Starting with the smallest capacity so that the table has to be rebuilt several times.
+		 */
+		try (MappedShortIdIndex index = new MappedShortIdIndex(file, 16)) {
+
+			for (long i = 0; i < 1000; i++)
+				index.put(Base62.unpack(i * 7919), i);
+			for (long i = 0; i < 1000; i += 2)
+				assertTrue(index.remove(Base62.unpack(i * 7919), 1000 + i));
+
+			assertEquals(500, index.size());
+			assertEquals(RecordIndex.NOT_FOUND, index.get(Base62.unpack(0)));
+			assertEquals(999, index.get(Base62.unpack(999 * 7919)));
+			assertEquals(RecordIndex.NOT_FOUND, index.get("not-a-short-id"));
+			assertFalse(index.remove("not-a-short-id", 2000));
+
+		}
+
+		/*
+		 * Re-opening the mapped file must restore all entries without any rebuild.
+		 */
+		try (MappedShortIdIndex index = new MappedShortIdIndex(file, 16)) {
+			assertEquals(500, index.size());
+			assertEquals(501, index.get(Base62.unpack(501 * 7919)));
+			assertEquals(500, index.locations().length);
+		}
+
+	}
+
+	@Test
+	public void testStorageReplaysOnlyTailBeyondCheckpoint() throws Exception {
+
+		File indexFile = new File(folder.getRoot(), SHORT_ID_INDEX_FILE);
+		try (SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), 1024, new MappedShortIdIndex(indexFile, 16))) {
+			for (int i = 0; i < 100; i++)
+				storage.write(Base62.unpack(i), bytes("url " + i));
+			storage.delete(Base62.unpack(3));
+		}
+
+		try (SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), 1024, new MappedShortIdIndex(indexFile, 16))) {
+
+			assertArrayEquals(bytes("url 42"), storage.read(Base62.unpack(42)));
+			assertFalse(storage.contains(Base62.unpack(3)));
+
+		}
+
+		/*
+		 * Losing the index file falls back to a full replay of the log.
+		 */
+		assertTrue(indexFile.delete());
+		try (SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), 1024, new MappedShortIdIndex(indexFile, 16))) {
+			assertArrayEquals(bytes("url 99"), storage.read(Base62.unpack(99)));
+			assertFalse(storage.contains(Base62.unpack(3)));
+		}
+
+	}
+
+	@Test
+	public void testIndexAheadOfLogIsRebuilt() throws Exception {
+
+		File indexFile = new File(folder.getRoot(), SHORT_ID_INDEX_FILE);
+		MappedShortIdIndex index = new MappedShortIdIndex(indexFile, 16);
+		SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), 1 << 20, index);
+		storage.write(Base62.unpack(1), bytes("first"));
+		storage.write(Base62.unpack(2), bytes("kept"));
+		storage.sync();
+		File[] segments = new File(folder.getRoot(), SEGMENTS_DIRECTORY).listFiles();
+		assertEquals(1, segments.length);
+		long synced = segments[0].length();
+
+		/*
+		 * Writes and deletes whose index entries reach the disk while the log they point to does not, as after a power loss.
+		 */
+		storage.write(Base62.unpack(1), bytes("second"));
+		storage.write(Base62.unpack(3), bytes("lost"));
+		storage.delete(Base62.unpack(2));
+		index.sync();
+		File crashed = folder.newFolder();
+		FileUtils.copyDirectory(new File(folder.getRoot(), SEGMENTS_DIRECTORY), new File(crashed, SEGMENTS_DIRECTORY));
+		FileUtils.copyFile(indexFile, new File(crashed, SHORT_ID_INDEX_FILE));
+		try (RandomAccessFile segment = new RandomAccessFile(new File(new File(crashed, SEGMENTS_DIRECTORY), segments[0].getName()), "rw")) {
+			segment.setLength(synced);
+		}
+		storage.close();
+
+		/*
+		 * Verifying the synced records are found again and the lost ones are not found, rather than corrupted.
+		 */
+		try (SegmentLogStorage recovered = new SegmentLogStorage(crashed, 1 << 20, new MappedShortIdIndex(new File(crashed, SHORT_ID_INDEX_FILE), 16))) {
+			assertArrayEquals(bytes("first"), recovered.read(Base62.unpack(1)));
+			assertArrayEquals(bytes("kept"), recovered.read(Base62.unpack(2)));
+			assertNull(recovered.read(Base62.unpack(3)));
+		}
+
+	}
+
+	@Test
+	public void testRemovalAheadOfLogIsUndone() throws Exception {
+
+		File indexFile = new File(folder.getRoot(), SHORT_ID_INDEX_FILE);
+		MappedShortIdIndex index = new MappedShortIdIndex(indexFile, 16);
+		SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), 1 << 20, index);
+		storage.write(Base62.unpack(1), bytes("kept"));
+		storage.sync();
+		long synced = new File(folder.getRoot(), SEGMENTS_DIRECTORY).listFiles()[0].length();
+
+		/*
+		 * A removal reaching the disk while its delete record does not.
+		 */
+		storage.delete(Base62.unpack(1));
+		index.sync();
+		File crashed = folder.newFolder();
+		FileUtils.copyDirectory(new File(folder.getRoot(), SEGMENTS_DIRECTORY), new File(crashed, SEGMENTS_DIRECTORY));
+		FileUtils.copyFile(indexFile, new File(crashed, SHORT_ID_INDEX_FILE));
+		try (RandomAccessFile segment = new RandomAccessFile(new File(crashed, SEGMENTS_DIRECTORY).listFiles()[0], "rw")) {
+			segment.setLength(synced);
+		}
+		storage.close();
+
+		try (SegmentLogStorage recovered = new SegmentLogStorage(crashed, 1 << 20, new MappedShortIdIndex(new File(crashed, SHORT_ID_INDEX_FILE), 16))) {
+			assertArrayEquals(bytes("kept"), recovered.read(Base62.unpack(1)));
+		}
+
+	}
+
+	@Test
+	public void testCheckpointNeverCoversStaleSlots() throws Exception {
+
+		File indexFile = new File(folder.getRoot(), SHORT_ID_INDEX_FILE);
+		//Large enough not to be rebuilt, which would force every slot.
+		DeviceIndex index = new DeviceIndex(new MappedShortIdIndex(indexFile, 1024), indexFile);
+		SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), 1 << 20, index);
+		for (int i = 0; i < 100; i++)
+			storage.write(Base62.unpack(i), bytes("url " + i));
+		storage.sync();
+		storage.delete(Base62.unpack(7));
+
+		/*
+		 * A power loss leaves the header with the latest checkpoint on the disk, and the slots as last forced.
+		 */
+		File crashed = folder.newFolder();
+		FileUtils.copyDirectory(new File(folder.getRoot(), SEGMENTS_DIRECTORY), new File(crashed, SEGMENTS_DIRECTORY));
+		Files.write(new File(crashed, SHORT_ID_INDEX_FILE).toPath(), index.device);
+		storage.close();
+
+		try (SegmentLogStorage recovered = new SegmentLogStorage(crashed, 1 << 20, new MappedShortIdIndex(new File(crashed, SHORT_ID_INDEX_FILE), 1024))) {
+			for (int i = 0; i < 100; i++)
+				if (i != 7)
+					assertArrayEquals(bytes("url " + i), recovered.read(Base62.unpack(i)));
+			assertFalse(recovered.contains(Base62.unpack(7)));
+		}
+
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Keeps a copy of the index file as it stands on the storage device: the whole file as of the latest
+	 * 	{@link #sync()}, with only the header page written back by {@link #setCheckpoint(long)}.
+	 */
+	private static final class DeviceIndex implements RecordIndex {
+
+		private static final int HEADER_SIZE = 64;
+
+		private final RecordIndex index;
+		private final File file;
+		private byte[] device;
+
+		private DeviceIndex(RecordIndex index, File file) throws IOException {
+			this.index = index;
+			this.file = file;
+			this.device = Files.readAllBytes(file.toPath());
+		}
+
+		@Override
+		public long get(String id) {
+			return index.get(id);
+		}
+
+		@Override
+		public void put(String id, long location) throws IOException {
+			index.put(id, location);
+		}
+
+		@Override
+		public boolean remove(String id, long location) {
+			return index.remove(id, location);
+		}
+
+		@Override
+		public int size() {
+			return index.size();
+		}
+
+		@Override
+		public long[] locations() {
+			return index.locations();
+		}
+
+		@Override
+		public int removeFrom(long position) {
+			return index.removeFrom(position);
+		}
+
+		@Override
+		public long getCheckpoint() {
+			return index.getCheckpoint();
+		}
+
+		@Override
+		public void setCheckpoint(long position) {
+
+			index.setCheckpoint(position);
+			try {
+				byte[] header = Files.readAllBytes(file.toPath());
+				System.arraycopy(header, 0, device, 0, HEADER_SIZE);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+
+		}
+
+		@Override
+		public void clear() {
+			index.clear();
+		}
+
+		@Override
+		public void sync() throws IOException {
+
+			index.sync();
+			device = Files.readAllBytes(file.toPath());
+
+		}
+
+		@Override
+		public void close() throws IOException {
+			index.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,180 @@
+package org.urlshortener.dataaccess.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.urlshortener.ApplicationConstants.SEGMENTS_DIRECTORY;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *	This class tests the {@link SegmentLogStorage}'s write, read, delete and recovery
+ *	behaviour against a temporary repository directory.
+ */
+public class SegmentLogStorageTest {
+
+	private static final long SMALL_SEGMENT_SIZE = 256;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testWriteAndRead() throws Exception {
+
+		try (SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), SMALL_SEGMENT_SIZE)) {
+
+			storage.write("abc", bytes("first"));
+			storage.write("abc", bytes("second"));
+
+			/*
+			 * The latest appended record must win over the earlier one.
+			 */
+			assertTrue(storage.contains("abc"));
+			assertArrayEquals(bytes("second"), storage.read("abc"));
+			assertNull(storage.read("xyz"));
+
+			/*
+			 * A batch read spanning several segments finds the latest records and leaves out unknown ids.
+			 */
+			for (int i = 0; i < 20; i++)
+				storage.write("id" + i, bytes("record of " + i));
+			Map<String, byte[]> records = storage.readAll(Arrays.asList("id17", "abc", "xyz", "id2"));
+			assertEquals(3, records.size());
+			assertArrayEquals(bytes("record of 17"), records.get("id17"));
+			assertArrayEquals(bytes("second"), records.get("abc"));
+			assertArrayEquals(bytes("record of 2"), records.get("id2"));
+
+		}
+
+	}
+
+	@Test
+	public void testSnapshot() throws Exception {
+
+		File directory = new File(folder.getRoot(), SEGMENTS_DIRECTORY);
+
+		/*
+		 * Overwriting the same ids several times over many segments, then compacting them into a snapshot.
+		 */
+		long tailSize;
+		try (SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), SMALL_SEGMENT_SIZE)) {
+
+			for (int round = 0; round < 5; round++)
+				for (int i = 0; i < 20; i++)
+					storage.write("id" + i, bytes("round " + round + " of " + i));
+			assertTrue(storage.delete("id3"));
+			int segmentsBefore = directory.list().length;
+
+			assertEquals(19, storage.snapshot());
+			assertTrue(directory.list().length < segmentsBefore);
+			assertArrayEquals(bytes("round 4 of 12"), storage.read("id12"));
+			assertFalse(storage.contains("id3"));
+
+			/*
+			 * Writes after the snapshot form the tail, which overrides the snapshot.
+			 */
+			storage.write("id12", bytes("after snapshot"));
+			storage.delete("id13");
+			tailSize = storage.getTailSize();
+			assertTrue(tailSize > 0);
+
+		}
+
+		/*
+		 * Re-opening loads the snapshot and replays the tail on top of it.
+		 */
+		try (SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), SMALL_SEGMENT_SIZE)) {
+
+			//The snapshot is still told apart from the tail.
+			assertEquals(tailSize, storage.getTailSize());
+			assertArrayEquals(bytes("after snapshot"), storage.read("id12"));
+			assertArrayEquals(bytes("round 4 of 0"), storage.read("id0"));
+			assertFalse(storage.contains("id3"));
+			assertFalse(storage.contains("id13"));
+
+			int count = 0;
+			for (Iterator<byte[]> iterator = storage.iterator(); iterator.hasNext(); iterator.next())
+				count++;
+			assertEquals(18, count);
+
+		}
+
+	}
+
+	@Test
+	public void testRecoveryAfterReopen() throws Exception {
+
+		/*
+		 * Writing enough records to roll over several segments, then deleting one of them.
+		 */
+		try (SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), SMALL_SEGMENT_SIZE)) {
+			for (int i = 0; i < 50; i++)
+				storage.write("id" + i, bytes("record number " + i));
+			assertTrue(storage.delete("id7"));
+			assertFalse(storage.delete("id7"));
+		}
+
+		File[] segments = new File(folder.getRoot(), SEGMENTS_DIRECTORY).listFiles();
+		assertTrue(segments.length > 1);
+
+		/*
+		 * Re-opening the storage must rebuild the index from the segments, including the tombstone.
+		 */
+		try (SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), SMALL_SEGMENT_SIZE)) {
+
+			assertArrayEquals(bytes("record number 42"), storage.read("id42"));
+			assertFalse(storage.contains("id7"));
+
+			int count = 0;
+			for (Iterator<byte[]> iterator = storage.iterator(); iterator.hasNext(); iterator.next())
+				count++;
+			assertEquals(49, count);
+
+		}
+
+	}
+
+	@Test
+	public void testTornTailIsTruncated() throws Exception {
+
+		try (SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), SMALL_SEGMENT_SIZE * 100)) {
+			storage.write("one", bytes("1"));
+			storage.write("two", bytes("2"));
+		}
+
+		/*
+		 * Simulating a crash in the middle of an append by chopping off the last bytes.
+		 */
+		File segment = new File(folder.getRoot(), SEGMENTS_DIRECTORY).listFiles()[0];
+		try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+			file.setLength(file.length() - 3);
+		}
+
+		try (SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), SMALL_SEGMENT_SIZE * 100)) {
+
+			assertArrayEquals(bytes("1"), storage.read("one"));
+			assertFalse(storage.contains("two"));
+
+			storage.write("three", bytes("3"));
+			assertArrayEquals(bytes("3"), storage.read("three"));
+
+		}
+
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
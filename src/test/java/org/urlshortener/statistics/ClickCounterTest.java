@@ -0,0 +1,209 @@
+package org.urlshortener.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.urlshortener.dataaccess.storage.SegmentLogStorage;
+
+/**
+ *	This class tests the {@link ClickCounter}'s concurrent counting, batched flushes
+ *	and recovery of the flushed totals against a temporary repository directory.
+ */
+public class ClickCounterTest {
+
+	private static final long SEGMENT_SIZE = 64 * 1024;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testConcurrentClicks() throws Exception {
+
+		try (ClickCounter counter = new ClickCounter("test", new SegmentLogStorage(folder.getRoot(), SEGMENT_SIZE), 0)) {
+
+			/*
+			 * Counting the clicks of two ids from several threads at once, no click may be lost.
+			 */
+			List<Thread> threads = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				Thread thread = new Thread(() -> {
+					for (int i = 0; i < 10_000; i++)
+						counter.increment(i % 4 == 0 ? "abc" : "xyz");
+				});
+				threads.add(thread);
+				thread.start();
+			}
+			for (Thread thread: threads)
+				thread.join();
+
+			assertEquals(20_000, counter.getClicks("abc"));
+			assertEquals(60_000, counter.getClicks("xyz"));
+			assertEquals(0, counter.getClicks("none"));
+
+		}
+
+	}
+
+	@Test
+	public void testFlushAndReopen() throws Exception {
+
+		try (SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), SEGMENT_SIZE)) {
+
+			ClickCounter counter = new ClickCounter("test", storage, 0);
+			for (int i = 0; i < 5; i++)
+				counter.increment("abc");
+
+			/*
+			 * Nothing is written until the clicks are flushed, then only the totals are.
+			 */
+			assertNull(storage.read("abc"));
+			counter.flush();
+			assertEquals("5", new String(storage.read("abc"), StandardCharsets.US_ASCII));
+
+			/*
+			 * Clicks after a flush are added to the persisted total, an idle counter writes nothing.
+			 */
+			counter.increment("abc");
+			assertEquals(6, counter.getClicks("abc"));
+			counter.flush();
+			counter.flush();
+			assertEquals("6", new String(storage.read("abc"), StandardCharsets.US_ASCII));
+
+		}
+
+		/*
+		 * A counter over the re-opened storage continues from the persisted total.
+		 */
+		try (ClickCounter counter = new ClickCounter("test", new SegmentLogStorage(folder.getRoot(), SEGMENT_SIZE), 0)) {
+
+			assertEquals(6, counter.getClicks("abc"));
+			counter.increment("abc");
+			counter.flush();
+			assertEquals(7, counter.getClicks("abc"));
+
+			counter.delete("abc");
+			assertEquals(0, counter.getClicks("abc"));
+
+		}
+
+	}
+
+	@Test
+	public void testIdleCountersAreRetired() throws Exception {
+
+		try (SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), SEGMENT_SIZE)) {
+
+			ClickCounter counter = new ClickCounter("test", storage, 0);
+			counter.increment("abc");
+			counter.increment("xyz");
+
+			/*
+			 * A counter is kept while it is clicked, and retired after a flush interval without clicks.
+			 */
+			counter.flush();
+			counter.increment("abc");
+			counter.flush();
+			assertEquals(1, counter.getCounterCount());
+			counter.flush();
+			assertEquals(0, counter.getCounterCount());
+
+			/*
+			 * The clicks of a retired counter are read back from the storage and counted on.
+			 */
+			assertEquals(2, counter.getClicks("abc"));
+			counter.increment("abc");
+			counter.flush();
+			assertEquals("3", new String(storage.read("abc"), StandardCharsets.US_ASCII));
+
+			/*
+			 * Clicks of a deleted short id still in flight do not bring its total back.
+			 */
+			counter.delete("abc");
+			counter.increment("abc");
+			counter.flush();
+			assertNull(storage.read("abc"));
+			assertEquals(0, counter.getClicks("abc"));
+
+		}
+
+	}
+
+	@Test
+	public void testClicksRacingWithRetirement() throws Exception {
+
+		try (SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), SEGMENT_SIZE)) {
+
+			ClickCounter counter = new ClickCounter("test", storage, 0);
+
+			/*
+			 * Flushing continuously while clicks come in bursts, so that counters are retired under way.
+			 */
+			AtomicBoolean done = new AtomicBoolean();
+			Thread flusher = new Thread(() -> {
+				while (!done.get()) {
+					try {
+						counter.flush();
+					} catch (Exception e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			});
+			flusher.start();
+			List<Thread> threads = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				Thread thread = new Thread(() -> {
+					for (int i = 0; i < 20_000; i++) {
+						counter.increment("id" + i % 8);
+						if (i % 1000 == 0)
+							Thread.yield();
+					}
+				});
+				threads.add(thread);
+				thread.start();
+			}
+			for (Thread thread: threads)
+				thread.join();
+			done.set(true);
+			flusher.join();
+
+			/*
+			 * Verifying no click was lost nor counted twice.
+			 */
+			counter.flush();
+			long total = 0;
+			for (int i = 0; i < 8; i++)
+				total += Long.parseLong(new String(storage.read("id" + i), StandardCharsets.US_ASCII));
+			assertEquals(80_000, total);
+			assertTrue(counter.getCounterCount() <= 8);
+
+		}
+
+	}
+
+	@Test
+	public void testPeriodicFlush() throws Exception {
+
+		SegmentLogStorage storage = new SegmentLogStorage(folder.getRoot(), SEGMENT_SIZE);
+		try (ClickCounter counter = new ClickCounter("test", storage, 10)) {
+
+			counter.increment("abc");
+			long deadline = System.currentTimeMillis() + 5000;
+			while (storage.read("abc") == null && System.currentTimeMillis() < deadline)
+				Thread.sleep(10);
+			assertFalse(storage.read("abc") == null);
+
+		}
+
+	}
+
+}
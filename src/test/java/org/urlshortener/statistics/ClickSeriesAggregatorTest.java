@@ -0,0 +1,163 @@
+package org.urlshortener.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.urlshortener.dataaccess.storage.SegmentLogStorage;
+
+/**
+ *	This class tests the {@link ClickEventBuffer} hand-over and the {@link ClickSeriesAggregator}'s
+ *	rollups, retention, unique visitors and persistence against a temporary repository directory.
+ */
+public class ClickSeriesAggregatorTest {
+
+	private static final long SEGMENT_SIZE = 64 * 1024;
+	private static final long HOUR = Granularity.HOUR.getMillis();
+	private static final long DAY = Granularity.DAY.getMillis();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testBufferHandOver() throws Exception {
+
+		ClickEventBuffer buffer = new ClickEventBuffer(1000);
+		assertEquals(1024, buffer.getCapacity());
+
+		/*
+		 * Offering clicks from several threads at once, every one must be drained exactly once.
+		 */
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			String id = "id" + t;
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 10_000; i++)
+					while (!buffer.offer(id, i, i))
+						Thread.yield();
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		Map<String, Long> drained = new TreeMap<>();
+		while (threads.stream().anyMatch(Thread::isAlive) || drained.values().stream().mapToLong(Long::longValue).sum() < 40_000)
+			buffer.drain((id, time, fingerprint) -> drained.merge(id, 1L, Long::sum));
+		for (Thread thread: threads)
+			thread.join();
+		for (int t = 0; t < 4; t++)
+			assertEquals(Long.valueOf(10_000), drained.get("id" + t));
+
+		/*
+		 * A full buffer drops further clicks instead of waiting.
+		 */
+		long dropped = buffer.getDroppedCount();
+		for (int i = 0; i < buffer.getCapacity(); i++)
+			assertTrue(buffer.offer("abc", i, i));
+		assertFalse(buffer.offer("abc", 0, 0));
+		assertEquals(dropped + 1, buffer.getDroppedCount());
+
+	}
+
+	@Test
+	public void testRollUpAndRetention() throws Exception {
+
+		long now = System.currentTimeMillis();
+		long today = Granularity.DAY.floor(now);
+		long lastWeek = today - 7 * DAY + 10 * HOUR;
+		File seriesFolder = folder.newFolder("series");
+		File visitorsFolder = folder.newFolder("visitors");
+
+		try (ClickSeriesAggregator aggregator = new ClickSeriesAggregator("test",
+				new SegmentLogStorage(seriesFolder, SEGMENT_SIZE), new SegmentLogStorage(visitorsFolder, SEGMENT_SIZE), 1024, retention(60 * 24, 24 * 30, 365), 11,
+				new HotLinkTracker(10, 64, 60_000, 6), 0)) {
+
+			/*
+			 * Clicks of a week ago are rolled up into their hour and day, their minutes are past retention.
+			 */
+			aggregator.record("abc", lastWeek + 5 * 60_000, HyperLogLog.hash("203.0.113.1", "Firefox"));
+			aggregator.record("abc", lastWeek + 6 * 60_000, HyperLogLog.hash("203.0.113.1", "Chrome"));
+			aggregator.record("abc", lastWeek + HOUR, HyperLogLog.hash("203.0.113.1", "Firefox"));
+			aggregator.record("abc", now, HyperLogLog.hash("203.0.113.2", "Firefox"));
+			aggregator.flush();
+
+			assertEquals(series(lastWeek, 2, lastWeek + HOUR, 1), aggregator.query("abc", Granularity.HOUR, lastWeek, lastWeek + 2 * HOUR));
+			assertEquals(series(today - 7 * DAY, 3), aggregator.query("abc", Granularity.DAY, lastWeek, lastWeek + HOUR));
+			assertEquals(series(), aggregator.query("abc", Granularity.MINUTE, lastWeek, lastWeek + HOUR));
+
+			/*
+			 * Clicks of the running hour are only counted in minute buckets, yet appear in every granularity.
+			 */
+			assertEquals(series(Granularity.MINUTE.floor(now), 1), aggregator.query("abc", Granularity.MINUTE, now, now + 1));
+			assertEquals(series(Granularity.HOUR.floor(now), 1), aggregator.query("abc", Granularity.HOUR, now, now + 1));
+			assertEquals(series(today - 7 * DAY, 3, today, 1), aggregator.query("abc", Granularity.DAY, today - 7 * DAY, now + 1));
+
+			/*
+			 * A late click of a rolled up hour is counted in the rolled up buckets as well.
+			 */
+			aggregator.record("abc", lastWeek + 7 * 60_000, HyperLogLog.hash("203.0.113.2", "Firefox"));
+			assertEquals(series(lastWeek, 3), aggregator.query("abc", Granularity.HOUR, lastWeek, lastWeek + 1));
+			assertEquals(series(today - 7 * DAY, 4), aggregator.query("abc", Granularity.DAY, lastWeek, lastWeek + 1));
+
+		}
+
+		/*
+		 * The series and visitors are read back from the storage, with retention applied to the days.
+		 */
+		try (ClickSeriesAggregator aggregator = new ClickSeriesAggregator("test",
+				new SegmentLogStorage(seriesFolder, SEGMENT_SIZE), new SegmentLogStorage(visitorsFolder, SEGMENT_SIZE), 1024, retention(60, 24 * 30, 3), 11,
+				new HotLinkTracker(10, 64, 60_000, 6), 0)) {
+
+			assertEquals(series(lastWeek, 3, lastWeek + HOUR, 1), aggregator.query("abc", Granularity.HOUR, lastWeek, lastWeek + 2 * HOUR));
+			assertEquals(series(today, 1), aggregator.query("abc", Granularity.DAY, lastWeek, now + 1));
+			assertEquals(3, aggregator.queryVisitors("abc").estimate());
+
+			aggregator.delete("abc");
+			assertEquals(series(), aggregator.query("abc", Granularity.DAY, lastWeek, now + 1));
+			assertEquals(0, aggregator.queryVisitors("abc").estimate());
+
+			/*
+			 * A click still in flight at the deletion does not bring the series back, later clicks count again.
+			 */
+			aggregator.record("abc", now, HyperLogLog.hash("203.0.113.3", "Firefox"));
+			aggregator.flush();
+			assertEquals(series(), aggregator.query("abc", Granularity.DAY, lastWeek, now + 1));
+			assertEquals(0, aggregator.queryVisitors("abc").estimate());
+			aggregator.flush();
+			aggregator.record("abc", now, HyperLogLog.hash("203.0.113.3", "Firefox"));
+			assertEquals(series(today, 1), aggregator.query("abc", Granularity.DAY, lastWeek, now + 1));
+
+		}
+
+	}
+
+	private static Map<Granularity, Integer> retention(int minutes, int hours, int days) {
+
+		Map<Granularity, Integer> retention = new EnumMap<>(Granularity.class);
+		retention.put(Granularity.MINUTE, minutes);
+		retention.put(Granularity.HOUR, hours);
+		retention.put(Granularity.DAY, days);
+		return retention;
+
+	}
+
+	private static NavigableMap<Long, Long> series(long... bucketsAndClicks) {
+
+		NavigableMap<Long, Long> series = new TreeMap<>();
+		for (int i = 0; i < bucketsAndClicks.length; i += 2)
+			series.put(bucketsAndClicks[i], bucketsAndClicks[i + 1]);
+		return series;
+
+	}
+
+}
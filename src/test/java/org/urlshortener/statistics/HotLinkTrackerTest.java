@@ -0,0 +1,114 @@
+package org.urlshortener.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ *	This class tests the ranking, bounded memory and sliding window of the {@link HotLinkTracker}.
+ */
+public class HotLinkTrackerTest {
+
+	private static final long SECOND = 1000;
+
+	@Test
+	public void testTopLinks() throws Exception {
+
+		HotLinkTracker tracker = new HotLinkTracker(3, 16, 60 * SECOND, 6);
+		long now = 600 * SECOND;
+
+		/*
+		 * A few ids clicked often among many clicked once, far more than the counters of a slot.
+		 */
+		for (int round = 0; round < 50; round++) {
+			tracker.record("hot", now);
+			if (round % 2 == 0)
+				tracker.record("warm", now);
+			if (round % 5 == 0)
+				tracker.record("mild", now);
+			tracker.record("cold" + round, now);
+		}
+		tracker.publish(now);
+
+		/*
+		 * Verifying the ranking, and the clicks exceed the true clicks by their error at most.
+		 */
+		List<HotLinkTracker.HotLink> links = tracker.getTopLinks();
+		assertEquals(3, links.size());
+		assertEquals("hot", links.get(0).getId());
+		assertEquals("warm", links.get(1).getId());
+		assertEquals("mild", links.get(2).getId());
+		assertTrue(links.get(0).getClicks() >= 50 && links.get(0).getClicks() - links.get(0).getError() <= 50);
+		assertTrue(links.get(2).getClicks() >= 10 && links.get(2).getClicks() - links.get(2).getError() <= 10);
+		assertTrue(tracker.isHot("hot"));
+		assertFalse(tracker.isHot("cold0"));
+
+	}
+
+	@Test
+	public void testClicksAreUpperBound() throws Exception {
+
+		HotLinkTracker tracker = new HotLinkTracker(3, 2, 20 * SECOND, 2);
+		long start = 600 * SECOND;
+
+		/*
+		 * Clicks of "abc" in the second slot are lost once its counter is taken over by a more frequent id.
+		 */
+		for (int i = 0; i < 3; i++)
+			tracker.record("abc", start);
+		tracker.record("abc", start + 10 * SECOND);
+		for (int i = 0; i < 5; i++)
+			tracker.record("def", start + 10 * SECOND);
+		for (int i = 0; i < 5; i++)
+			tracker.record("ghi", start + 10 * SECOND);
+		tracker.publish(start + 10 * SECOND);
+
+		/*
+		 * Verifying the reported clicks never fall below the true 4 clicks and exceed them by the error at most.
+		 */
+		HotLinkTracker.HotLink link = tracker.getTopLinks().stream().filter(hot -> hot.getId().equals("abc")).findFirst().get();
+		assertTrue(link.getClicks() >= 4);
+		assertTrue(link.getClicks() - link.getError() <= 4);
+
+	}
+
+	@Test
+	public void testSlidingWindow() throws Exception {
+
+		HotLinkTracker tracker = new HotLinkTracker(2, 16, 60 * SECOND, 6);
+		long start = 600 * SECOND;
+
+		/*
+		 * Clicks spread over the slots of the window are summed up.
+		 */
+		for (int i = 0; i < 6; i++)
+			tracker.record("abc", start + i * 10 * SECOND);
+		tracker.record("xyz", start + 50 * SECOND);
+		tracker.publish(start + 50 * SECOND);
+		assertEquals("abc", tracker.getTopLinks().get(0).getId());
+		assertEquals(6, tracker.getTopLinks().get(0).getClicks());
+		assertEquals(0, tracker.getTopLinks().get(0).getError());
+
+		/*
+		 * Verifying the clicks which left the window are forgotten, and late clicks are ignored.
+		 */
+		tracker.record("xyz", start + 65 * SECOND);
+		tracker.record("abc", start);
+		tracker.publish(start + 65 * SECOND);
+		assertEquals("abc", tracker.getTopLinks().get(0).getId());
+		assertEquals(5, tracker.getTopLinks().get(0).getClicks());
+		assertEquals("xyz", tracker.getTopLinks().get(1).getId());
+		assertEquals(2, tracker.getTopLinks().get(1).getClicks());
+
+		tracker.publish(start + 10 * 60 * SECOND);
+		assertTrue(tracker.getTopLinks().isEmpty());
+		assertFalse(tracker.isHot("abc"));
+		assertEquals(60 * SECOND, tracker.getWindowMillis());
+
+	}
+
+}
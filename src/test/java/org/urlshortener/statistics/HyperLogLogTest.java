@@ -0,0 +1,76 @@
+package org.urlshortener.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ *	This class tests the accuracy, merging and encoding of the {@link HyperLogLog} sketch.
+ */
+public class HyperLogLogTest {
+
+	@Test
+	public void testEstimate() throws Exception {
+
+		HyperLogLog sketch = new HyperLogLog(11);
+		assertEquals(0, sketch.estimate());
+
+		/*
+		 * Small counts are exact in practice and kept sparse, repeated visitors are not counted twice.
+		 */
+		for (int i = 0; i < 10; i++)
+			for (int repeat = 0; repeat < 3; repeat++)
+				sketch.add(HyperLogLog.hash("198.51.100." + i, "Firefox"));
+		assertEquals(10, sketch.estimate());
+		assertTrue(sketch.getSizeInBytes() < 2048);
+
+		/*
+		 * Large counts stay within three standard errors, in the dense registers.
+		 */
+		for (int i = 0; i < 100_000; i++)
+			sketch.add(HyperLogLog.hash("10." + (i >> 16) + "." + (i >> 8 & 0xff) + "." + (i & 0xff), "Chrome"));
+		assertEquals(2048, sketch.getSizeInBytes());
+		assertEquals(100_010, sketch.estimate(), 100_010 * 3 * sketch.getStandardError());
+
+	}
+
+	@Test
+	public void testMergeAndEncode() throws Exception {
+
+		/*
+		 * Two sketches over overlapping visitors merge into the sketch of their union.
+		 */
+		HyperLogLog first = new HyperLogLog(11);
+		HyperLogLog second = new HyperLogLog(11);
+		HyperLogLog union = new HyperLogLog(11);
+		for (int i = 0; i < 30_000; i++) {
+			long hash = HyperLogLog.hash("192.0.2." + i, "Safari");
+			(i < 20_000 ? first : second).add(hash);
+			if (i >= 10_000 && i < 20_000)
+				second.add(hash);
+			union.add(hash);
+		}
+		HyperLogLog merged = new HyperLogLog(first);
+		assertTrue(merged.merge(second));
+		assertFalse(merged.merge(second));
+		assertEquals(union.estimate(), merged.estimate());
+		assertEquals(20_000, first.estimate(), 20_000 * 3 * first.getStandardError());
+
+		/*
+		 * Sparse and dense sketches are restored with the same estimate.
+		 */
+		HyperLogLog sparse = new HyperLogLog(14);
+		sparse.add(HyperLogLog.hash("192.0.2.1", "Safari"));
+		assertEquals(1, HyperLogLog.decode(sparse.encode()).estimate());
+		assertEquals(merged.estimate(), HyperLogLog.decode(merged.encode()).estimate());
+
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMergeOfOtherPrecision() {
+		new HyperLogLog(11).merge(new HyperLogLog(12));
+	}
+
+}